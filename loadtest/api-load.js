@@ -0,0 +1,31 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+const USERS = parseInt(__ENV.USERS || '200');
+
+export function setup() {
+    const ids = [];
+    const run = Date.now();
+    for (let i = 0; i < USERS; i++) {
+        const res = http.post(`${BASE_URL}/users`, JSON.stringify({
+            username: `load${run}_${i}`,
+            email: `load${run}_${i}@example.com`,
+            firstName: 'Load',
+            lastName: 'Test',
+        }), { headers: { 'Content-Type': 'application/json' } });
+        const id = res.json('data.id');
+        http.post(`${BASE_URL}/users/${id}/subscriptions`, JSON.stringify({ subscriptionTypeId: 1 + (i % 5) }),
+            { headers: { 'Content-Type': 'application/json' } });
+        ids.push(id);
+    }
+    return { ids };
+}
+
+export default function (data) {
+    const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+    const res = Math.random() < 0.8
+        ? http.get(`${BASE_URL}/users/${id}/subscriptions`)
+        : http.get(`${BASE_URL}/subscriptions/top`);
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
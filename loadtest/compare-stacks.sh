@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Runs the same k6 scenario against the MVC and the reactive stack and reports
+# throughput plus resident memory per concurrent connection.
+# Requires a running Postgres (docker-compose up -d postgres), k6 and jq.
+# Usage: loadtest/compare-stacks.sh [virtual-users] [duration]
+set -euo pipefail
+
+VUS=${1:-500}
+DURATION=${2:-60s}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+RESULTS="$ROOT/target/loadtest"
+mkdir -p "$RESULTS"
+
+(cd "$ROOT" && mvn -q -B -Preactive -DskipTests package)
+JAR=$(ls "$ROOT"/target/subscription-service-*.jar | head -1)
+
+for stack in mvc reactive; do
+    profile=default
+    [ "$stack" = reactive ] && profile=reactive
+
+    java -jar "$JAR" --spring.profiles.active="$profile" > "$RESULTS/$stack.log" 2>&1 &
+    pid=$!
+    until curl -sf http://localhost:8080/api/subscriptions/top > /dev/null; do sleep 1; done
+
+    rss_idle=$(ps -o rss= -p "$pid" | tr -d ' ')
+    peak_file="$RESULTS/$stack.rss"
+    echo "$rss_idle" > "$peak_file"
+    ( while kill -0 "$pid" 2> /dev/null; do ps -o rss= -p "$pid" | tr -d ' ' >> "$peak_file"; sleep 1; done ) &
+    sampler=$!
+
+    k6 run --quiet --vus "$VUS" --duration "$DURATION" \
+        --summary-export "$RESULTS/$stack.json" "$ROOT/loadtest/api-load.js"
+
+    threads=$(ps -o nlwp= -p "$pid" | tr -d ' ')
+    kill "$pid" "$sampler" 2> /dev/null || true
+    wait "$pid" 2> /dev/null || true
+
+    rss_peak=$(sort -n "$peak_file" | tail -1)
+    rps=$(jq '.metrics.http_reqs.rate' "$RESULTS/$stack.json")
+    p99=$(jq '.metrics.http_req_duration["p(99)"] // .metrics.http_req_duration["p(95)"]' "$RESULTS/$stack.json")
+    per_conn=$(( (rss_peak - rss_idle) / VUS ))
+    printf '%-8s rps=%-10.1f latency_p99_ms=%-8.1f threads=%-5s rss_idle_kb=%-8s rss_peak_kb=%-8s kb_per_connection=%s\n' \
+        "$stack" "$rps" "$p99" "$threads" "$rss_idle" "$rss_peak" "$per_conn" | tee -a "$RESULTS/summary.txt"
+done
@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Measures application startup time in several fast-start modes.
+# Requires a reachable Postgres (docker-compose up -d postgres).
+# Usage: scripts/startup-benchmark.sh [runs-per-mode]
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK="$ROOT/target/startup-benchmark"
+rm -rf "$WORK" && mkdir -p "$WORK/app"
+
+(cd "$ROOT" && mvn -q -B -Paot -DskipTests package)
+(cd "$WORK/app" && jar -xf "$ROOT"/target/subscription-service-*.jar)
+CP="$WORK/app/BOOT-INF/classes:$WORK/app/BOOT-INF/lib/*"
+MAIN=com.subscription.SubscriptionServiceApplication
+
+(cd "$WORK/app" && java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.context.exit=onRefresh \
+    -Dspring.profiles.active=cds -cp "$CP" "$MAIN" > "$WORK/cds-training.log" 2>&1)
+
+measure() {
+    local mode=$1; shift
+    local total=0
+    for run in $(seq "$RUNS"); do
+        local log="$WORK/$mode-$run.log"
+        java "$@" -cp "$CP" "$MAIN" > "$log" 2>&1 &
+        local pid=$!
+        until grep -q "Started SubscriptionServiceApplication" "$log"; do
+            kill -0 "$pid" 2> /dev/null || { echo "$mode failed, see $log"; exit 1; }
+            sleep 0.2
+        done
+        kill "$pid" && wait "$pid" 2> /dev/null || true
+        local seconds
+        seconds=$(grep -o "Started SubscriptionServiceApplication in [0-9.]*" "$log" | awk '{print $NF}')
+        total=$(echo "$total + $seconds" | bc)
+    done
+    printf '%-16s avg_startup_seconds=%.3f\n' "$mode" "$(echo "scale=3; $total / $RUNS" | bc)" \
+        | tee -a "$WORK/summary.txt"
+}
+
+measure baseline
+measure lazy -Dspring.main.lazy-initialization=true
+measure aot -Dspring.aot.enabled=true
+measure aot-cds -Dspring.aot.enabled=true -XX:SharedArchiveFile="$WORK/app.jsa"
+measure aot-cds-lazy -Dspring.aot.enabled=true -XX:SharedArchiveFile="$WORK/app.jsa" \
+    -Dspring.main.lazy-initialization=true -Dspring.flyway.validate-on-migrate=false
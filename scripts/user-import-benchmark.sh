@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# Generates a CSV of fresh users (with a sprinkling of in-file duplicates) and uploads it to
+# POST /users/import, printing the server-reported throughput.
+# Requires a running application (default http://localhost:8080/api) and jq.
+# Usage: scripts/user-import-benchmark.sh [user-count]
+set -euo pipefail
+
+USERS=${1:-1000000}
+BASE_URL=${BASE_URL:-http://localhost:8080/api}
+RUN=$(date +%s)
+FILE=$(mktemp -t user-import-XXXXXX.csv)
+trap 'rm -f "$FILE"' EXIT
+
+awk -v n="$USERS" -v run="$RUN" 'BEGIN {
+    print "username,email,first_name,last_name"
+    for (i = 1; i <= n; i++) {
+        # Every 1000th row repeats the previous username to exercise conflict resolution
+        id = (i % 1000 == 0) ? i - 1 : i
+        printf "imp%s_%d,imp%s_%d@example.com,First%d,Last%d\n", run, id, run, i, i, i
+    }
+}' > "$FILE"
+
+echo "Uploading $USERS users ($(du -h "$FILE" | cut -f1))"
+curl -sS -X POST "$BASE_URL/users/import" \
+    -H "Content-Type: text/csv" \
+    --data-binary "@$FILE" \
+    | jq '.data | {received, imported, rejected, durationMs, rowsPerSecond}'
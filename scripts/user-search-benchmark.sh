@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Seeds a large users table and times the /users/search query with and without the trigram indexes.
+# Requires a Postgres with the schema migrated (docker-compose up -d postgres, then start the app once).
+# WARNING: truncates the users table (and dependent subscriptions) before seeding.
+# Usage: scripts/user-search-benchmark.sh [user-count]
+set -euo pipefail
+
+USERS=${1:-2000000}
+PSQL=${PSQL:-"psql -h localhost -U postgres -d subscription_db -v ON_ERROR_STOP=1 -q"}
+QUERIES=("ali" "alice.smith" "alcie" "smth" "user12345@")
+
+$PSQL <<SQL
+TRUNCATE users CASCADE;
+INSERT INTO users (username, email, first_name, last_name, created_at, updated_at)
+SELECT 'user' || g || '_' || substr(md5(g::text), 1, 6),
+       'user' || g || '@' || (ARRAY['example.com', 'mail.org', 'corp.net'])[1 + g % 3],
+       (ARRAY['Alice', 'Bob', 'Carol', 'Dave', 'Erin', 'Frank', 'Grace', 'Heidi'])[1 + g % 8],
+       (ARRAY['Smith', 'Jones', 'Brown', 'Taylor', 'Wilson', 'Evans', 'Walker', 'Wright'])[1 + (g / 8) % 8],
+       now(), now()
+FROM generate_series(1, $USERS) g;
+ANALYZE users;
+SQL
+
+search_sql() {
+    local q=$1
+    cat <<SQL
+EXPLAIN (ANALYZE, BUFFERS, FORMAT TEXT)
+SELECT u.* FROM users u
+WHERE lower(u.username) LIKE '$q%' OR lower(u.email) LIKE '$q%'
+   OR lower(u.first_name) LIKE '$q%' OR lower(u.last_name) LIKE '$q%'
+   OR lower(u.username) % '$q' OR lower(u.email) % '$q'
+   OR lower(u.first_name) % '$q' OR lower(u.last_name) % '$q'
+ORDER BY CASE WHEN lower(u.username) LIKE '$q%' OR lower(u.email) LIKE '$q%'
+   OR lower(u.first_name) LIKE '$q%' OR lower(u.last_name) LIKE '$q%' THEN 0 ELSE 1 END,
+   greatest(similarity(lower(u.username), '$q'), similarity(lower(u.email), '$q'),
+   similarity(lower(u.first_name), '$q'), similarity(lower(u.last_name), '$q')) DESC, u.id
+LIMIT 21;
+SQL
+}
+
+run() {
+    local mode=$1
+    for q in "${QUERIES[@]}"; do
+        local ms
+        ms=$(search_sql "$q" | $PSQL | grep -o "Execution Time: [0-9.]*" | awk '{print $NF}')
+        printf '%-12s users=%-9s q=%-14s execution_ms=%s\n' "$mode" "$USERS" "$q" "$ms"
+    done
+}
+
+run indexed
+
+# Same fuzzy lookup without the indexes; the DROP is rolled back
+{
+    echo "BEGIN;"
+    echo "DROP INDEX idx_users_username_trgm, idx_users_email_trgm, idx_users_first_name_trgm, idx_users_last_name_trgm;"
+    search_sql alcie
+    echo "ROLLBACK;"
+} | $PSQL | grep -o "Execution Time: [0-9.]*" \
+    | awk -v users="$USERS" '{printf "%-12s users=%-9s q=%-14s execution_ms=%s\n", "seq-scan", users, "alcie", $NF}'
@@ -0,0 +1,146 @@
+package com.subscription.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.UserDto;
+import com.subscription.model.SubscriptionStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Compares the response formats offered by content negotiation on the two largest payload shapes:
+// a user listing and a user's subscriptions. Encoded and gzipped sizes are printed once per trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"users", "subscriptions"})
+    private String payload;
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private JavaType type;
+    private Object response;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = mapper(format);
+        List<?> data = payload.equals("users") ? users(size) : subscriptions(size);
+        Class<?> element = payload.equals("users") ? UserDto.class : SubscriptionDto.class;
+        type = mapper.getTypeFactory().constructParametricType(ApiResponse.class,
+                mapper.getTypeFactory().constructCollectionType(List.class, element));
+        response = ApiResponse.success(data);
+        encoded = mapper.writeValueAsBytes(response);
+        System.out.printf("%n# %s %s x%d: %d bytes, %d bytes gzipped%n",
+                format, payload, size, encoded.length, gzip(encoded).length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        return mapper.readValue(encoded, type);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzip() throws IOException {
+        return gzip(mapper.writeValueAsBytes(response));
+    }
+
+    // Mirrors BinaryFormatConfig: ISO dates for JSON, epoch millis for the binary formats
+    private static ObjectMapper mapper(String format) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        JsonFactory factory = switch (format) {
+            case "json" -> null;
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        if (factory == null) {
+            return builder.build();
+        }
+        return builder.factory(factory)
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .featuresToDisable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .build();
+    }
+
+    private static List<UserDto> users(int count) {
+        List<UserDto> users = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            users.add(UserDto.builder()
+                    .id(i)
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .version(0L)
+                    .build());
+        }
+        return users;
+    }
+
+    private static List<SubscriptionDto> subscriptions(int count) {
+        String[] types = {"Netflix", "YouTube Premium", "VK Music", "Yandex.Plus", "Spotify"};
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        List<SubscriptionDto> subscriptions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            subscriptions.add(SubscriptionDto.builder()
+                    .id((long) i + 1)
+                    .subscriptionTypeId((long) i % types.length + 1)
+                    .subscriptionTypeName(types[i % types.length])
+                    .startDate(start.plus(Duration.ofDays(i)))
+                    .endDate(start.plus(Duration.ofDays(i + 30)))
+                    .status(SubscriptionStatus.values()[i % SubscriptionStatus.values().length])
+                    .build());
+        }
+        return subscriptions;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 16);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,128 @@
+package com.subscription.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares ZonedDateTime with Instant for the four timestamps of a subscription row: converting the
+// values the driver returns, stamping audit times on persist, and writing a large list as JSON.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimestampBenchmark {
+
+    private static final int COLUMNS = 4;
+
+    @Param({"zoned", "instant"})
+    private String representation;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private Clock clock;
+    private OffsetDateTime[] values;
+    private List<?> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        clock = Clock.systemUTC();
+        OffsetDateTime start = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+        values = new OffsetDateTime[size * COLUMNS];
+        for (int i = 0; i < size; i++) {
+            OffsetDateTime created = start.plusMinutes(i);
+            values[i * COLUMNS] = created;
+            values[i * COLUMNS + 1] = created.plusDays(30);
+            values[i * COLUMNS + 2] = created;
+            values[i * COLUMNS + 3] = created.plusSeconds(i % 3600);
+        }
+        rows = mapRows();
+        System.out.printf("%n# %s x%d: %d bytes of JSON%n", representation, size, mapper.writeValueAsBytes(rows).length);
+    }
+
+    @Benchmark
+    public List<?> map() {
+        return mapRows();
+    }
+
+    // The entities used to call ZonedDateTime.now() twice in @PrePersist; they now read one shared UTC clock
+    @Benchmark
+    public void stamp(Blackhole blackhole) {
+        if (representation.equals("zoned")) {
+            for (int i = 0; i < size; i++) {
+                blackhole.consume(ZonedDateTime.now());
+                blackhole.consume(ZonedDateTime.now());
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                blackhole.consume(clock.instant());
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(rows);
+    }
+
+    // ZonedDateTime values are normalized to the JVM zone, as Hibernate does when reading them
+    private List<?> mapRows() {
+        List<Object> mapped = new ArrayList<>(size);
+        if (representation.equals("zoned")) {
+            for (int i = 0; i < size; i++) {
+                int column = i * COLUMNS;
+                mapped.add(new ZonedRow((long) i + 1,
+                        values[column].atZoneSameInstant(ZoneId.systemDefault()),
+                        values[column + 1].atZoneSameInstant(ZoneId.systemDefault()),
+                        values[column + 2].atZoneSameInstant(ZoneId.systemDefault()),
+                        values[column + 3].atZoneSameInstant(ZoneId.systemDefault())));
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                int column = i * COLUMNS;
+                mapped.add(new InstantRow((long) i + 1,
+                        values[column].toInstant(),
+                        values[column + 1].toInstant(),
+                        values[column + 2].toInstant(),
+                        values[column + 3].toInstant()));
+            }
+        }
+        return mapped;
+    }
+
+    public record ZonedRow(Long id, ZonedDateTime startDate, ZonedDateTime endDate,
+                           ZonedDateTime createdAt, ZonedDateTime updatedAt) {
+    }
+
+    public record InstantRow(Long id, Instant startDate, Instant endDate, Instant createdAt, Instant updatedAt) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.subscription.archive;
+
+import com.subscription.event.SubscriptionsArchivedEvent;
+import com.subscription.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Moves cancelled and expired subscriptions that have not changed for the retention period from
+// subscriptions into subscriptions_archive, one batch per transaction, so the indexes behind the
+// per-user and top-type queries only cover live rows. Batches are claimed with FOR UPDATE SKIP
+// LOCKED, so several instances can archive at once without waiting on each other. With sharding each
+// shard archives its own rows in parallel.
+@Slf4j
+public class SubscriptionArchiver implements AutoCloseable {
+
+    private static final String CLAIM_SQL =
+            "SELECT id FROM subscriptions WHERE status IN ('CANCELLED', 'EXPIRED') AND updated_at < ? " +
+            "ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String COPY_SQL =
+            "INSERT INTO subscriptions_archive (id, user_id, subscription_type_id, start_date, end_date, status, " +
+            "auto_renew, created_at, updated_at, archived_at) " +
+            "SELECT id, user_id, subscription_type_id, start_date, end_date, status, auto_renew, created_at, " +
+            "updated_at, ? FROM subscriptions WHERE id IN (%s)";
+    private static final String DELETE_SQL = "DELETE FROM subscriptions WHERE id IN (%s)";
+    private static final String HOT_ROWS_SQL = "SELECT COUNT(*) FROM subscriptions";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LongSupplier clock;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration interval;
+
+    private final AtomicLong hotRows = new AtomicLong();
+    private final Counter archived;
+    private ScheduledExecutorService executor;
+
+    public SubscriptionArchiver(DataSource dataSource,
+                                ShardRouter shardRouter,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                LongSupplier clock,
+                                Duration retention,
+                                int batchSize,
+                                Duration interval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (retention.isNegative()) {
+            throw new IllegalArgumentException("Retention must not be negative");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.interval = interval;
+
+        this.archived = Counter.builder("subscription.archived").register(meterRegistry);
+        Gauge.builder("subscription.hot.rows", hotRows, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subscription-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::run, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void run() {
+        archive();
+        refreshHotRows();
+    }
+
+    public int archive() {
+        long started = System.nanoTime();
+        int total = 0;
+        try {
+            for (int moved : ShardRouter.onEachDatabase(shardRouter, this::archiveDatabase)) {
+                total += moved;
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to archive subscriptions", ex);
+        }
+        if (total > 0) {
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Archived {} subscriptions in {} ms ({} per second)",
+                    total, elapsedMillis, total * 1000L / elapsedMillis);
+        }
+        return total;
+    }
+
+    // Archives batches until a short one shows nothing older than the retention period is left
+    private int archiveDatabase() {
+        int total = 0;
+        int moved;
+        do {
+            moved = archiveBatch();
+            total += moved;
+        } while (moved == batchSize && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    // Copies and deletes one claimed batch in a single transaction; returns the rows moved
+    public int archiveBatch() {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            OffsetDateTime now = toTimestamp(clock.getAsLong());
+            OffsetDateTime cutoff = now.minus(retention);
+            List<Long> claimed = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, cutoff, batchSize);
+            if (claimed.isEmpty()) {
+                return claimed;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(claimed.size(), "?"));
+            Object[] copyArgs = new Object[claimed.size() + 1];
+            copyArgs[0] = now;
+            for (int i = 0; i < claimed.size(); i++) {
+                copyArgs[i + 1] = claimed.get(i);
+            }
+            jdbcTemplate.update(String.format(COPY_SQL, placeholders), copyArgs);
+            jdbcTemplate.update(String.format(DELETE_SQL, placeholders), claimed.toArray());
+            eventPublisher.publishEvent(new SubscriptionsArchivedEvent(claimed));
+            return claimed;
+        });
+        int moved = ids != null ? ids.size() : 0;
+        archived.increment(moved);
+        return moved;
+    }
+
+    public long refreshHotRows() {
+        try {
+            long count = 0;
+            for (Long shardCount : ShardRouter.onEachDatabase(shardRouter,
+                    () -> jdbcTemplate.queryForObject(HOT_ROWS_SQL, Long.class))) {
+                count += shardCount != null ? shardCount : 0;
+            }
+            hotRows.set(count);
+        } catch (RuntimeException ex) {
+            log.error("Failed to count subscriptions", ex);
+        }
+        return hotRows.get();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OffsetDateTime toTimestamp(long millis) {
+        return Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC);
+    }
+}
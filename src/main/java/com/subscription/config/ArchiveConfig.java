@@ -0,0 +1,36 @@
+package com.subscription.config;
+
+import com.subscription.archive.SubscriptionArchiver;
+import com.subscription.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "subscription.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class ArchiveConfig {
+
+    @Bean
+    public SubscriptionArchiver subscriptionArchiver(
+            DataSource dataSource,
+            ObjectProvider<ShardRouter> shardRouter,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            @Value("${subscription.archive.retention:90d}") Duration retention,
+            @Value("${subscription.archive.batch-size:1000}") int batchSize,
+            @Value("${subscription.archive.interval:1h}") Duration interval) {
+        return new SubscriptionArchiver(dataSource, shardRouter.getIfAvailable(), transactionTemplate,
+                eventPublisher, meterRegistry, clock::millis, retention, batchSize, interval);
+    }
+}
@@ -0,0 +1,31 @@
+package com.subscription.config;
+
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.util.StaleWhileRevalidateCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public StaleWhileRevalidateCache<List<SubscriptionTypeDto>> topSubscriptionsCache(
+            MeterRegistry meterRegistry,
+            @Value("${subscription.top-cache.fresh-for:5s}") Duration freshFor,
+            @Value("${subscription.top-cache.max-stale:60s}") Duration maxStale) {
+        // A single daemon thread is enough: at most one refresh is in flight at a time
+        return new StaleWhileRevalidateCache<>("subscriptions.top.cache", freshFor, maxStale,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "top-subscriptions-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }),
+                System::nanoTime, meterRegistry);
+    }
+}
@@ -0,0 +1,16 @@
+package com.subscription.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    // Shared by everything that stamps a time; ZonedDateTime.now() resolves the default zone on every call
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
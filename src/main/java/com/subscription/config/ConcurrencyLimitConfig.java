@@ -0,0 +1,57 @@
+package com.subscription.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subscription.limit.ConcurrencyLimitFilter;
+import com.subscription.limit.RequestPriority;
+import com.subscription.limit.ServiceLatencyAspect;
+import com.subscription.util.GradientLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "subscription.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public GradientLimiter concurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${subscription.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${subscription.concurrency.min-limit:5}") int minLimit,
+            @Value("${subscription.concurrency.max-limit:200}") int maxLimit,
+            @Value("${subscription.concurrency.smoothing:0.2}") double smoothing,
+            @Value("${subscription.concurrency.rtt-tolerance:1.5}") double rttTolerance,
+            @Value("${subscription.concurrency.long-window:600}") int longWindow) {
+        GradientLimiter limiter = new GradientLimiter(initialLimit, minLimit, maxLimit, smoothing, rttTolerance, longWindow);
+        Gauge.builder("concurrency.limit", limiter, GradientLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("concurrency.inflight", limiter, GradientLimiter::getInFlight).register(meterRegistry);
+        return limiter;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            GradientLimiter concurrencyLimiter,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${subscription.concurrency.priority:READS}") RequestPriority priority,
+            @Value("${subscription.concurrency.low-priority-share:0.8}") double lowPriorityShare) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(concurrencyLimiter, objectMapper, priority, lowPriorityShare, meterRegistry));
+        // Health and metrics must stay reachable while shedding, so only the API paths are limited
+        registration.addUrlPatterns("/users/*", "/subscriptions/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public ServiceLatencyAspect serviceLatencyAspect(GradientLimiter concurrencyLimiter) {
+        return new ServiceLatencyAspect(concurrencyLimiter);
+    }
+}
@@ -0,0 +1,48 @@
+package com.subscription.config;
+
+import com.subscription.notification.LoggingSubscriptionNotifier;
+import com.subscription.notification.SubscriptionExpiryScheduler;
+import com.subscription.notification.SubscriptionNotifier;
+import com.subscription.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "subscription.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiryNotificationConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SubscriptionNotifier subscriptionNotifier() {
+        return new LoggingSubscriptionNotifier();
+    }
+
+    @Bean
+    public SubscriptionExpiryScheduler subscriptionExpiryScheduler(
+            DataSource dataSource,
+            ObjectProvider<ShardRouter> shardRouter,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            SubscriptionNotifier subscriptionNotifier,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            @Value("${subscription.expiry.tick:1s}") Duration tick,
+            @Value("${subscription.expiry.window:24h}") Duration window,
+            @Value("${subscription.expiry.reminder-lead:3d}") Duration reminderLead,
+            @Value("${subscription.expiry.refill-interval:10m}") Duration refillInterval) {
+        return new SubscriptionExpiryScheduler(dataSource, shardRouter.getIfAvailable(), transactionTemplate,
+                eventPublisher, subscriptionNotifier, meterRegistry, clock::millis, tick, window, reminderLead,
+                refillInterval);
+    }
+}
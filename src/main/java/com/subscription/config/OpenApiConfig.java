@@ -5,18 +5,22 @@ import io.swagger.v3.oas.models.info.Contact;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.servers.Server;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.util.List;
 
 @Configuration
+@ConditionalOnProperty(name = "springdoc.api-docs.enabled", matchIfMissing = true)
 public class OpenApiConfig {
 
     @Value("${server.servlet.context-path}")
     private String contextPath;
 
     @Bean
+    @Lazy
     public OpenAPI openAPI() {
         return new OpenAPI()
                 .info(new Info()
@@ -32,4 +36,4 @@ public class OpenApiConfig {
                                 .description("Local Development Server")
                 ));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.subscription.config;
+
+import com.subscription.readmodel.ReadModelSubscriptionService;
+import com.subscription.service.impl.SubscriptionServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "subscription.read-model.enabled", havingValue = "true")
+public class ReadModelConfig {
+
+    // Takes over SubscriptionService injection points; the JPA implementation stays the write path
+    @Bean
+    @Primary
+    public ReadModelSubscriptionService readModelSubscriptionService(
+            SubscriptionServiceImpl subscriptionServiceImpl,
+            DataSource dataSource,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${subscription.read-model.snapshot-file:${java.io.tmpdir}/subscription-read-model.bin}") Path snapshotFile,
+            @Value("${subscription.read-model.snapshot-interval:5m}") Duration snapshotInterval,
+            @Value("${subscription.read-model.verify-interval:1m}") Duration verifyInterval) {
+        return new ReadModelSubscriptionService(subscriptionServiceImpl, dataSource, transactionTemplate,
+                meterRegistry, snapshotFile, snapshotInterval, verifyInterval);
+    }
+}
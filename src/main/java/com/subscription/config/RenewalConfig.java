@@ -0,0 +1,37 @@
+package com.subscription.config;
+
+import com.subscription.renewal.SubscriptionRenewalEngine;
+import com.subscription.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "subscription.renewal.enabled", havingValue = "true", matchIfMissing = true)
+public class RenewalConfig {
+
+    @Bean
+    public SubscriptionRenewalEngine subscriptionRenewalEngine(
+            DataSource dataSource,
+            ObjectProvider<ShardRouter> shardRouter,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            @Value("${subscription.renewal.workers:4}") int workers,
+            @Value("${subscription.renewal.batch-size:500}") int batchSize,
+            @Value("${subscription.renewal.poll-interval:30s}") Duration pollInterval,
+            @Value("${subscription.renewal.backlog-interval:1m}") Duration backlogInterval) {
+        return new SubscriptionRenewalEngine(dataSource, shardRouter.getIfAvailable(), transactionTemplate,
+                eventPublisher, meterRegistry, clock::millis, workers, batchSize, pollInterval, backlogInterval);
+    }
+}
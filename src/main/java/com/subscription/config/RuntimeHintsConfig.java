@@ -0,0 +1,63 @@
+package com.subscription.config;
+
+import com.subscription.dto.*;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.*;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.SubscriptionRuntimeHints.class)
+public class RuntimeHintsConfig {
+
+    static class SubscriptionRuntimeHints implements RuntimeHintsRegistrar {
+
+        // Jackson binds these reflectively, including the generic payload of ApiResponse and Lombok builders
+        private static final List<Class<?>> JSON_TYPES = List.of(
+                ApiResponse.class,
+                ApiResponse.ApiResponseBuilder.class,
+                UserDto.class,
+                PageDto.class,
+                PageDto.PageDtoBuilder.class,
+                SubscriptionDto.class,
+                SubscriptionCountDto.class,
+                SubscriptionBatchRequest.class,
+                SubscriptionTypeDto.class,
+                SubscriptionHistoryDto.class,
+                SubscriptionStatsDto.class,
+                StatsGranularity.class,
+                ExportResultDto.class,
+                ExportDataset.class,
+                UserImportResultDto.class,
+                UserImportRejectionDto.class,
+                SubscriptionStatus.class,
+                SubscriptionEvent.class,
+                SubscriptionEventType.class
+        );
+
+        // Hibernate instantiates entities and reads their fields reflectively; lazy associations on
+        // Subscription.user and Subscription.subscriptionType rely on build-time bytecode enhancement
+        private static final List<Class<?>> ENTITY_TYPES = List.of(
+                User.class,
+                Subscription.class,
+                SubscriptionType.class,
+                SubscriptionHistory.class,
+                SubscriptionDailyStat.class,
+                SubscriptionDailyStatId.class
+        );
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            JSON_TYPES.forEach(type -> hints.reflection().registerType(type, MemberCategory.values()));
+            ENTITY_TYPES.forEach(type -> hints.reflection().registerType(type, MemberCategory.values()));
+            hints.resources().registerPattern("db/migration/*.sql");
+            hints.resources().registerPattern("db/directory/*.sql");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.subscription.config;
+
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.repository.SubscriptionRepository;
+import com.subscription.service.impl.SubscriptionServiceImpl;
+import com.subscription.service.impl.UserServiceImpl;
+import com.subscription.shard.ShardMigrator;
+import com.subscription.shard.ShardRebalancer;
+import com.subscription.shard.ShardRouter;
+import com.subscription.shard.ShardRoutingAspect;
+import com.subscription.shard.ShardRoutingDataSource;
+import com.subscription.shard.ShardedSubscriptionService;
+import com.subscription.shard.ShardedUserService;
+import com.subscription.shard.ShardingProperties;
+import com.subscription.shard.UserDirectory;
+import com.subscription.util.ConsistentHashRing;
+import com.subscription.sql.DataSourceProxyPostProcessor;
+import com.subscription.util.StaleWhileRevalidateCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "subscription.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // spring.datasource becomes the directory database; users and subscriptions live on the shards
+    @Bean
+    public DataSource directoryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().build();
+    }
+
+    // The shard pools are not beans, so SQL accounting has to wrap them here to see direct shard access
+    @Bean(destroyMethod = "close")
+    public ShardRouter shardRouter(ShardingProperties properties,
+                                   ObjectProvider<DataSourceProxyPostProcessor> dataSourceProxy) {
+        DataSourceProxyPostProcessor proxy = dataSourceProxy.getIfAvailable();
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            if (proxy != null) {
+                dataSource = proxy.proxy(dataSource, shard.getName());
+            }
+            if (shards.put(shard.getName(), dataSource) != null) {
+                throw new IllegalStateException("Duplicate shard name: " + shard.getName());
+            }
+        }
+        ConsistentHashRing ring = new ConsistentHashRing(shards.keySet(), properties.getVirtualNodes());
+        return new ShardRouter(ring, shards, properties.getFanOutThreads());
+    }
+
+    // What JPA, Flyway and the JDBC components get injected
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("directoryDataSource") DataSource directoryDataSource,
+                                 ShardRouter shardRouter) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shardRouter.getShards().forEach(shard -> shards.put(shard, shardRouter.dataSource(shard)));
+        return new ShardRoutingDataSource(directoryDataSource, shards);
+    }
+
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRouter shardRouter) {
+        return new ShardMigrator(shardRouter);
+    }
+
+    @Bean
+    public ShardRoutingAspect shardRoutingAspect(ShardRouter shardRouter) {
+        return new ShardRoutingAspect(shardRouter);
+    }
+
+    @Bean
+    public UserDirectory userDirectory(@Qualifier("directoryDataSource") DataSource directoryDataSource) {
+        return new UserDirectory(directoryDataSource);
+    }
+
+    @Bean
+    @Primary
+    public ShardedUserService shardedUserService(UserServiceImpl userServiceImpl,
+                                                 ShardRouter shardRouter,
+                                                 UserDirectory userDirectory) {
+        return new ShardedUserService(userServiceImpl, shardRouter, userDirectory);
+    }
+
+    // Both would take over SubscriptionService, and the read model only sees the directory database
+    @Bean
+    @Primary
+    public ShardedSubscriptionService shardedSubscriptionService(
+            SubscriptionServiceImpl subscriptionServiceImpl,
+            SubscriptionRepository subscriptionRepository,
+            ShardRouter shardRouter,
+            StaleWhileRevalidateCache<List<SubscriptionTypeDto>> topSubscriptionsCache,
+            @Value("${subscription.read-model.enabled:false}") boolean readModelEnabled) {
+        if (readModelEnabled) {
+            throw new IllegalStateException("The read model cannot be used together with sharding");
+        }
+        return new ShardedSubscriptionService(subscriptionServiceImpl, subscriptionRepository, shardRouter,
+                topSubscriptionsCache);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRouter shardRouter, ShardingProperties properties) {
+        return new ShardRebalancer(shardRouter, properties.getRebalanceBatchSize());
+    }
+}
@@ -0,0 +1,47 @@
+package com.subscription.config;
+
+import com.subscription.sql.DataSourceProxyPostProcessor;
+import com.subscription.sql.ServiceMethodAttributionAspect;
+import com.subscription.sql.SqlAccountingFilter;
+import com.subscription.sql.StatementAccountingListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "subscription.sql-accounting.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlAccountingConfig {
+
+    // Static so the post-processor is registered before the DataSource is created
+    @Bean
+    public static DataSourceProxyPostProcessor dataSourceProxyPostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${subscription.sql-accounting.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        return new DataSourceProxyPostProcessor(new StatementAccountingListener(meterRegistry, slowQueryThreshold));
+    }
+
+    @Bean
+    public ServiceMethodAttributionAspect serviceMethodAttributionAspect() {
+        return new ServiceMethodAttributionAspect();
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<SqlAccountingFilter> sqlAccountingFilter(
+            MeterRegistry meterRegistry,
+            @Value("${subscription.sql-accounting.max-statements-per-request:20}") int maxStatements,
+            @Value("${subscription.sql-accounting.max-time-per-request:500ms}") Duration maxTime) {
+        FilterRegistrationBean<SqlAccountingFilter> registration =
+                new FilterRegistrationBean<>(new SqlAccountingFilter(meterRegistry, maxStatements, maxTime));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
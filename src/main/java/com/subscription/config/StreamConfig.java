@@ -0,0 +1,40 @@
+package com.subscription.config;
+
+import com.subscription.stream.StreamOverflowPolicy;
+import com.subscription.stream.SubscriptionStreamHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@ConditionalOnProperty(name = "subscription.stream.enabled", havingValue = "true", matchIfMissing = true)
+public class StreamConfig {
+
+    @Bean
+    public SubscriptionStreamHub subscriptionStreamHub(
+            MeterRegistry meterRegistry,
+            @Value("${subscription.stream.sender-threads:4}") int senderThreads,
+            @Value("${subscription.stream.queue-capacity:64}") int queueCapacity,
+            @Value("${subscription.stream.max-connections:40000}") int maxConnections,
+            @Value("${subscription.stream.timeout:30m}") Duration timeout,
+            @Value("${subscription.stream.heartbeat-interval:15s}") Duration heartbeatInterval,
+            @Value("${subscription.stream.send-timeout:10s}") Duration sendTimeout,
+            @Value("${subscription.stream.overflow-policy:RESYNC}") StreamOverflowPolicy overflowPolicy) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new SubscriptionStreamHub(SseEmitter::new,
+                Executors.newFixedThreadPool(senderThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "subscription-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }),
+                meterRegistry, queueCapacity, maxConnections, timeout, heartbeatInterval, sendTimeout,
+                overflowPolicy);
+    }
+}
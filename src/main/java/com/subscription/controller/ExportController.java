@@ -0,0 +1,51 @@
+package com.subscription.controller;
+
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.ExportDataset;
+import com.subscription.dto.ExportResultDto;
+import com.subscription.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/exports")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final ExportService exportService;
+
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> exportCsv(@PathVariable String dataset) {
+        ExportDataset exportDataset = ExportDataset.fromPath(dataset);
+        log.info("Received request to export {} as CSV", exportDataset.fileName());
+        StreamingResponseBody body = out -> exportService.exportCsv(exportDataset, out);
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(exportDataset.fileName() + ".csv")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @PostMapping("/{dataset}/files")
+    public ResponseEntity<ApiResponse<ExportResultDto>> exportCsvFiles(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "1") int parallelism) {
+        ExportDataset exportDataset = ExportDataset.fromPath(dataset);
+        log.info("Received request to export {} to files with parallelism {}", exportDataset.fileName(), parallelism);
+        ExportResultDto result = exportService.exportCsvFiles(exportDataset, parallelism);
+        return ResponseEntity.ok(ApiResponse.success("Export completed successfully", result));
+    }
+}
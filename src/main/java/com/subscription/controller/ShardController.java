@@ -0,0 +1,29 @@
+package com.subscription.controller;
+
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.ShardRebalanceResultDto;
+import com.subscription.shard.ShardRebalancer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/shards")
+@ConditionalOnProperty(name = "subscription.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardController {
+
+    private final ShardRebalancer shardRebalancer;
+
+    @PostMapping("/rebalance")
+    public ResponseEntity<ApiResponse<ShardRebalanceResultDto>> rebalance() {
+        log.info("Received request to rebalance shards");
+        ShardRebalanceResultDto result = shardRebalancer.rebalance();
+        return ResponseEntity.ok(ApiResponse.success("Rebalance completed successfully", result));
+    }
+}
@@ -1,17 +1,31 @@
 package com.subscription.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.subscription.dto.ApiResponse;
+import com.subscription.dto.SubscriptionBatchRequest;
+import com.subscription.dto.SubscriptionCountDto;
 import com.subscription.dto.SubscriptionDto;
 import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.model.SubscriptionStatus;
 import com.subscription.service.SubscriptionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,6 +33,7 @@ import java.util.List;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/users/{userId}/subscriptions")
     public ResponseEntity<ApiResponse<SubscriptionDto>> addSubscription(
@@ -32,12 +47,29 @@ public class SubscriptionController {
     }
 
     @GetMapping("/users/{userId}/subscriptions")
-    public ResponseEntity<ApiResponse<List<SubscriptionDto>>> getUserSubscriptions(@PathVariable Long userId) {
-        log.info("Received request to get subscriptions for user ID: {}", userId);
-        List<SubscriptionDto> subscriptions = subscriptionService.getUserSubscriptions(userId);
+    public ResponseEntity<ApiResponse<List<SubscriptionDto>>> getUserSubscriptions(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Set<SubscriptionStatus> status,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        log.info("Received request to get subscriptions for user ID: {} with status: {}", userId, status);
+        List<SubscriptionDto> subscriptions;
+        if (includeArchived) {
+            subscriptions = subscriptionService.getUserSubscriptions(userId, status, true);
+        } else {
+            subscriptions = status == null || status.isEmpty()
+                    ? subscriptionService.getUserSubscriptions(userId)
+                    : subscriptionService.getUserSubscriptions(userId, status);
+        }
         return ResponseEntity.ok(ApiResponse.success(subscriptions));
     }
 
+    @GetMapping("/users/{userId}/subscriptions/count")
+    public ResponseEntity<ApiResponse<SubscriptionCountDto>> countUserSubscriptions(@PathVariable Long userId) {
+        log.info("Received request to count subscriptions for user ID: {}", userId);
+        SubscriptionCountDto counts = subscriptionService.countUserSubscriptions(userId);
+        return ResponseEntity.ok(ApiResponse.success(counts));
+    }
+
     @DeleteMapping("/users/{userId}/subscriptions/{subscriptionId}")
     public ResponseEntity<ApiResponse<Void>> deleteSubscription(
             @PathVariable Long userId,
@@ -47,6 +79,44 @@ public class SubscriptionController {
         return ResponseEntity.ok(ApiResponse.success("Subscription deleted successfully", null));
     }
 
+    // Writes the ApiResponse envelope incrementally, one chunk of users at a time
+    @PostMapping("/subscriptions/batch-get")
+    public ResponseEntity<StreamingResponseBody> batchGetSubscriptions(
+            @Valid @RequestBody SubscriptionBatchRequest request) {
+        log.info("Received request to get subscriptions for {} users", request.getUserIds().size());
+        // Every field except data comes from ApiResponse itself, so the envelope cannot drift from it
+        ObjectNode envelope = objectMapper.valueToTree(ApiResponse.success(null));
+        envelope.remove("data");
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                Iterator<Map.Entry<String, JsonNode>> fields = envelope.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    json.writeFieldName(field.getKey());
+                    json.writeTree(field.getValue());
+                }
+                json.writeObjectFieldStart("data");
+                subscriptionService.streamSubscriptionsByUsers(request.getUserIds(), chunk -> {
+                    try {
+                        for (var entry : chunk.entrySet()) {
+                            json.writeFieldName(entry.getKey().toString());
+                            json.writeObject(entry.getValue());
+                        }
+                        json.flush();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @GetMapping("/subscriptions/top")
     public ResponseEntity<ApiResponse<List<SubscriptionTypeDto>>> getTopSubscriptions() {
         log.info("Received request to get top subscriptions");
@@ -0,0 +1,39 @@
+package com.subscription.controller;
+
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.SubscriptionHistoryDto;
+import com.subscription.service.SubscriptionHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionHistoryController {
+
+    private final SubscriptionHistoryService subscriptionHistoryService;
+
+    @GetMapping("/users/{userId}/subscriptions/history")
+    public ResponseEntity<ApiResponse<List<SubscriptionHistoryDto>>> getUserSubscriptionHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        log.info("Received request to get subscription history for user ID: {}", userId);
+        List<SubscriptionHistoryDto> history = subscriptionHistoryService.getUserHistory(userId, toInstant(from), toInstant(to));
+        return ResponseEntity.ok(ApiResponse.success(history));
+    }
+
+    private static Instant toInstant(OffsetDateTime value) {
+        return value != null ? value.toInstant() : null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.subscription.controller;
+
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.StatsGranularity;
+import com.subscription.dto.SubscriptionStatsDto;
+import com.subscription.service.SubscriptionStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/subscriptions/stats")
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionStatsController {
+
+    private final SubscriptionStatsService subscriptionStatsService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SubscriptionStatsDto>>> getStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") StatsGranularity granularity) {
+        log.info("Received request to get subscription stats from {} to {} by {}", from, to, granularity);
+        List<SubscriptionStatsDto> stats = subscriptionStatsService.getStats(from, to, granularity);
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Received request to rebuild subscription stats from {} to {}", from, to);
+        int rows = subscriptionStatsService.rebuild(from, to);
+        return ResponseEntity.ok(ApiResponse.success("Subscription stats rebuilt successfully", rows));
+    }
+}
@@ -0,0 +1,29 @@
+package com.subscription.controller;
+
+import com.subscription.service.SubscriptionService;
+import com.subscription.stream.SubscriptionStreamHub;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@ConditionalOnProperty(name = "subscription.stream.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionStreamController {
+
+    private final SubscriptionStreamHub subscriptionStreamHub;
+    private final SubscriptionService subscriptionService;
+
+    // Starts with a snapshot event carrying the current list, then pushes changes as they commit
+    @GetMapping(value = "/users/{userId}/subscriptions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUserSubscriptions(@PathVariable Long userId) {
+        log.info("Received request to stream subscriptions for user ID: {}", userId);
+        return subscriptionStreamHub.subscribe(userId, () -> subscriptionService.getUserSubscriptions(userId));
+    }
+}
@@ -1,16 +1,20 @@
 package com.subscription.controller;
 
 import com.subscription.dto.ApiResponse;
+import com.subscription.dto.PageDto;
 import com.subscription.dto.UserDto;
 import com.subscription.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/users")
@@ -31,7 +35,9 @@ public class UserController {
     public ResponseEntity<ApiResponse<UserDto>> getUserById(@PathVariable Long id) {
         log.info("Received request to get user with ID: {}", id);
         UserDto user = userService.getUserById(id);
-        return ResponseEntity.ok(ApiResponse.success(user));
+        return ResponseEntity.ok()
+                .headers(versionHeaders(user))
+                .body(ApiResponse.success(user));
     }
 
     @GetMapping
@@ -41,11 +47,41 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(users));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<PageDto<UserDto>>> searchUsers(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Received request to search users for: {}", query);
+        PageDto<UserDto> result = userService.searchUsers(query, page, size);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserDto>> updateUser(@PathVariable Long id, @Valid @RequestBody UserDto userDto) {
+    public ResponseEntity<ApiResponse<UserDto>> updateUser(
+            @PathVariable Long id,
+            @Valid @RequestBody UserDto userDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("Received request to update user with ID: {}", id);
-        UserDto updatedUser = userService.updateUser(id, userDto);
-        return ResponseEntity.ok(ApiResponse.success("User updated successfully", updatedUser));
+        Long expectedVersion = parseVersion(ifMatch);
+        UserDto updatedUser = expectedVersion == null
+                ? userService.updateUser(id, userDto)
+                : userService.updateUser(id, userDto, expectedVersion);
+        return ResponseEntity.ok()
+                .headers(versionHeaders(updatedUser))
+                .body(ApiResponse.success("User updated successfully", updatedUser));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ApiResponse<UserDto>> patchUser(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Received request to patch user with ID: {}", id);
+        UserDto patchedUser = userService.patchUser(id, patch, parseVersion(ifMatch));
+        return ResponseEntity.ok()
+                .headers(versionHeaders(patchedUser))
+                .body(ApiResponse.success("User updated successfully", patchedUser));
     }
 
     @DeleteMapping("/{id}")
@@ -54,4 +90,31 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.ok(ApiResponse.success("User deleted successfully", null));
     }
-} 
\ No newline at end of file
+
+    private static HttpHeaders versionHeaders(UserDto user) {
+        HttpHeaders headers = new HttpHeaders();
+        if (user.getVersion() != null) {
+            headers.setETag("\"" + user.getVersion() + "\"");
+        }
+        return headers;
+    }
+
+    // The ETag is the entity version, so If-Match accepts "3", W/"3" or * (unconditional)
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("If-Match must contain a single user version ETag");
+        }
+    }
+}
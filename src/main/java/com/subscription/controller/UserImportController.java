@@ -0,0 +1,40 @@
+package com.subscription.controller;
+
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.UserImportFormat;
+import com.subscription.dto.UserImportResultDto;
+import com.subscription.service.UserImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/users/import")
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportController {
+
+    private final UserImportService userImportService;
+
+    @PostMapping(consumes = "text/csv")
+    public ResponseEntity<ApiResponse<UserImportResultDto>> importCsv(InputStream body) {
+        log.info("Received request to import users from CSV");
+        return importUsers(body, UserImportFormat.CSV);
+    }
+
+    @PostMapping(consumes = "application/x-ndjson")
+    public ResponseEntity<ApiResponse<UserImportResultDto>> importNdjson(InputStream body) {
+        log.info("Received request to import users from NDJSON");
+        return importUsers(body, UserImportFormat.NDJSON);
+    }
+
+    private ResponseEntity<ApiResponse<UserImportResultDto>> importUsers(InputStream body, UserImportFormat format) {
+        UserImportResultDto result = userImportService.importUsers(body, format);
+        return ResponseEntity.ok(ApiResponse.success("User import completed", result));
+    }
+}
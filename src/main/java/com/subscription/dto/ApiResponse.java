@@ -5,7 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
 
 @Data
 @Builder
@@ -16,7 +16,7 @@ public class ApiResponse<T> {
     private String message;
     private T data;
     @Builder.Default
-    private ZonedDateTime timestamp = ZonedDateTime.now();
+    private Instant timestamp = Instant.now();
 
     public static <T> ApiResponse<T> success(T data) {
         return ApiResponse.<T>builder()
@@ -0,0 +1,20 @@
+package com.subscription.dto;
+
+import java.util.Locale;
+
+public enum ExportDataset {
+    USERS,
+    SUBSCRIPTIONS;
+
+    public static ExportDataset fromPath(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown export dataset: " + value);
+        }
+    }
+
+    public String fileName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package com.subscription.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportResultDto {
+    private ExportDataset dataset;
+    private long rows;
+    private long durationMs;
+    private long rowsPerSecond;
+    private List<String> files;
+}
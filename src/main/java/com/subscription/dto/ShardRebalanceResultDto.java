@@ -0,0 +1,17 @@
+package com.subscription.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardRebalanceResultDto {
+    private long scannedUsers;
+    private long movedUsers;
+    private long movedSubscriptions;
+    private long durationMs;
+}
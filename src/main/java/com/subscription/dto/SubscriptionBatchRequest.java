@@ -0,0 +1,21 @@
+package com.subscription.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionBatchRequest {
+    @NotEmpty(message = "User IDs are required")
+    @Size(max = 50000, message = "At most 50000 user IDs per request")
+    private List<@NotNull(message = "User ID must not be null") Long> userIds;
+}
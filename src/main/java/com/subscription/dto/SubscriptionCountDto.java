@@ -0,0 +1,18 @@
+package com.subscription.dto;
+
+import com.subscription.model.SubscriptionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionCountDto {
+    private long total;
+    private Map<SubscriptionStatus, Long> byStatus;
+}
@@ -7,7 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
 
 @Data
 @Builder
@@ -21,9 +21,11 @@ public class SubscriptionDto {
     
     private String subscriptionTypeName;
     
-    private ZonedDateTime startDate;
+    private Instant startDate;
     
-    private ZonedDateTime endDate;
+    private Instant endDate;
     
     private SubscriptionStatus status;
+    
+    private Boolean autoRenew;
 } 
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.subscription.dto;
+
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.SubscriptionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionHistoryDto {
+    private Long subscriptionId;
+    
+    private Long subscriptionTypeId;
+    
+    private SubscriptionEventType eventType;
+    
+    private SubscriptionStatus status;
+    
+    private Instant startDate;
+    
+    private Instant endDate;
+    
+    private Instant recordedAt;
+}
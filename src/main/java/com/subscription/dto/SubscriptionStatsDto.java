@@ -0,0 +1,24 @@
+package com.subscription.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionStatsDto {
+    private LocalDate periodStart;
+    
+    private Long subscriptionTypeId;
+    
+    private String subscriptionTypeName;
+    
+    private long created;
+    
+    private long cancelled;
+}
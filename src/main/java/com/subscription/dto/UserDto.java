@@ -31,4 +31,6 @@ public class UserDto {
     @NotBlank(message = "Last name is required")
     @Size(max = 50, message = "Last name must not exceed 50 characters")
     private String lastName;
+
+    private Long version;
 } 
\ No newline at end of file
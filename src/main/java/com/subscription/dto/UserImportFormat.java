@@ -0,0 +1,6 @@
+package com.subscription.dto;
+
+public enum UserImportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,17 @@
+package com.subscription.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRejectionDto {
+    private long line;
+    private String username;
+    private String email;
+    private String reason;
+}
@@ -0,0 +1,22 @@
+package com.subscription.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDto {
+    private long received;
+    private long imported;
+    private long rejected;
+    private long durationMs;
+    private long rowsPerSecond;
+    // Earliest rejected lines only, up to subscription.user-import.max-reported-rejections
+    private List<UserImportRejectionDto> rejections;
+}
@@ -0,0 +1,36 @@
+package com.subscription.event;
+
+import com.subscription.model.Subscription;
+import com.subscription.model.SubscriptionStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+@Builder(toBuilder = true)
+public class SubscriptionEvent {
+    SubscriptionEventType type;
+    Long subscriptionId;
+    Long userId;
+    Long subscriptionTypeId;
+    SubscriptionStatus status;
+    Instant startDate;
+    Instant endDate;
+    boolean autoRenew;
+    Instant occurredAt;
+
+    public static SubscriptionEvent of(SubscriptionEventType type, Subscription subscription, Instant occurredAt) {
+        return SubscriptionEvent.builder()
+                .type(type)
+                .subscriptionId(subscription.getId())
+                .userId(subscription.getUser().getId())
+                .subscriptionTypeId(subscription.getSubscriptionType().getId())
+                .status(subscription.getStatus())
+                .startDate(subscription.getStartDate())
+                .endDate(subscription.getEndDate())
+                .autoRenew(subscription.isAutoRenew())
+                .occurredAt(occurredAt)
+                .build();
+    }
+}
@@ -0,0 +1,8 @@
+package com.subscription.event;
+
+public enum SubscriptionEventType {
+    CREATED,
+    DELETED,
+    EXPIRED,
+    RENEWED
+}
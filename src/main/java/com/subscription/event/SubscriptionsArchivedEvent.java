@@ -0,0 +1,10 @@
+package com.subscription.event;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class SubscriptionsArchivedEvent {
+    List<Long> subscriptionIds;
+}
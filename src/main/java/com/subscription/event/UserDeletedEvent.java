@@ -0,0 +1,8 @@
+package com.subscription.event;
+
+import lombok.Value;
+
+@Value
+public class UserDeletedEvent {
+    Long userId;
+}
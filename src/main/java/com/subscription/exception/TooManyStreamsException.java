@@ -0,0 +1,8 @@
+package com.subscription.exception;
+
+public class TooManyStreamsException extends RuntimeException {
+
+    public TooManyStreamsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,81 @@
+package com.subscription.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subscription.dto.ApiResponse;
+import com.subscription.util.GradientLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final ThreadLocal<Boolean> PERMIT_HELD = new ThreadLocal<>();
+
+    private final GradientLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final RequestPriority priority;
+    private final double lowPriorityShare;
+    private final Counter highPriorityRejected;
+    private final Counter lowPriorityRejected;
+
+    public ConcurrencyLimitFilter(GradientLimiter limiter, ObjectMapper objectMapper, RequestPriority priority,
+                                  double lowPriorityShare, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.priority = priority;
+        this.lowPriorityShare = lowPriorityShare;
+        this.highPriorityRejected = Counter.builder("concurrency.rejected")
+                .tag("priority", "high").register(meterRegistry);
+        this.lowPriorityRejected = Counter.builder("concurrency.rejected")
+                .tag("priority", "low").register(meterRegistry);
+    }
+
+    static boolean permitHeld() {
+        return Boolean.TRUE.equals(PERMIT_HELD.get());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean read = READ_METHODS.contains(request.getMethod());
+        boolean lowPriority = (priority == RequestPriority.READS && !read)
+                || (priority == RequestPriority.WRITES && read);
+
+        if (!limiter.tryAcquire(lowPriority ? lowPriorityShare : 1.0)) {
+            (lowPriority ? lowPriorityRejected : highPriorityRejected).increment();
+            log.warn("Shedding {} {}: {} requests in flight, limit {}",
+                    request.getMethod(), request.getRequestURI(), limiter.getInFlight(), limiter.getLimit());
+            reject(response);
+            return;
+        }
+
+        PERMIT_HELD.set(Boolean.TRUE);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PERMIT_HELD.remove();
+            limiter.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("Service is overloaded, please retry later"));
+    }
+}
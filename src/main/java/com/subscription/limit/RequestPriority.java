@@ -0,0 +1,7 @@
+package com.subscription.limit;
+
+public enum RequestPriority {
+    READS,
+    WRITES,
+    NONE
+}
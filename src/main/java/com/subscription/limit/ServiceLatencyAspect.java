@@ -0,0 +1,39 @@
+package com.subscription.limit;
+
+import com.subscription.util.GradientLimiter;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+@Aspect
+@RequiredArgsConstructor
+public class ServiceLatencyAspect {
+
+    private final GradientLimiter limiter;
+
+    // Only calls made on a request thread that holds a permit feed the limiter, so async streaming does not skew it
+    @Around("execution(* com.subscription.service.UserService.*(..)) || " +
+            "execution(* com.subscription.service.SubscriptionService.*(..))")
+    public Object sample(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!ConcurrencyLimitFilter.permitHeld()) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return joinPoint.proceed();
+        } catch (TransientDataAccessException | DataAccessResourceFailureException | CannotCreateTransactionException ex) {
+            // Connection timeouts and similar overload symptoms shrink the limit directly. A pool timeout surfaces as
+            // CannotCreateTransactionException when a transaction opens the connection, and as
+            // CannotGetJdbcConnectionException (a DataAccessResourceFailureException) when JdbcTemplate does.
+            dropped = true;
+            throw ex;
+        } finally {
+            limiter.onSample(System.nanoTime() - start, dropped);
+        }
+    }
+}
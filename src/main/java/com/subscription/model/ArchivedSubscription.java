@@ -0,0 +1,74 @@
+package com.subscription.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+// Written only by SubscriptionArchiver, which moves rows over with plain SQL
+@Entity
+@Table(name = "subscriptions_archive")
+@Immutable
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedSubscription {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "subscription_type_id", nullable = false)
+    @ToString.Exclude
+    private SubscriptionType subscriptionType;
+
+    @Column(name = "start_date", nullable = false)
+    private Instant startDate;
+
+    @Column(name = "end_date")
+    private Instant endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SubscriptionStatus status;
+
+    @Column(name = "auto_renew", nullable = false)
+    private boolean autoRenew;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || EntityClasses.of(this) != EntityClasses.of(other)) {
+            return false;
+        }
+        return id != null && id.equals(((ArchivedSubscription) other).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return EntityClasses.of(this).hashCode();
+    }
+}
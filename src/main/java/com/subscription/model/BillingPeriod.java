@@ -0,0 +1,34 @@
+package com.subscription.model;
+
+import java.time.Instant;
+import java.time.Period;
+import java.time.ZoneOffset;
+
+public enum BillingPeriod {
+    WEEKLY(Period.ofWeeks(1)),
+    MONTHLY(Period.ofMonths(1)),
+    QUARTERLY(Period.ofMonths(3)),
+    YEARLY(Period.ofYears(1));
+
+    private final Period period;
+
+    BillingPeriod(Period period) {
+        this.period = period;
+    }
+
+    // Months and years have no fixed length, so the period is added on the UTC calendar
+    public Instant extend(Instant date) {
+        return date.atOffset(ZoneOffset.UTC).plus(period).toInstant();
+    }
+
+    // The first end of a whole period after the given instant, counted from the anchor rather than from the
+    // previous end so that month ends do not drift: Jan 31 renews to Feb 29, then Mar 31, not Mar 29
+    public Instant nextEndAfter(Instant anchor, Instant after) {
+        int periods = 1;
+        Instant end = extend(anchor);
+        while (!end.isAfter(after)) {
+            end = anchor.atOffset(ZoneOffset.UTC).plus(period.multipliedBy(++periods)).toInstant();
+        }
+        return end;
+    }
+}
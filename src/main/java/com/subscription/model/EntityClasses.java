@@ -0,0 +1,18 @@
+package com.subscription.model;
+
+import org.hibernate.proxy.HibernateProxy;
+
+// Entities compare by primary key alone, so equality never initializes a proxy and the hash code
+// (the entity class) stays stable across persist; transient instances are only equal to themselves
+final class EntityClasses {
+
+    private EntityClasses() {
+    }
+
+    // The entity class behind a lazy proxy, resolved without initializing it (unlike Hibernate.getClass)
+    static Class<?> of(Object entity) {
+        return entity instanceof HibernateProxy proxy
+                ? proxy.getHibernateLazyInitializer().getPersistentClass()
+                : entity.getClass();
+    }
+}
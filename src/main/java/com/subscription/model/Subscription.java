@@ -3,14 +3,21 @@ package com.subscription.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
 
 @Entity
 @Table(name = "subscriptions")
-@Data
+@Getter
+@Setter
+@ToString
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,38 +27,57 @@ public class Subscription {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Matches the ON DELETE CASCADE in the schema; users carry no subscription collection to cascade through
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
     private User user;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "subscription_type_id", nullable = false)
+    @ToString.Exclude
     private SubscriptionType subscriptionType;
 
     @Column(name = "start_date", nullable = false)
-    private ZonedDateTime startDate;
+    private Instant startDate;
 
     @Column(name = "end_date")
-    private ZonedDateTime endDate;
+    private Instant endDate;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private SubscriptionStatus status;
 
-    @Column(name = "created_at")
-    private ZonedDateTime createdAt;
+    @Builder.Default
+    @Column(name = "auto_renew", nullable = false)
+    private boolean autoRenew = false;
 
-    @Column(name = "updated_at")
-    private ZonedDateTime updatedAt;
+    // Audit columns are filled in by their column defaults on insert, so persisting never reads the clock
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
 
-    @PrePersist
-    protected void onCreate() {
-        createdAt = ZonedDateTime.now();
-        updatedAt = ZonedDateTime.now();
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "updated_at", nullable = false, insertable = false)
+    private Instant updatedAt;
+
+    @Version
+    private Long version;
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || EntityClasses.of(this) != EntityClasses.of(other)) {
+            return false;
+        }
+        return id != null && id.equals(((Subscription) other).getId());
     }
 
-    @PreUpdate
-    protected void onUpdate() {
-        updatedAt = ZonedDateTime.now();
+    @Override
+    public int hashCode() {
+        return EntityClasses.of(this).hashCode();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.subscription.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "subscription_daily_stats")
+@IdClass(SubscriptionDailyStatId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionDailyStat {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Id
+    @Column(name = "subscription_type_id")
+    private Long subscriptionTypeId;
+
+    @Column(name = "created_count", nullable = false)
+    private long createdCount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private long cancelledCount;
+}
@@ -0,0 +1,16 @@
+package com.subscription.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionDailyStatId implements Serializable {
+    private LocalDate statDate;
+    private Long subscriptionTypeId;
+}
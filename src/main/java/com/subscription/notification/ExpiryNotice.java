@@ -0,0 +1,16 @@
+package com.subscription.notification;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+@Builder
+public class ExpiryNotice {
+    Long subscriptionId;
+    Long userId;
+    Long subscriptionTypeId;
+    Instant startDate;
+    Instant endDate;
+}
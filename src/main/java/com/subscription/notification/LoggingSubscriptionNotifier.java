@@ -0,0 +1,20 @@
+package com.subscription.notification;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Local stand-in until a real delivery channel (email, push) is wired in
+@Slf4j
+public class LoggingSubscriptionNotifier implements SubscriptionNotifier {
+
+    @Override
+    public void expiringSoon(ExpiryNotice notice) {
+        log.info("Subscription {} of user {} expires at {}",
+                notice.getSubscriptionId(), notice.getUserId(), notice.getEndDate());
+    }
+
+    @Override
+    public void expired(ExpiryNotice notice) {
+        log.info("Subscription {} of user {} expired at {}",
+                notice.getSubscriptionId(), notice.getUserId(), notice.getEndDate());
+    }
+}
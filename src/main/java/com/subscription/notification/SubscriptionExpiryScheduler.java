@@ -0,0 +1,330 @@
+package com.subscription.notification;
+
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.shard.ShardRouter;
+import com.subscription.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Fires a reminder reminder-lead before each active subscription's end date and marks it EXPIRED at
+// the end date. Only deadlines within the next window are held in memory; the window is extended
+// every refill-interval by scanning just the newly covered range, and subscription events keep it
+// current in between. Expiry and the reminder are both claimed with a conditional update, so stale
+// timers are harmless and, with several instances, only the one whose update wins notifies.
+// Auto-renewing subscriptions are left to the renewal engine; timers created for them are no-ops.
+// With sharding the window is loaded from every shard and each timer fires on its user's shard.
+@Slf4j
+public class SubscriptionExpiryScheduler implements AutoCloseable {
+
+    private static final String EXPIRING_SQL =
+            "SELECT id, user_id, subscription_type_id, start_date, end_date FROM subscriptions " +
+            "WHERE status = 'ACTIVE' AND NOT auto_renew AND end_date > ? AND end_date <= ?";
+    private static final String EXPIRE_SQL =
+            "UPDATE subscriptions SET status = 'EXPIRED', updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND status = 'ACTIVE' AND NOT auto_renew AND end_date <= ?";
+    // A reminder for the current end date is sent no earlier than reminder-lead before it, so an older
+    // reminded_at belongs to an earlier end date
+    private static final String CLAIM_REMINDER_SQL =
+            "UPDATE subscriptions SET reminded_at = ? " +
+            "WHERE id = ? AND status = 'ACTIVE' AND NOT auto_renew AND (reminded_at IS NULL OR reminded_at < ?)";
+    private static final OffsetDateTime EARLIEST = Instant.EPOCH.atOffset(ZoneOffset.UTC);
+    // 64 slots per level, 4 levels: about 194 days of 1s ticks before timers overflow into the top level
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_LEVELS = 4;
+    private static final int SCAN_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SubscriptionNotifier notifier;
+    private final LongSupplier clock;
+    private final long windowMillis;
+    private final long reminderLeadMillis;
+    private final Duration refillInterval;
+
+    private final Object lock = new Object();
+    private final HierarchicalTimingWheel<Timer> wheel;
+    private final Map<TimerKey, HierarchicalTimingWheel.Timeout<Timer>> timers = new HashMap<>();
+    private long loadedUntil;
+    private boolean loaded;
+
+    private final Counter remindersSent;
+    private final Counter expirations;
+    private ScheduledExecutorService executor;
+
+    public SubscriptionExpiryScheduler(DataSource dataSource,
+                                       ShardRouter shardRouter,
+                                       TransactionTemplate transactionTemplate,
+                                       ApplicationEventPublisher eventPublisher,
+                                       SubscriptionNotifier notifier,
+                                       MeterRegistry meterRegistry,
+                                       LongSupplier clock,
+                                       Duration tick,
+                                       Duration window,
+                                       Duration reminderLead,
+                                       Duration refillInterval) {
+        if (refillInterval.compareTo(window) >= 0) {
+            throw new IllegalArgumentException("Refill interval must be shorter than the window");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(SCAN_FETCH_SIZE);
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.notifier = notifier;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.reminderLeadMillis = reminderLead.toMillis();
+        this.refillInterval = refillInterval;
+        this.wheel = new HierarchicalTimingWheel<>(tick.toMillis(), WHEEL_BITS, WHEEL_LEVELS, clock.getAsLong());
+
+        this.remindersSent = Counter.builder("subscription.expiry.notifications")
+                .tag("kind", "reminder").register(meterRegistry);
+        this.expirations = Counter.builder("subscription.expiry.notifications")
+                .tag("kind", "expiry").register(meterRegistry);
+        Gauge.builder("subscription.expiry.pending", this, SubscriptionExpiryScheduler::pending)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subscription-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = wheel.getTickMillis();
+        executor.scheduleWithFixedDelay(this::refill, 0, refillInterval.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubscriptionEvent(SubscriptionEvent event) {
+        switch (event.getType()) {
+            case CREATED -> {
+                if (event.getStatus() == SubscriptionStatus.ACTIVE && event.getEndDate() != null) {
+                    track(ExpiryNotice.builder()
+                            .subscriptionId(event.getSubscriptionId())
+                            .userId(event.getUserId())
+                            .subscriptionTypeId(event.getSubscriptionTypeId())
+                            .startDate(event.getStartDate())
+                            .endDate(event.getEndDate())
+                            .build());
+                }
+            }
+            case DELETED, EXPIRED -> cancel(event.getSubscriptionId());
+        }
+    }
+
+    // Extends the in-memory window to now + window, loading only deadlines it did not cover before
+    public void refill() {
+        try {
+            long now = clock.getAsLong();
+            long until = now + windowMillis;
+            long from;
+            boolean first;
+            synchronized (lock) {
+                if (loaded && until <= loadedUntil) {
+                    return;
+                }
+                first = !loaded;
+                from = first ? now : loadedUntil;
+                // Published before the scan so that subscriptions created meanwhile are tracked by the event listener
+                loadedUntil = until;
+                loaded = true;
+            }
+            // The first load also picks up subscriptions that ended while no instance was running
+            int expiries = scan(first ? EARLIEST : toTimestamp(from), toTimestamp(until),
+                    notice -> schedule(Kind.EXPIRY, notice, notice.getEndDate().toEpochMilli()));
+            int reminders = scan(toTimestamp(from + reminderLeadMillis), toTimestamp(until + reminderLeadMillis),
+                    notice -> schedule(Kind.REMINDER, notice, notice.getEndDate().toEpochMilli() - reminderLeadMillis));
+            log.debug("Loaded {} expiries and {} reminders up to {}", expiries, reminders, Instant.ofEpochMilli(until));
+        } catch (RuntimeException ex) {
+            log.error("Failed to load upcoming subscription expiries", ex);
+        }
+    }
+
+    public void advance() {
+        List<Timer> due = new ArrayList<>();
+        synchronized (lock) {
+            wheel.advanceTo(clock.getAsLong(), timer -> {
+                timers.remove(timer.key());
+                due.add(timer);
+            });
+        }
+        for (Timer timer : due) {
+            try {
+                fire(timer);
+            } catch (RuntimeException ex) {
+                log.error("Failed to process {} for subscription {}",
+                        timer.kind(), timer.notice().getSubscriptionId(), ex);
+            }
+        }
+    }
+
+    public int pending() {
+        synchronized (lock) {
+            return wheel.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void track(ExpiryNotice notice) {
+        long end = notice.getEndDate().toEpochMilli();
+        synchronized (lock) {
+            // Before the first load, or beyond the loaded window, the next refill picks the subscription up
+            if (!loaded) {
+                return;
+            }
+            if (end <= loadedUntil) {
+                schedule(Kind.EXPIRY, notice, end);
+            }
+            long remindAt = end - reminderLeadMillis;
+            if (remindAt > clock.getAsLong() && remindAt <= loadedUntil) {
+                schedule(Kind.REMINDER, notice, remindAt);
+            }
+        }
+    }
+
+    private void schedule(Kind kind, ExpiryNotice notice, long fireAt) {
+        synchronized (lock) {
+            TimerKey key = new TimerKey(notice.getSubscriptionId(), kind);
+            if (!timers.containsKey(key)) {
+                timers.put(key, wheel.schedule(new Timer(kind, notice), fireAt));
+            }
+        }
+    }
+
+    private void cancel(Long subscriptionId) {
+        synchronized (lock) {
+            for (Kind kind : Kind.values()) {
+                HierarchicalTimingWheel.Timeout<Timer> timeout = timers.remove(new TimerKey(subscriptionId, kind));
+                if (timeout != null) {
+                    wheel.cancel(timeout);
+                }
+            }
+        }
+    }
+
+    private void fire(Timer timer) {
+        ExpiryNotice notice = timer.notice();
+        if (timer.kind() == Kind.REMINDER) {
+            // Also skips subscriptions deleted since the scan; a claimed reminder is sent at most once
+            OffsetDateTime now = toTimestamp(clock.getAsLong());
+            OffsetDateTime lastPeriod = toTimestamp(notice.getEndDate().toEpochMilli() - reminderLeadMillis);
+            Integer claimed = ShardRouter.onUserDatabase(shardRouter, notice.getUserId(),
+                    () -> jdbcTemplate.update(CLAIM_REMINDER_SQL, now, notice.getSubscriptionId(), lastPeriod));
+            if (claimed != null && claimed > 0) {
+                notifier.expiringSoon(notice);
+                remindersSent.increment();
+            }
+            return;
+        }
+        Boolean expired = ShardRouter.onUserDatabase(shardRouter, notice.getUserId(), () -> expire(notice));
+        if (Boolean.TRUE.equals(expired)) {
+            notifier.expired(notice);
+            expirations.increment();
+        }
+    }
+
+    private Boolean expire(ExpiryNotice notice) {
+        return transactionTemplate.execute(status -> {
+            OffsetDateTime now = toTimestamp(clock.getAsLong());
+            if (jdbcTemplate.update(EXPIRE_SQL, now, notice.getSubscriptionId(), now) == 0) {
+                return false;
+            }
+            eventPublisher.publishEvent(SubscriptionEvent.builder()
+                    .type(SubscriptionEventType.EXPIRED)
+                    .subscriptionId(notice.getSubscriptionId())
+                    .userId(notice.getUserId())
+                    .subscriptionTypeId(notice.getSubscriptionTypeId())
+                    .status(SubscriptionStatus.EXPIRED)
+                    .startDate(notice.getStartDate())
+                    .endDate(notice.getEndDate())
+                    .occurredAt(now.toInstant())
+                    .build());
+            return true;
+        });
+    }
+
+    private int scan(OffsetDateTime from, OffsetDateTime to, Consumer<ExpiryNotice> consumer) {
+        int total = 0;
+        for (int count : ShardRouter.onEachDatabase(shardRouter, () -> scanDatabase(from, to, consumer))) {
+            total += count;
+        }
+        return total;
+    }
+
+    private int scanDatabase(OffsetDateTime from, OffsetDateTime to, Consumer<ExpiryNotice> consumer) {
+        int[] count = {0};
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(EXPIRING_SQL, rs -> {
+            consumer.accept(mapNotice(rs));
+            count[0]++;
+        }, from, to));
+        return count[0];
+    }
+
+    private static ExpiryNotice mapNotice(ResultSet rs) throws SQLException {
+        OffsetDateTime startDate = rs.getObject(4, OffsetDateTime.class);
+        return ExpiryNotice.builder()
+                .subscriptionId(rs.getLong(1))
+                .userId(rs.getLong(2))
+                .subscriptionTypeId(rs.getLong(3))
+                .startDate(startDate != null ? startDate.toInstant() : null)
+                .endDate(rs.getObject(5, OffsetDateTime.class).toInstant())
+                .build();
+    }
+
+    private static OffsetDateTime toTimestamp(long millis) {
+        return Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC);
+    }
+
+    private enum Kind {
+        REMINDER,
+        EXPIRY
+    }
+
+    private record TimerKey(Long subscriptionId, Kind kind) {
+    }
+
+    private record Timer(Kind kind, ExpiryNotice notice) {
+        TimerKey key() {
+            return new TimerKey(notice.getSubscriptionId(), kind);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.subscription.notification;
+
+// Delivery channel for expiry notifications. Callbacks run on the expiry scheduler thread, so
+// implementations that talk to remote systems should hand off to their own executor.
+public interface SubscriptionNotifier {
+
+    void expiringSoon(ExpiryNotice notice);
+
+    // Called once the subscription has been marked EXPIRED
+    void expired(ExpiryNotice notice);
+}
@@ -0,0 +1,380 @@
+package com.subscription.readmodel;
+
+import com.subscription.dto.SubscriptionCountDto;
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.event.SubscriptionsArchivedEvent;
+import com.subscription.event.UserDeletedEvent;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.service.SubscriptionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Serves user subscription lists and the top subscription types from an in-memory read model, and
+// passes everything else to the database-backed service. The model is loaded from a snapshot file
+// when one exists, or built from the tables otherwise, and is kept current by subscription events.
+// Changes made by other instances are not seen until the periodic check against the database notices
+// the drift and rebuilds the model. Until the model is ready, and for users it does not know or holds
+// no subscriptions for, reads go to the database.
+@Slf4j
+public class ReadModelSubscriptionService implements SubscriptionService, AutoCloseable {
+
+    private static final String USERS_SQL = "SELECT id FROM users";
+    private static final String TYPES_SQL = "SELECT id, name FROM subscription_types";
+    private static final String SUBSCRIPTIONS_SQL =
+            "SELECT id, user_id, subscription_type_id, start_date, end_date, status, auto_renew FROM subscriptions";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM subscriptions";
+    // Same steps as SubscriptionReadModel.rowChecksum; MOD truncates like Java's % for these non-negative
+    // terms, and a BIGINT modulus keeps H2 from typing the intermediate results as INTEGER
+    private static final String ROW_CHECKSUM_SQL =
+            "MOD(MOD(MOD(MOD(id * 1000003 + subscription_type_id, CAST(2147483647 AS BIGINT)) * 131 " +
+            "+ CASE WHEN auto_renew THEN 1 ELSE 0 END, CAST(2147483647 AS BIGINT)) * 8191 " +
+            "+ COALESCE(CAST(FLOOR(EXTRACT(EPOCH FROM start_date)) AS BIGINT), 0), CAST(2147483647 AS BIGINT)) * 8191 " +
+            "+ COALESCE(CAST(FLOOR(EXTRACT(EPOCH FROM end_date)) AS BIGINT), 0), CAST(2147483647 AS BIGINT))";
+    private static final String STATUS_TOTALS_SQL =
+            "SELECT status, COUNT(*), COALESCE(SUM(id), 0), COALESCE(SUM(" + ROW_CHECKSUM_SQL + "), 0) " +
+            "FROM subscriptions GROUP BY status";
+    private static final int TOP_LIMIT = 3;
+    private static final int SCAN_FETCH_SIZE = 10_000;
+
+    private final SubscriptionService delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path snapshotPath;
+    private final Duration snapshotInterval;
+    private final Duration verifyInterval;
+
+    private final Object lock = new Object();
+    private volatile SubscriptionReadModel model;
+    // Events that arrive while a rebuild is scanning the tables, replayed onto the new model before the swap
+    private List<Object> replay;
+
+    private final Counter memoryReads;
+    private final Counter databaseReads;
+    private final MeterRegistry meterRegistry;
+    private ScheduledExecutorService executor;
+
+    public ReadModelSubscriptionService(SubscriptionService delegate,
+                                        DataSource dataSource,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        Path snapshotPath,
+                                        Duration snapshotInterval,
+                                        Duration verifyInterval) {
+        this.delegate = delegate;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(SCAN_FETCH_SIZE);
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotPath = snapshotPath;
+        this.snapshotInterval = snapshotInterval;
+        this.verifyInterval = verifyInterval;
+        this.meterRegistry = meterRegistry;
+
+        this.memoryReads = Counter.builder("subscription.read-model.reads")
+                .tag("source", "memory").register(meterRegistry);
+        this.databaseReads = Counter.builder("subscription.read-model.reads")
+                .tag("source", "database").register(meterRegistry);
+        Gauge.builder("subscription.read-model.subscriptions", this,
+                        service -> service.model != null ? service.model.size() : 0)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subscription-read-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::initialize);
+        executor.scheduleWithFixedDelay(this::snapshot, snapshotInterval.toMillis(), snapshotInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::verify, verifyInterval.toMillis(), verifyInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Loads the snapshot if there is one and it still matches the database, and rebuilds otherwise
+    public void initialize() {
+        synchronized (lock) {
+            replay = new ArrayList<>();
+        }
+        if (Files.exists(snapshotPath)) {
+            long started = System.nanoTime();
+            try {
+                SubscriptionReadModel loaded = SubscriptionReadModel.readSnapshot(snapshotPath);
+                if (matchesDatabase(loaded)) {
+                    swap(loaded);
+                    log.info("Loaded read model of {} subscriptions from {} in {} ms", loaded.size(), snapshotPath,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                    return;
+                }
+                log.info("Read model snapshot {} is out of date, rebuilding", snapshotPath);
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Failed to load read model snapshot {}, rebuilding", snapshotPath, ex);
+            }
+        }
+        rebuild("startup");
+    }
+
+    public void rebuild(String reason) {
+        long started = System.nanoTime();
+        synchronized (lock) {
+            if (replay == null) {
+                replay = new ArrayList<>();
+            }
+        }
+        try {
+            SubscriptionReadModel rebuilt = load();
+            swap(rebuilt);
+            meterRegistry.counter("subscription.read-model.rebuilds", "reason", reason).increment();
+            log.info("Rebuilt read model of {} subscriptions in {} ms ({})", rebuilt.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), reason);
+        } catch (RuntimeException ex) {
+            synchronized (lock) {
+                replay = null;
+            }
+            log.error("Failed to rebuild the read model", ex);
+        }
+    }
+
+    public void snapshot() {
+        SubscriptionReadModel current = model;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.writeSnapshot(snapshotPath);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Failed to write read model snapshot {}", snapshotPath, ex);
+        }
+    }
+
+    // A mismatch can be a write that committed between the two reads, so it is confirmed once before rebuilding
+    public boolean verify() {
+        SubscriptionReadModel current = model;
+        if (current == null) {
+            return false;
+        }
+        try {
+            if (matchesDatabase(current) || matchesDatabase(current)) {
+                return true;
+            }
+            log.warn("Read model differs from the database, rebuilding");
+            rebuild("drift");
+        } catch (RuntimeException ex) {
+            log.error("Failed to verify the read model", ex);
+        }
+        return false;
+    }
+
+    public boolean isReady() {
+        return model != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubscriptionEvent(SubscriptionEvent event) {
+        apply(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserDeleted(UserDeletedEvent event) {
+        apply(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubscriptionsArchived(SubscriptionsArchivedEvent event) {
+        apply(event);
+    }
+
+    @Override
+    public SubscriptionDto addSubscription(Long userId, SubscriptionDto subscriptionDto) {
+        return delegate.addSubscription(userId, subscriptionDto);
+    }
+
+    @Override
+    public List<SubscriptionDto> getUserSubscriptions(Long userId) {
+        return getUserSubscriptions(userId, null);
+    }
+
+    @Override
+    public List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses) {
+        SubscriptionReadModel current = model;
+        List<SubscriptionDto> subscriptions = current != null ? current.findByUser(userId, statuses) : null;
+        // Deleting a user who has no subscriptions leaves the drift check's totals unchanged, so an empty
+        // list is confirmed by the database, which answers 404 for a user deleted through another instance
+        if (subscriptions == null || subscriptions.isEmpty()) {
+            databaseReads.increment();
+            return delegate.getUserSubscriptions(userId, statuses);
+        }
+        memoryReads.increment();
+        return subscriptions;
+    }
+
+    // Archived rows are never held in memory
+    @Override
+    public List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses, boolean includeArchived) {
+        if (includeArchived) {
+            databaseReads.increment();
+            return delegate.getUserSubscriptions(userId, statuses, true);
+        }
+        return getUserSubscriptions(userId, statuses);
+    }
+
+    @Override
+    public SubscriptionCountDto countUserSubscriptions(Long userId) {
+        return delegate.countUserSubscriptions(userId);
+    }
+
+    @Override
+    public void streamSubscriptionsByUsers(List<Long> userIds, Consumer<Map<Long, List<SubscriptionDto>>> chunkConsumer) {
+        delegate.streamSubscriptionsByUsers(userIds, chunkConsumer);
+    }
+
+    @Override
+    public void deleteSubscription(Long userId, Long subscriptionId) {
+        delegate.deleteSubscription(userId, subscriptionId);
+    }
+
+    @Override
+    public List<SubscriptionTypeDto> getTopSubscriptions() {
+        SubscriptionReadModel current = model;
+        if (current == null) {
+            databaseReads.increment();
+            return delegate.getTopSubscriptions();
+        }
+        memoryReads.increment();
+        return current.top(TOP_LIMIT);
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        // A final snapshot lets the next start skip the table scan
+        snapshot();
+    }
+
+    private void apply(Object event) {
+        SubscriptionReadModel current;
+        synchronized (lock) {
+            if (replay != null) {
+                replay.add(event);
+            }
+            current = model;
+        }
+        if (current != null) {
+            applyTo(current, event);
+        }
+    }
+
+    private void swap(SubscriptionReadModel next) {
+        synchronized (lock) {
+            if (replay != null) {
+                replay.forEach(event -> applyTo(next, event));
+                replay = null;
+            }
+            model = next;
+        }
+    }
+
+    // Every change is an upsert or a removal by id, so replaying an event the scan already saw is harmless
+    private void applyTo(SubscriptionReadModel target, Object event) {
+        if (event instanceof UserDeletedEvent userDeleted) {
+            target.removeUser(userDeleted.getUserId());
+            return;
+        }
+        if (event instanceof SubscriptionsArchivedEvent archived) {
+            archived.getSubscriptionIds().forEach(target::remove);
+            return;
+        }
+        SubscriptionEvent subscriptionEvent = (SubscriptionEvent) event;
+        if (subscriptionEvent.getType() == SubscriptionEventType.DELETED) {
+            target.remove(subscriptionEvent.getSubscriptionId());
+            return;
+        }
+        if (!target.hasTypeName(subscriptionEvent.getSubscriptionTypeId())) {
+            loadTypeNames(target);
+        }
+        target.upsert(subscriptionEvent.getSubscriptionId(),
+                subscriptionEvent.getUserId(),
+                subscriptionEvent.getSubscriptionTypeId(),
+                toEpochSecond(subscriptionEvent.getStartDate()),
+                toEpochSecond(subscriptionEvent.getEndDate()),
+                subscriptionEvent.getStatus(),
+                subscriptionEvent.isAutoRenew());
+    }
+
+    private SubscriptionReadModel load() {
+        return transactionTemplate.execute(status -> {
+            Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+            SubscriptionReadModel loaded = new SubscriptionReadModel((int) Math.min(Integer.MAX_VALUE - 8,
+                    count != null ? count + count / 8 : 0));
+            loadTypeNames(loaded);
+            jdbcTemplate.query(USERS_SQL, rs -> {
+                loaded.putUser(rs.getLong(1));
+            });
+            jdbcTemplate.query(SUBSCRIPTIONS_SQL, rs -> {
+                loaded.upsert(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        toEpochSecond(rs.getObject(4, OffsetDateTime.class)),
+                        toEpochSecond(rs.getObject(5, OffsetDateTime.class)),
+                        SubscriptionStatus.valueOf(rs.getString(6)),
+                        rs.getBoolean(7));
+            });
+            return loaded;
+        });
+    }
+
+    private void loadTypeNames(SubscriptionReadModel target) {
+        jdbcTemplate.query(TYPES_SQL, rs -> {
+            target.putTypeName(rs.getLong(1), rs.getString(2));
+        });
+    }
+
+    private boolean matchesDatabase(SubscriptionReadModel candidate) {
+        Map<SubscriptionStatus, SubscriptionReadModel.StatusTotals> expected = new EnumMap<>(SubscriptionStatus.class);
+        for (SubscriptionStatus status : SubscriptionStatus.values()) {
+            expected.put(status, new SubscriptionReadModel.StatusTotals(0, 0, 0));
+        }
+        jdbcTemplate.query(STATUS_TOTALS_SQL, rs -> {
+            expected.put(SubscriptionStatus.valueOf(rs.getString(1)),
+                    new SubscriptionReadModel.StatusTotals(rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+        });
+        return expected.equals(candidate.statusTotals());
+    }
+
+    private static long toEpochSecond(Instant value) {
+        return value != null ? value.getEpochSecond() : SubscriptionReadModel.NO_DATE;
+    }
+
+    private static long toEpochSecond(OffsetDateTime value) {
+        return value != null ? value.toEpochSecond() : SubscriptionReadModel.NO_DATE;
+    }
+}
@@ -0,0 +1,443 @@
+package com.subscription.readmodel;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Column-oriented copy of the subscriptions table. Each subscription occupies one slot across a set of
+// primitive arrays (dates as epoch seconds, status as its ordinal), subscriptions of the same user are
+// chained through nextInUser, and ids map to slots through primitive hash maps, so a million
+// subscriptions cost tens of megabytes and no per-row objects. DTOs are only built for the rows a read returns.
+public class SubscriptionReadModel {
+
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final int NO_SLOT = -1;
+    private static final SubscriptionStatus[] STATUSES = SubscriptionStatus.values();
+    private static final int SNAPSHOT_MAGIC = 0x53524D31;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SUBSCRIPTION_RECORD_BYTES = 5 * Long.BYTES + 2;
+    // Snapshots are mapped in windows so that files over 2 GB need no single huge mapping
+    private static final long MAPPING_WINDOW = 64L << 20;
+    private static final long CHECKSUM_MODULUS = 2_147_483_647L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids;
+    private long[] userIds;
+    private long[] typeIds;
+    private long[] startDates;
+    private long[] endDates;
+    private byte[] statuses;
+    private boolean[] autoRenew;
+    private int[] nextInUser;
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final LongIntHashMap slotsById;
+    private final LongIntHashMap userHeads;
+    private final LongIntHashMap typeCounts = new LongIntHashMap(16, 0);
+    private final Map<Long, String> typeNames = new HashMap<>();
+    private final long[] statusCounts = new long[STATUSES.length];
+    private final long[] statusIdSums = new long[STATUSES.length];
+    private final long[] statusChecksums = new long[STATUSES.length];
+
+    public SubscriptionReadModel(int expectedSubscriptions) {
+        int capacity = Math.max(16, expectedSubscriptions);
+        ids = new long[capacity];
+        userIds = new long[capacity];
+        typeIds = new long[capacity];
+        startDates = new long[capacity];
+        endDates = new long[capacity];
+        statuses = new byte[capacity];
+        autoRenew = new boolean[capacity];
+        nextInUser = new int[capacity];
+        slotsById = new LongIntHashMap(capacity, NO_SLOT);
+        userHeads = new LongIntHashMap(capacity / 2, NO_SLOT);
+    }
+
+    public void putUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            if (!userHeads.containsKey(userId)) {
+                userHeads.put(userId, NO_SLOT);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            for (int slot = userHeads.remove(userId); slot != NO_SLOT; ) {
+                int next = nextInUser[slot];
+                slotsById.remove(ids[slot]);
+                release(slot);
+                slot = next;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putTypeName(long typeId, String name) {
+        lock.writeLock().lock();
+        try {
+            typeNames.put(typeId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean hasTypeName(long typeId) {
+        lock.readLock().lock();
+        try {
+            return typeNames.containsKey(typeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Inserts or replaces a subscription; dates are epoch seconds or NO_DATE
+    public void upsert(long id, long userId, long typeId, long startDate, long endDate,
+                       SubscriptionStatus status, boolean renews) {
+        lock.writeLock().lock();
+        try {
+            int existing = slotsById.get(id);
+            if (existing != NO_SLOT) {
+                unlink(existing);
+                release(existing);
+            }
+            int slot = allocate();
+            ids[slot] = id;
+            userIds[slot] = userId;
+            typeIds[slot] = typeId;
+            startDates[slot] = startDate;
+            endDates[slot] = endDate;
+            statuses[slot] = (byte) status.ordinal();
+            autoRenew[slot] = renews;
+            nextInUser[slot] = userHeads.put(userId, slot);
+            slotsById.put(id, slot);
+            typeCounts.addTo(typeId, 1);
+            statusCounts[status.ordinal()]++;
+            statusIdSums[status.ordinal()] += id;
+            statusChecksums[status.ordinal()] += rowChecksum(id, typeId, startDate, endDate, renews);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.remove(id);
+            if (slot != NO_SLOT) {
+                unlink(slot);
+                release(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Null when the user is not known to the model, so that the caller can fall back to the database
+    public List<SubscriptionDto> findByUser(long userId, Set<SubscriptionStatus> statusFilter) {
+        lock.readLock().lock();
+        try {
+            if (!userHeads.containsKey(userId)) {
+                return null;
+            }
+            List<SubscriptionDto> result = new ArrayList<>();
+            for (int slot = userHeads.get(userId); slot != NO_SLOT; slot = nextInUser[slot]) {
+                SubscriptionStatus status = STATUSES[statuses[slot]];
+                if (statusFilter == null || statusFilter.isEmpty() || statusFilter.contains(status)) {
+                    result.add(SubscriptionDto.builder()
+                            .id(ids[slot])
+                            .subscriptionTypeId(typeIds[slot])
+                            .subscriptionTypeName(typeNames.get(typeIds[slot]))
+                            .startDate(toDate(startDates[slot]))
+                            .endDate(toDate(endDates[slot]))
+                            .status(status)
+                            .autoRenew(autoRenew[slot])
+                            .build());
+                }
+            }
+            result.sort(Comparator.comparing(SubscriptionDto::getId));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<SubscriptionTypeDto> top(int limit) {
+        lock.readLock().lock();
+        try {
+            List<long[]> counts = new ArrayList<>(typeCounts.size());
+            typeCounts.forEach((typeId, count) -> counts.add(new long[]{typeId, count}));
+            counts.sort(Comparator.<long[]>comparingLong(entry -> -entry[1]).thenComparingLong(entry -> entry[0]));
+            List<SubscriptionTypeDto> result = new ArrayList<>(limit);
+            for (long[] entry : counts.subList(0, Math.min(limit, counts.size()))) {
+                result.add(SubscriptionTypeDto.builder()
+                        .id(entry[0])
+                        .name(typeNames.get(entry[0]))
+                        .count(entry[1])
+                        .build());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Row count, id sum and row checksum sum per status, cheap to compare against the same aggregates in the
+    // database. The checksum covers the columns that change in place: type, dates and auto-renew.
+    public Map<SubscriptionStatus, StatusTotals> statusTotals() {
+        lock.readLock().lock();
+        try {
+            Map<SubscriptionStatus, StatusTotals> totals = new EnumMap<>(SubscriptionStatus.class);
+            for (SubscriptionStatus status : STATUSES) {
+                totals.put(status, new StatusTotals(statusCounts[status.ordinal()], statusIdSums[status.ordinal()],
+                        statusChecksums[status.ordinal()]));
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a crash never leaves a torn snapshot
+    public void writeSnapshot(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedOutput out = new MappedOutput(channel);
+            out.reserve(2 * Integer.BYTES).putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION);
+
+            out.reserve(Integer.BYTES).putInt(typeNames.size());
+            for (Map.Entry<Long, String> type : typeNames.entrySet()) {
+                byte[] name = type.getValue().getBytes(StandardCharsets.UTF_8);
+                out.reserve(Long.BYTES + Integer.BYTES + name.length)
+                        .putLong(type.getKey()).putInt(name.length).put(name);
+            }
+
+            long[] users = new long[userHeads.size()];
+            int[] userCount = {0};
+            userHeads.forEach((userId, head) -> users[userCount[0]++] = userId);
+            out.reserve(Integer.BYTES).putInt(users.length);
+            for (long userId : users) {
+                out.reserve(Long.BYTES).putLong(userId);
+            }
+
+            out.reserve(Integer.BYTES).putInt(slotsById.size());
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] == 0 || slotsById.get(ids[slot]) != slot) {
+                    continue;
+                }
+                out.reserve(SUBSCRIPTION_RECORD_BYTES)
+                        .putLong(ids[slot])
+                        .putLong(userIds[slot])
+                        .putLong(typeIds[slot])
+                        .putLong(startDates[slot])
+                        .putLong(endDates[slot])
+                        .put(statuses[slot])
+                        .put((byte) (autoRenew[slot] ? 1 : 0));
+            }
+            out.finish();
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static SubscriptionReadModel readSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel);
+            ByteBuffer header = in.require(2 * Integer.BYTES);
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a read model snapshot: " + path);
+            }
+
+            int typeCount = in.require(Integer.BYTES).getInt();
+            Map<Long, String> names = new HashMap<>();
+            for (int i = 0; i < typeCount; i++) {
+                ByteBuffer buffer = in.require(Long.BYTES + Integer.BYTES);
+                long typeId = buffer.getLong();
+                byte[] name = new byte[buffer.getInt()];
+                in.require(name.length).get(name);
+                names.put(typeId, new String(name, StandardCharsets.UTF_8));
+            }
+
+            int userCount = in.require(Integer.BYTES).getInt();
+            long[] users = new long[userCount];
+            for (int i = 0; i < userCount; i++) {
+                users[i] = in.require(Long.BYTES).getLong();
+            }
+
+            int subscriptionCount = in.require(Integer.BYTES).getInt();
+            SubscriptionReadModel model = new SubscriptionReadModel(subscriptionCount);
+            model.typeNames.putAll(names);
+            for (long userId : users) {
+                model.putUser(userId);
+            }
+            for (int i = 0; i < subscriptionCount; i++) {
+                ByteBuffer record = in.require(SUBSCRIPTION_RECORD_BYTES);
+                model.upsert(record.getLong(), record.getLong(), record.getLong(), record.getLong(), record.getLong(),
+                        STATUSES[record.get()], record.get() != 0);
+            }
+            return model;
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            typeIds = Arrays.copyOf(typeIds, capacity);
+            startDates = Arrays.copyOf(startDates, capacity);
+            endDates = Arrays.copyOf(endDates, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            autoRenew = Arrays.copyOf(autoRenew, capacity);
+            nextInUser = Arrays.copyOf(nextInUser, capacity);
+        }
+        return slotCount++;
+    }
+
+    // Drops the slot from its user's chain; the user itself stays known
+    private void unlink(int slot) {
+        long userId = userIds[slot];
+        int head = userHeads.get(userId);
+        if (head == slot) {
+            userHeads.put(userId, nextInUser[slot]);
+            return;
+        }
+        for (int previous = head; previous != NO_SLOT; previous = nextInUser[previous]) {
+            if (nextInUser[previous] == slot) {
+                nextInUser[previous] = nextInUser[slot];
+                return;
+            }
+        }
+    }
+
+    private void release(int slot) {
+        long typeId = typeIds[slot];
+        if (typeCounts.addTo(typeId, -1) <= 0) {
+            typeCounts.remove(typeId);
+        }
+        statusCounts[statuses[slot]]--;
+        statusIdSums[statuses[slot]] -= ids[slot];
+        statusChecksums[statuses[slot]] -= rowChecksum(ids[slot], typeId, startDates[slot], endDates[slot], autoRenew[slot]);
+        ids[slot] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length << 1);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    // Polynomial hash reduced after every step, so that sums over millions of rows stay within a long.
+    // ReadModelSubscriptionService computes the same value in SQL; the two must be changed together.
+    public static long rowChecksum(long id, long typeId, long startDate, long endDate, boolean renews) {
+        long hash = (id * 1_000_003 + typeId) % CHECKSUM_MODULUS;
+        hash = (hash * 131 + (renews ? 1 : 0)) % CHECKSUM_MODULUS;
+        hash = (hash * 8_191 + (startDate == NO_DATE ? 0 : startDate)) % CHECKSUM_MODULUS;
+        return (hash * 8_191 + (endDate == NO_DATE ? 0 : endDate)) % CHECKSUM_MODULUS;
+    }
+
+    private static Instant toDate(long epochSecond) {
+        return epochSecond == NO_DATE ? null : Instant.ofEpochSecond(epochSecond);
+    }
+
+    public record StatusTotals(long count, long idSum, long checksum) {
+    }
+
+    private static final class MappedOutput {
+        private final FileChannel channel;
+        private long base;
+        private MappedByteBuffer buffer;
+
+        MappedOutput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, MAPPING_WINDOW);
+        }
+
+        ByteBuffer reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                base += buffer.position();
+                buffer.force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, base, MAPPING_WINDOW);
+            }
+            return buffer;
+        }
+
+        // The last window extends the file past the data; cut it back to what was written
+        void finish() throws IOException {
+            buffer.force();
+            channel.truncate(base + buffer.position());
+            channel.force(true);
+        }
+    }
+
+    private static final class MappedInput {
+        private final FileChannel channel;
+        private final long size;
+        private long base;
+        private MappedByteBuffer buffer;
+
+        MappedInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(MAPPING_WINDOW, size));
+        }
+
+        ByteBuffer require(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                base += buffer.position();
+                if (base + bytes > size) {
+                    throw new IOException("Read model snapshot is truncated");
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(MAPPING_WINDOW, size - base));
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.subscription.renewal;
+
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.BillingPeriod;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Renews auto-renewing subscriptions once their end date has passed. Each batch claims the oldest due
+// rows with FOR UPDATE SKIP LOCKED, so worker threads and other instances never pick the same rows
+// and never wait on each other. Subscriptions of a type with a billing period get the first end date
+// after now that is a whole number of periods from their start date; the rest are marked EXPIRED. With sharding
+// every drain works through each shard's queue in parallel.
+@Slf4j
+public class SubscriptionRenewalEngine implements AutoCloseable {
+
+    private static final String CLAIM_SQL =
+            "SELECT id, user_id, subscription_type_id, start_date, end_date FROM subscriptions " +
+            "WHERE status = 'ACTIVE' AND auto_renew AND end_date <= ? " +
+            "ORDER BY end_date LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String BILLING_PERIODS_SQL =
+            "SELECT id, billing_period FROM subscription_types WHERE billing_period IS NOT NULL";
+    private static final String RENEW_SQL =
+            "UPDATE subscriptions SET end_date = ?, updated_at = ?, version = version + 1 WHERE id = ?";
+    private static final String EXPIRE_SQL =
+            "UPDATE subscriptions SET status = 'EXPIRED', updated_at = ?, version = version + 1 WHERE id = ?";
+    private static final String BACKLOG_SQL =
+            "SELECT COUNT(*) FROM subscriptions WHERE status = 'ACTIVE' AND auto_renew AND end_date <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LongSupplier clock;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration backlogInterval;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter renewed;
+    private final Counter expired;
+    private ScheduledExecutorService executor;
+
+    public SubscriptionRenewalEngine(DataSource dataSource,
+                                     ShardRouter shardRouter,
+                                     TransactionTemplate transactionTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     MeterRegistry meterRegistry,
+                                     LongSupplier clock,
+                                     int workers,
+                                     int batchSize,
+                                     Duration pollInterval,
+                                     Duration backlogInterval) {
+        if (workers < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Workers and batch size must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.backlogInterval = backlogInterval;
+
+        this.renewed = Counter.builder("subscription.renewals")
+                .tag("outcome", "renewed").register(meterRegistry);
+        this.expired = Counter.builder("subscription.renewals")
+                .tag("outcome", "expired").register(meterRegistry);
+        Gauge.builder("subscription.renewal.backlog", backlog, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(workers + 1, runnable -> {
+            Thread thread = new Thread(runnable, "subscription-renewal-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long pollMillis = pollInterval.toMillis();
+        // Staggered so that the workers do not all hit an empty queue at the same moment
+        for (int i = 0; i < workers; i++) {
+            executor.scheduleWithFixedDelay(this::drain, pollMillis * i / workers, pollMillis, TimeUnit.MILLISECONDS);
+        }
+        executor.scheduleWithFixedDelay(this::refreshBacklog, 0, backlogInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public int drain() {
+        long started = System.nanoTime();
+        int total = 0;
+        try {
+            for (int processed : ShardRouter.onEachDatabase(shardRouter, this::drainDatabase)) {
+                total += processed;
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to renew due subscriptions", ex);
+        }
+        if (total > 0) {
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Processed {} due subscriptions in {} ms ({} per second)",
+                    total, elapsedMillis, total * 1000L / elapsedMillis);
+        }
+        return total;
+    }
+
+    // Processes batches until a short one shows the due queue is empty
+    private int drainDatabase() {
+        int total = 0;
+        int processed;
+        do {
+            processed = processBatch();
+            total += processed;
+        } while (processed == batchSize && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    // Claims, renews or expires and releases one batch in a single transaction; returns the rows claimed
+    public int processBatch() {
+        Outcome outcome = transactionTemplate.execute(status -> {
+            OffsetDateTime now = toTimestamp(clock.getAsLong());
+            List<Due> due = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Due(
+                    rs.getLong(1),
+                    rs.getLong(2),
+                    rs.getLong(3),
+                    rs.getObject(4, OffsetDateTime.class),
+                    rs.getObject(5, OffsetDateTime.class)), now, batchSize);
+            if (due.isEmpty()) {
+                return new Outcome(0, 0);
+            }
+            Map<Long, BillingPeriod> billingPeriods = loadBillingPeriods();
+            List<Object[]> renewals = new ArrayList<>();
+            List<Object[]> expirations = new ArrayList<>();
+            for (Due subscription : due) {
+                BillingPeriod billingPeriod = billingPeriods.get(subscription.subscriptionTypeId());
+                Instant endDate = subscription.endDate().toInstant();
+                SubscriptionEventType type;
+                SubscriptionStatus newStatus;
+                if (billingPeriod != null) {
+                    // Catches up on every period missed while no instance was running
+                    Instant anchor = subscription.startDate() != null ? subscription.startDate().toInstant() : endDate;
+                    endDate = billingPeriod.nextEndAfter(anchor, now.toInstant());
+                    renewals.add(new Object[]{endDate.atOffset(ZoneOffset.UTC), now, subscription.id()});
+                    type = SubscriptionEventType.RENEWED;
+                    newStatus = SubscriptionStatus.ACTIVE;
+                } else {
+                    expirations.add(new Object[]{now, subscription.id()});
+                    type = SubscriptionEventType.EXPIRED;
+                    newStatus = SubscriptionStatus.EXPIRED;
+                }
+                eventPublisher.publishEvent(SubscriptionEvent.builder()
+                        .type(type)
+                        .subscriptionId(subscription.id())
+                        .userId(subscription.userId())
+                        .subscriptionTypeId(subscription.subscriptionTypeId())
+                        .status(newStatus)
+                        .startDate(subscription.startDate() != null ? subscription.startDate().toInstant() : null)
+                        .endDate(endDate)
+                        .autoRenew(true)
+                        .occurredAt(now.toInstant())
+                        .build());
+            }
+            if (!renewals.isEmpty()) {
+                jdbcTemplate.batchUpdate(RENEW_SQL, renewals);
+            }
+            if (!expirations.isEmpty()) {
+                jdbcTemplate.batchUpdate(EXPIRE_SQL, expirations);
+            }
+            return new Outcome(renewals.size(), expirations.size());
+        });
+        if (outcome == null) {
+            return 0;
+        }
+        renewed.increment(outcome.renewed());
+        expired.increment(outcome.expired());
+        return outcome.renewed() + outcome.expired();
+    }
+
+    public long refreshBacklog() {
+        try {
+            OffsetDateTime now = toTimestamp(clock.getAsLong());
+            long count = 0;
+            for (Long shardCount : ShardRouter.onEachDatabase(shardRouter,
+                    () -> jdbcTemplate.queryForObject(BACKLOG_SQL, Long.class, now))) {
+                count += shardCount != null ? shardCount : 0;
+            }
+            backlog.set(count);
+        } catch (RuntimeException ex) {
+            log.error("Failed to count due subscription renewals", ex);
+        }
+        return backlog.get();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Long, BillingPeriod> loadBillingPeriods() {
+        Map<Long, BillingPeriod> billingPeriods = new HashMap<>();
+        jdbcTemplate.query(BILLING_PERIODS_SQL, rs -> {
+            billingPeriods.put(rs.getLong(1), BillingPeriod.valueOf(rs.getString(2)));
+        });
+        return billingPeriods;
+    }
+
+    private static OffsetDateTime toTimestamp(long millis) {
+        return Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC);
+    }
+
+    private record Due(long id, long userId, long subscriptionTypeId, OffsetDateTime startDate, OffsetDateTime endDate) {
+    }
+
+    private record Outcome(int renewed, int expired) {
+    }
+}
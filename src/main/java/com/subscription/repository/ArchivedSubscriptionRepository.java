@@ -0,0 +1,19 @@
+package com.subscription.repository;
+
+import com.subscription.model.ArchivedSubscription;
+import com.subscription.model.SubscriptionStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedSubscriptionRepository extends JpaRepository<ArchivedSubscription, Long> {
+    @EntityGraph(attributePaths = "subscriptionType")
+    List<ArchivedSubscription> findByUserIdOrderById(Long userId);
+
+    @EntityGraph(attributePaths = "subscriptionType")
+    List<ArchivedSubscription> findByUserIdAndStatusInOrderById(Long userId, Collection<SubscriptionStatus> statuses);
+}
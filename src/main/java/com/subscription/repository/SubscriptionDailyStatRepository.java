@@ -0,0 +1,14 @@
+package com.subscription.repository;
+
+import com.subscription.model.SubscriptionDailyStat;
+import com.subscription.model.SubscriptionDailyStatId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SubscriptionDailyStatRepository extends JpaRepository<SubscriptionDailyStat, SubscriptionDailyStatId> {
+    List<SubscriptionDailyStat> findByStatDateBetweenOrderByStatDateAscSubscriptionTypeIdAsc(LocalDate from, LocalDate to);
+}
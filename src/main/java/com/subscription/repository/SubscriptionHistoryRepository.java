@@ -0,0 +1,21 @@
+package com.subscription.repository;
+
+import com.subscription.model.SubscriptionHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SubscriptionHistoryRepository extends JpaRepository<SubscriptionHistory, Long> {
+
+    @Query("SELECT h FROM SubscriptionHistory h " +
+           "WHERE h.userId = :userId AND h.recordedAt >= :from AND h.recordedAt <= :to " +
+           "ORDER BY h.recordedAt, h.id")
+    List<SubscriptionHistory> findUserHistory(@Param("userId") Long userId,
+                                              @Param("from") Instant from,
+                                              @Param("to") Instant to);
+}
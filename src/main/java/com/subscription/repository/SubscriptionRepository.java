@@ -1,15 +1,32 @@
 package com.subscription.repository;
 
 import com.subscription.model.Subscription;
+import com.subscription.model.SubscriptionStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
+    @EntityGraph(attributePaths = "subscriptionType")
     List<Subscription> findByUserId(Long userId);
+
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.subscriptionType " +
+           "WHERE s.user.id = :userId AND s.status IN :statuses")
+    List<Subscription> findByUserIdAndStatusIn(@Param("userId") Long userId,
+                                               @Param("statuses") Collection<SubscriptionStatus> statuses);
+
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.subscriptionType " +
+           "WHERE s.user.id IN :userIds ORDER BY s.user.id, s.id")
+    List<Subscription> findWithTypeByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT s.status, COUNT(s) FROM Subscription s WHERE s.user.id = :userId GROUP BY s.status")
+    List<Object[]> countByUserIdGroupByStatus(@Param("userId") Long userId);
     
     @Query("SELECT s.subscriptionType.id, s.subscriptionType.name, COUNT(s) as count " +
            "FROM Subscription s " +
@@ -17,4 +34,10 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
            "ORDER BY count DESC " +
            "LIMIT 3")
     List<Object[]> findTopSubscriptionTypes();
+
+    // Every type with its count, for merging across shards where a per-shard top 3 would not add up
+    @Query("SELECT s.subscriptionType.id, s.subscriptionType.name, COUNT(s) " +
+           "FROM Subscription s " +
+           "GROUP BY s.subscriptionType.id, s.subscriptionType.name")
+    List<Object[]> countBySubscriptionType();
 } 
\ No newline at end of file
@@ -2,8 +2,13 @@ package com.subscription.repository;
 
 import com.subscription.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+    boolean existsByUsernameAndIdNot(String username, Long id);
+    boolean existsByEmailAndIdNot(String email, Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.username = :username, u.email = :email, u.firstName = :firstName, " +
+           "u.lastName = :lastName, u.updatedAt = :updatedAt, u.version = u.version + 1 " +
+           "WHERE u.id = :id AND u.version = :version")
+    int updateIfVersionMatches(@Param("id") Long id, @Param("version") Long version,
+                               @Param("username") String username, @Param("email") String email,
+                               @Param("firstName") String firstName, @Param("lastName") String lastName,
+                               @Param("updatedAt") Instant updatedAt);
+
+    // Prefix matches rank first, then trigram similarity; both predicates are served by the V4 GIN indexes
+    @Query(value = "SELECT u.* FROM users u " +
+            "WHERE lower(u.username) LIKE :prefix OR lower(u.email) LIKE :prefix " +
+            "OR lower(u.first_name) LIKE :prefix OR lower(u.last_name) LIKE :prefix " +
+            "OR lower(u.username) % :query OR lower(u.email) % :query " +
+            "OR lower(u.first_name) % :query OR lower(u.last_name) % :query " +
+            "ORDER BY CASE WHEN lower(u.username) LIKE :prefix OR lower(u.email) LIKE :prefix " +
+            "OR lower(u.first_name) LIKE :prefix OR lower(u.last_name) LIKE :prefix THEN 0 ELSE 1 END, " +
+            "greatest(similarity(lower(u.username), :query), similarity(lower(u.email), :query), " +
+            "similarity(lower(u.first_name), :query), similarity(lower(u.last_name), :query)) DESC, u.id " +
+            "LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<User> searchUsers(@Param("query") String query, @Param("prefix") String prefix,
+                           @Param("limit") int limit, @Param("offset") long offset);
 } 
\ No newline at end of file
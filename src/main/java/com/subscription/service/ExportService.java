@@ -0,0 +1,11 @@
+package com.subscription.service;
+
+import com.subscription.dto.ExportDataset;
+import com.subscription.dto.ExportResultDto;
+
+import java.io.OutputStream;
+
+public interface ExportService {
+    ExportResultDto exportCsv(ExportDataset dataset, OutputStream out);
+    ExportResultDto exportCsvFiles(ExportDataset dataset, int parallelism);
+}
@@ -0,0 +1,11 @@
+package com.subscription.service;
+
+import com.subscription.dto.SubscriptionHistoryDto;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SubscriptionHistoryService {
+    List<SubscriptionHistoryDto> getUserHistory(Long userId, Instant from, Instant to);
+    void flush();
+}
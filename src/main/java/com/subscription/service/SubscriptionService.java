@@ -1,13 +1,22 @@
 package com.subscription.service;
 
+import com.subscription.dto.SubscriptionCountDto;
 import com.subscription.dto.SubscriptionDto;
 import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.model.SubscriptionStatus;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface SubscriptionService {
     SubscriptionDto addSubscription(Long userId, SubscriptionDto subscriptionDto);
     List<SubscriptionDto> getUserSubscriptions(Long userId);
+    List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses);
+    List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses, boolean includeArchived);
+    SubscriptionCountDto countUserSubscriptions(Long userId);
+    void streamSubscriptionsByUsers(List<Long> userIds, Consumer<Map<Long, List<SubscriptionDto>>> chunkConsumer);
     void deleteSubscription(Long userId, Long subscriptionId);
     List<SubscriptionTypeDto> getTopSubscriptions();
 } 
\ No newline at end of file
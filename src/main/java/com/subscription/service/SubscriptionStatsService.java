@@ -0,0 +1,13 @@
+package com.subscription.service;
+
+import com.subscription.dto.StatsGranularity;
+import com.subscription.dto.SubscriptionStatsDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SubscriptionStatsService {
+    List<SubscriptionStatsDto> getStats(LocalDate from, LocalDate to, StatsGranularity granularity);
+    int rebuild(LocalDate from, LocalDate to);
+    void flush();
+}
@@ -0,0 +1,10 @@
+package com.subscription.service;
+
+import com.subscription.dto.UserImportFormat;
+import com.subscription.dto.UserImportResultDto;
+
+import java.io.InputStream;
+
+public interface UserImportService {
+    UserImportResultDto importUsers(InputStream input, UserImportFormat format);
+}
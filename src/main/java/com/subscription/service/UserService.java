@@ -1,13 +1,18 @@
 package com.subscription.service;
 
+import com.subscription.dto.PageDto;
 import com.subscription.dto.UserDto;
 
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
     UserDto createUser(UserDto userDto);
     UserDto getUserById(Long id);
     List<UserDto> getAllUsers();
     UserDto updateUser(Long id, UserDto userDto);
+    UserDto updateUser(Long id, UserDto userDto, long expectedVersion);
+    UserDto patchUser(Long id, Map<String, Object> patch, Long expectedVersion);
     void deleteUser(Long id);
+    PageDto<UserDto> searchUsers(String query, int page, int size);
 } 
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.subscription.service.impl;
+
+import com.subscription.dto.SubscriptionHistoryDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.model.SubscriptionHistory;
+import com.subscription.repository.SubscriptionHistoryRepository;
+import com.subscription.service.SubscriptionHistoryService;
+import com.subscription.shard.ShardContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionHistoryServiceImpl implements SubscriptionHistoryService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO subscription_history " +
+            "(subscription_id, user_id, subscription_type_id, event_type, status, start_date, end_date, recorded_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final SubscriptionHistoryRepository subscriptionHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingDeque<SubscriptionEvent> pending = new LinkedBlockingDeque<>();
+    // Set while the database rejects batches; the scheduled flush keeps retrying, request threads do not
+    private volatile boolean flushFailing;
+
+    @Value("${subscription.history.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${subscription.history.max-pending:10000}")
+    private int maxPending = 10000;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubscriptionEvent(SubscriptionEvent event) {
+        pending.offerLast(event);
+        if (pending.size() >= maxPending && !flushFailing) {
+            log.warn("Subscription history backlog reached {} events, flushing inline", pending.size());
+            // The committing thread may still be routed to the user's shard; history lives in the directory
+            ShardContext.call(null, () -> {
+                flush();
+                return null;
+            });
+        }
+        dropOverflow();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${subscription.history.flush-interval-ms:1000}")
+    public void flush() {
+        List<SubscriptionEvent> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+                log.debug("Flushed {} subscription history events", batch.size());
+                flushFailing = false;
+            } catch (RuntimeException ex) {
+                log.error("Failed to flush {} subscription history events, will retry", batch.size(), ex);
+                flushFailing = true;
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    pending.offerFirst(batch.get(i));
+                }
+                dropOverflow();
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // Keeps the newest max-pending events while the database is unavailable
+    private void dropOverflow() {
+        int dropped = 0;
+        while (pending.size() > maxPending && pending.pollFirst() != null) {
+            dropped++;
+        }
+        if (dropped > 0) {
+            meterRegistry.counter("subscription.history.dropped").increment(dropped);
+            log.warn("Dropped {} oldest subscription history events, backlog is capped at {}", dropped, maxPending);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Override
+    public List<SubscriptionHistoryDto> getUserHistory(Long userId, Instant from, Instant to) {
+        log.debug("Fetching subscription history for user ID: {} from {} to {}", userId, from, to);
+
+        Instant effectiveFrom = from != null ? from : Instant.EPOCH;
+        Instant effectiveTo = to != null ? to : clock.instant();
+        if (effectiveFrom.isAfter(effectiveTo)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        // Make events buffered on this instance visible before reading
+        flush();
+
+        return subscriptionHistoryRepository.findUserHistory(userId, effectiveFrom, effectiveTo).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    private void bind(PreparedStatement ps, SubscriptionEvent event) throws SQLException {
+        ps.setLong(1, event.getSubscriptionId());
+        ps.setLong(2, event.getUserId());
+        ps.setLong(3, event.getSubscriptionTypeId());
+        ps.setString(4, event.getType().name());
+        ps.setString(5, event.getStatus().name());
+        setTimestamp(ps, 6, event.getStartDate());
+        setTimestamp(ps, 7, event.getEndDate());
+        setTimestamp(ps, 8, event.getOccurredAt());
+    }
+
+    private void setTimestamp(PreparedStatement ps, int index, Instant value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP_WITH_TIMEZONE);
+        } else {
+            ps.setObject(index, value.atOffset(ZoneOffset.UTC));
+        }
+    }
+
+    private SubscriptionHistoryDto mapToDto(SubscriptionHistory history) {
+        return SubscriptionHistoryDto.builder()
+                .subscriptionId(history.getSubscriptionId())
+                .subscriptionTypeId(history.getSubscriptionTypeId())
+                .eventType(history.getEventType())
+                .status(history.getStatus())
+                .startDate(history.getStartDate())
+                .endDate(history.getEndDate())
+                .recordedAt(history.getRecordedAt())
+                .build();
+    }
+}
@@ -1,25 +1,40 @@
 package com.subscription.service.impl;
 
+import com.subscription.dto.SubscriptionCountDto;
 import com.subscription.dto.SubscriptionDto;
 import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.ArchivedSubscription;
+import com.subscription.model.BillingPeriod;
 import com.subscription.model.Subscription;
 import com.subscription.model.SubscriptionStatus;
 import com.subscription.model.SubscriptionType;
 import com.subscription.model.User;
+import com.subscription.repository.ArchivedSubscriptionRepository;
 import com.subscription.repository.SubscriptionRepository;
 import com.subscription.repository.SubscriptionTypeRepository;
 import com.subscription.repository.UserRepository;
 import com.subscription.service.SubscriptionService;
+import com.subscription.util.StaleWhileRevalidateCache;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
-import java.time.ZonedDateTime;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +45,13 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
     private final SubscriptionTypeRepository subscriptionTypeRepository;
+    private final ArchivedSubscriptionRepository archivedSubscriptionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StaleWhileRevalidateCache<List<SubscriptionTypeDto>> topSubscriptionsCache;
+    private final Clock clock;
+
+    @Value("${subscription.batch-get.chunk-size:1000}")
+    private int batchChunkSize = 1000;
 
     @Override
     @Transactional
@@ -49,23 +71,41 @@ public class SubscriptionServiceImpl implements SubscriptionService {
                 });
         
         if (subscriptionDto.getStartDate() == null) {
-            subscriptionDto.setStartDate(ZonedDateTime.now());
+            subscriptionDto.setStartDate(clock.instant());
         }
         
         if (subscriptionDto.getStatus() == null) {
             subscriptionDto.setStatus(SubscriptionStatus.ACTIVE);
         }
         
+        BillingPeriod billingPeriod = subscriptionType.getBillingPeriod();
+        // Renewal charges again, so it only happens when the client asks for it
+        if (subscriptionDto.getAutoRenew() == null) {
+            subscriptionDto.setAutoRenew(false);
+        }
+        
+        if (subscriptionDto.getAutoRenew()) {
+            if (billingPeriod == null) {
+                throw new IllegalArgumentException("Subscription type " + subscriptionType.getName() + " does not renew");
+            }
+            // A recurring subscription always runs until the end of its current billing period
+            if (subscriptionDto.getEndDate() == null) {
+                subscriptionDto.setEndDate(billingPeriod.extend(subscriptionDto.getStartDate()));
+            }
+        }
+        
         Subscription subscription = Subscription.builder()
                 .user(user)
                 .subscriptionType(subscriptionType)
                 .startDate(subscriptionDto.getStartDate())
                 .endDate(subscriptionDto.getEndDate())
                 .status(subscriptionDto.getStatus())
+                .autoRenew(subscriptionDto.getAutoRenew())
                 .build();
         
         Subscription savedSubscription = subscriptionRepository.save(subscription);
         log.info("Subscription added with ID: {} for user ID: {}", savedSubscription.getId(), userId);
+        eventPublisher.publishEvent(SubscriptionEvent.of(SubscriptionEventType.CREATED, savedSubscription, clock.instant()));
         
         return mapToDto(savedSubscription);
     }
@@ -87,6 +127,94 @@ public class SubscriptionServiceImpl implements SubscriptionService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return getUserSubscriptions(userId);
+        }
+
+        log.debug("Fetching subscriptions with status {} for user ID: {}", statuses, userId);
+
+        if (!userRepository.existsById(userId)) {
+            log.error("User not found with ID: {}", userId);
+            throw new EntityNotFoundException("User not found with ID: " + userId);
+        }
+
+        return subscriptionRepository.findByUserIdAndStatusIn(userId, statuses).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses, boolean includeArchived) {
+        List<SubscriptionDto> subscriptions = getUserSubscriptions(userId, statuses);
+        if (!includeArchived) {
+            return subscriptions;
+        }
+
+        List<ArchivedSubscription> archived = statuses == null || statuses.isEmpty()
+                ? archivedSubscriptionRepository.findByUserIdOrderById(userId)
+                : archivedSubscriptionRepository.findByUserIdAndStatusInOrderById(userId, statuses);
+        log.debug("Found {} archived subscriptions for user ID: {}", archived.size(), userId);
+
+        // A row archived between the two queries is seen in both; the hot copy is kept
+        Set<Long> hotIds = subscriptions.stream().map(SubscriptionDto::getId).collect(Collectors.toSet());
+        List<SubscriptionDto> result = new ArrayList<>(subscriptions.size() + archived.size());
+        result.addAll(subscriptions);
+        for (ArchivedSubscription subscription : archived) {
+            if (!hotIds.contains(subscription.getId())) {
+                result.add(mapToDto(subscription));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SubscriptionCountDto countUserSubscriptions(Long userId) {
+        log.debug("Counting subscriptions by status for user ID: {}", userId);
+
+        if (!userRepository.existsById(userId)) {
+            log.error("User not found with ID: {}", userId);
+            throw new EntityNotFoundException("User not found with ID: " + userId);
+        }
+
+        Map<SubscriptionStatus, Long> byStatus = new EnumMap<>(SubscriptionStatus.class);
+        for (SubscriptionStatus status : SubscriptionStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        long total = 0;
+        for (Object[] row : subscriptionRepository.countByUserIdGroupByStatus(userId)) {
+            long count = ((Number) row[1]).longValue();
+            byStatus.put((SubscriptionStatus) row[0], count);
+            total += count;
+        }
+
+        return SubscriptionCountDto.builder()
+                .total(total)
+                .byStatus(byStatus)
+                .build();
+    }
+
+    @Override
+    public void streamSubscriptionsByUsers(List<Long> userIds, Consumer<Map<Long, List<SubscriptionDto>>> chunkConsumer) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        log.debug("Streaming subscriptions for {} users in chunks of {}", distinctIds.size(), batchChunkSize);
+
+        // Each chunk is its own short read, so neither a connection nor the result set is held for the whole batch
+        for (int from = 0; from < distinctIds.size(); from += batchChunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + batchChunkSize, distinctIds.size()));
+            Map<Long, List<SubscriptionDto>> byUser = new LinkedHashMap<>();
+            chunk.forEach(userId -> byUser.put(userId, new ArrayList<>()));
+            for (Subscription subscription : subscriptionRepository.findWithTypeByUserIdIn(chunk)) {
+                byUser.get(subscription.getUser().getId()).add(mapToDto(subscription));
+            }
+            chunkConsumer.accept(byUser);
+        }
+    }
+
     @Override
     @Transactional
     public void deleteSubscription(Long userId, Long subscriptionId) {
@@ -105,11 +233,19 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         
         subscriptionRepository.deleteById(subscriptionId);
         log.info("Subscription deleted with ID: {}", subscriptionId);
+        eventPublisher.publishEvent(SubscriptionEvent.of(SubscriptionEventType.DELETED, subscription, clock.instant()));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<SubscriptionTypeDto> getTopSubscriptions() {
+        // Concurrent callers share one in-flight query; stale results are served while refreshing.
+        // The DTOs are mutable, so each caller gets its own copies rather than the cached instances.
+        return topSubscriptionsCache.get(this::loadTopSubscriptions).stream()
+                .map(dto -> dto.toBuilder().build())
+                .toList();
+    }
+
+    private List<SubscriptionTypeDto> loadTopSubscriptions() {
         log.debug("Fetching top subscriptions");
         
         List<Object[]> topSubscriptionTypes = subscriptionRepository.findTopSubscriptionTypes();
@@ -124,7 +260,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
             result.add(dto);
         }
         
-        return result;
+        return List.copyOf(result);
     }
     
     private SubscriptionDto mapToDto(Subscription subscription) {
@@ -135,6 +271,19 @@ public class SubscriptionServiceImpl implements SubscriptionService {
                 .startDate(subscription.getStartDate())
                 .endDate(subscription.getEndDate())
                 .status(subscription.getStatus())
+                .autoRenew(subscription.isAutoRenew())
+                .build();
+    }
+
+    private SubscriptionDto mapToDto(ArchivedSubscription subscription) {
+        return SubscriptionDto.builder()
+                .id(subscription.getId())
+                .subscriptionTypeId(subscription.getSubscriptionType().getId())
+                .subscriptionTypeName(subscription.getSubscriptionType().getName())
+                .startDate(subscription.getStartDate())
+                .endDate(subscription.getEndDate())
+                .status(subscription.getStatus())
+                .autoRenew(subscription.isAutoRenew())
                 .build();
     }
 } 
\ No newline at end of file
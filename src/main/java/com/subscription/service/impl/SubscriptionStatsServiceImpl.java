@@ -0,0 +1,206 @@
+package com.subscription.service.impl;
+
+import com.subscription.dto.StatsGranularity;
+import com.subscription.dto.SubscriptionStatsDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.model.SubscriptionDailyStat;
+import com.subscription.model.SubscriptionType;
+import com.subscription.repository.SubscriptionDailyStatRepository;
+import com.subscription.repository.SubscriptionTypeRepository;
+import com.subscription.service.SubscriptionHistoryService;
+import com.subscription.service.SubscriptionStatsService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionStatsServiceImpl implements SubscriptionStatsService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE subscription_daily_stats " +
+            "SET created_count = created_count + ?, cancelled_count = cancelled_count + ? " +
+            "WHERE stat_date = ? AND subscription_type_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO subscription_daily_stats (created_count, cancelled_count, stat_date, subscription_type_id) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM subscription_daily_stats WHERE stat_date >= ? AND stat_date <= ?";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO subscription_daily_stats (stat_date, subscription_type_id, created_count, cancelled_count) " +
+            "SELECT CAST(recorded_at AT TIME ZONE 'UTC' AS DATE), subscription_type_id, " +
+            "SUM(CASE WHEN event_type = 'CREATED' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN event_type = 'DELETED' THEN 1 ELSE 0 END) " +
+            "FROM subscription_history " +
+            "WHERE recorded_at >= ? AND recorded_at < ? " +
+            "GROUP BY CAST(recorded_at AT TIME ZONE 'UTC' AS DATE), subscription_type_id";
+
+    private final SubscriptionDailyStatRepository subscriptionDailyStatRepository;
+    private final SubscriptionTypeRepository subscriptionTypeRepository;
+    private final SubscriptionHistoryService subscriptionHistoryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<StatKey, Delta> pending = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubscriptionEvent(SubscriptionEvent event) {
+        Delta delta = switch (event.getType()) {
+            case CREATED -> new Delta(1, 0);
+            case DELETED -> new Delta(0, 1);
+            // Expiry and renewal only change the status or end date; the rollups count new and cancelled subscriptions
+            case EXPIRED, RENEWED -> null;
+        };
+        if (delta == null) {
+            return;
+        }
+        LocalDate day = LocalDate.ofInstant(event.getOccurredAt(), ZoneOffset.UTC);
+        pending.merge(new StatKey(day, event.getSubscriptionTypeId()), delta, Delta::plus);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${subscription.stats.flush-interval-ms:5000}")
+    public void flush() {
+        for (StatKey key : new ArrayList<>(pending.keySet())) {
+            Delta delta = pending.remove(key);
+            if (delta == null) {
+                continue;
+            }
+            try {
+                apply(key, delta);
+            } catch (RuntimeException ex) {
+                log.error("Failed to apply subscription stats for {} on {}, will retry",
+                        key.subscriptionTypeId(), key.day(), ex);
+                pending.merge(key, delta, Delta::plus);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Override
+    public List<SubscriptionStatsDto> getStats(LocalDate from, LocalDate to, StatsGranularity granularity) {
+        log.debug("Fetching subscription stats from {} to {} by {}", from, to, granularity);
+
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        flush();
+
+        Map<Long, String> typeNames = subscriptionTypeRepository.findAll().stream()
+                .collect(Collectors.toMap(SubscriptionType::getId, SubscriptionType::getName));
+
+        Map<StatKey, SubscriptionStatsDto> buckets = new LinkedHashMap<>();
+        for (SubscriptionDailyStat stat : subscriptionDailyStatRepository
+                .findByStatDateBetweenOrderByStatDateAscSubscriptionTypeIdAsc(from, to)) {
+            LocalDate periodStart = granularity == StatsGranularity.WEEK
+                    ? stat.getStatDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    : stat.getStatDate();
+            SubscriptionStatsDto bucket = buckets.computeIfAbsent(
+                    new StatKey(periodStart, stat.getSubscriptionTypeId()),
+                    key -> SubscriptionStatsDto.builder()
+                            .periodStart(key.day())
+                            .subscriptionTypeId(key.subscriptionTypeId())
+                            .subscriptionTypeName(typeNames.get(key.subscriptionTypeId()))
+                            .build());
+            bucket.setCreated(bucket.getCreated() + stat.getCreatedCount());
+            bucket.setCancelled(bucket.getCancelled() + stat.getCancelledCount());
+        }
+
+        return buckets.values().stream()
+                .sorted(Comparator.comparing(SubscriptionStatsDto::getPeriodStart)
+                        .thenComparing(SubscriptionStatsDto::getSubscriptionTypeId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        log.info("Rebuilding subscription stats from {} to {}", from, to);
+
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        // Write buffered history first; the recomputed rows then already cover the buffered increments
+        subscriptionHistoryService.flush();
+
+        OffsetDateTime start = from.atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime end = to.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        Map<StatKey, Delta> discarded = new HashMap<>();
+        Integer rows;
+        try {
+            rows = transactionTemplate.execute(status -> {
+                // Applying these after the rebuild would count their events twice
+                for (StatKey key : new ArrayList<>(pending.keySet())) {
+                    if (!key.day().isBefore(from) && !key.day().isAfter(to)) {
+                        Delta delta = pending.remove(key);
+                        if (delta != null) {
+                            discarded.merge(key, delta, Delta::plus);
+                        }
+                    }
+                }
+                jdbcTemplate.update(DELETE_RANGE_SQL, from, to);
+                return jdbcTemplate.update(REBUILD_SQL, start, end);
+            });
+        } catch (RuntimeException ex) {
+            // The old rows are still in place, so the increments still apply to them
+            discarded.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+            throw ex;
+        }
+
+        log.info("Rebuilt {} subscription stat rows from {} to {}", rows, from, to);
+        return rows != null ? rows : 0;
+    }
+
+    private void apply(StatKey key, Delta delta) {
+        Object[] args = {delta.created(), delta.cancelled(), key.day(), key.subscriptionTypeId()};
+        if (jdbcTemplate.update(UPDATE_SQL, args) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, args);
+        } catch (DuplicateKeyException ex) {
+            // Another instance created the row between our update and insert
+            jdbcTemplate.update(UPDATE_SQL, args);
+        }
+    }
+
+    private record StatKey(LocalDate day, Long subscriptionTypeId) {
+    }
+
+    private record Delta(long created, long cancelled) {
+        Delta plus(Delta other) {
+            return new Delta(created + other.created, cancelled + other.cancelled);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.subscription.service.impl;
+
+import com.subscription.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+// Bloom filters over normalized usernames and emails. A negative answer is definite and skips the
+// database; a positive one falls through to the repository check. Deleted users stay in the filter
+// until the next periodic rebuild, and users created on other instances are picked up by it too.
+@Component
+@Slf4j
+public class UserExistenceFilter {
+
+    private static final String SCAN_SQL = "SELECT username, email FROM users";
+    private static final int SCAN_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final AtomicReference<Filters> current = new AtomicReference<>();
+    private final AtomicReference<Filters> building = new AtomicReference<>();
+
+    private final Counter definiteNegatives;
+    private final Counter possiblePositives;
+    private final Counter falsePositives;
+
+    public UserExistenceFilter(DataSource dataSource,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${subscription.user-filter.enabled:true}") boolean enabled,
+                               @Value("${subscription.user-filter.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${subscription.user-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(SCAN_FETCH_SIZE);
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.definiteNegatives = Counter.builder("user.existence.filter.checks")
+                .tag("result", "negative").register(meterRegistry);
+        this.possiblePositives = Counter.builder("user.existence.filter.checks")
+                .tag("result", "positive").register(meterRegistry);
+        this.falsePositives = Counter.builder("user.existence.filter.false.positives")
+                .register(meterRegistry);
+        Gauge.builder("user.existence.filter.memory", current,
+                        ref -> ref.get() == null ? 0 : ref.get().sizeInBytes())
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("user.existence.filter.expected.fpp", current,
+                        ref -> ref.get() == null ? 1 : ref.get().usernames().expectedFalsePositiveRate())
+                .tag("field", "username").register(meterRegistry);
+        Gauge.builder("user.existence.filter.expected.fpp", current,
+                        ref -> ref.get() == null ? 1 : ref.get().emails().expectedFalsePositiveRate())
+                .tag("field", "email").register(meterRegistry);
+    }
+
+    public boolean usernameTaken(String username, Predicate<String> databaseCheck) {
+        Filters filters = current.get();
+        return check(filters == null ? null : filters.usernames(), username, databaseCheck);
+    }
+
+    public boolean emailTaken(String email, Predicate<String> databaseCheck) {
+        Filters filters = current.get();
+        return check(filters == null ? null : filters.emails(), email, databaseCheck);
+    }
+
+    public void add(String username, String email) {
+        add(current.get(), username, email);
+        add(building.get(), username, email);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${subscription.user-filter.rebuild-interval-ms:300000}",
+            initialDelayString = "${subscription.user-filter.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Long userCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+            long capacity = Math.max(expectedInsertions, (userCount != null ? userCount : 0) * 3 / 2);
+            Filters next = new Filters(new BloomFilter(capacity, falsePositiveRate),
+                    new BloomFilter(capacity, falsePositiveRate));
+            // Writes that race with the scan are applied to both the live and the new filter
+            building.set(next);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(SCAN_SQL,
+                    (RowCallbackHandler) rs -> add(next, rs.getString(1), rs.getString(2))));
+            current.set(next);
+            log.info("Rebuilt user existence filter for {} users ({} bytes) in {} ms",
+                    userCount, next.sizeInBytes(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Failed to rebuild user existence filter", ex);
+        } finally {
+            building.set(null);
+        }
+    }
+
+    private boolean check(BloomFilter filter, String value, Predicate<String> databaseCheck) {
+        if (filter != null && !filter.mightContain(normalize(value))) {
+            definiteNegatives.increment();
+            return false;
+        }
+        possiblePositives.increment();
+        boolean exists = databaseCheck.test(value);
+        if (!exists && filter != null) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    private static void add(Filters filters, String username, String email) {
+        if (filters != null) {
+            filters.usernames().put(normalize(username));
+            filters.emails().put(normalize(email));
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+        long sizeInBytes() {
+            return usernames.sizeInBytes() + emails.sizeInBytes();
+        }
+    }
+}
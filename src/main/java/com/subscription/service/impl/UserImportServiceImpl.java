@@ -0,0 +1,485 @@
+package com.subscription.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.subscription.dto.UserDto;
+import com.subscription.dto.UserImportFormat;
+import com.subscription.dto.UserImportRejectionDto;
+import com.subscription.dto.UserImportResultDto;
+import com.subscription.service.UserImportService;
+import com.subscription.shard.ShardRouter;
+import com.subscription.util.CsvReader;
+import com.subscription.util.CsvWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+// Bulk user import. Rows are validated while the upload is parsed and streamed into a temporary
+// staging table (COPY on Postgres, batched inserts elsewhere). Username and email conflicts are
+// then resolved with a few set-based updates and the surviving rows are inserted in one statement.
+// Everything runs in one transaction, so a failed import leaves no users behind. With sharding the
+// staging table lives in the directory database: conflicts are checked against user_directory, which
+// also hands out the IDs, and each new user is then written to the shard its ID hashes to.
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final String STAGING_COLUMNS = "(line_no BIGINT NOT NULL, username VARCHAR(255), " +
+            "email VARCHAR(255), first_name VARCHAR(255), last_name VARCHAR(255), rejection VARCHAR(100))";
+    private static final String CREATE_STAGING_POSTGRES_SQL =
+            "CREATE TEMP TABLE user_import " + STAGING_COLUMNS + " ON COMMIT DROP";
+    // Without ON COMMIT DROP the table outlives the transaction, so a reused connection drops it first
+    private static final String CREATE_STAGING_SQL = "CREATE LOCAL TEMPORARY TABLE user_import " + STAGING_COLUMNS;
+    private static final String COPY_SQL =
+            "COPY user_import (line_no, username, email, first_name, last_name) FROM STDIN WITH (FORMAT csv)";
+    private static final String STAGE_SQL =
+            "INSERT INTO user_import (line_no, username, email, first_name, last_name) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_USERS_SQL =
+            "INSERT INTO users (username, email, first_name, last_name, version) " +
+            "SELECT username, email, first_name, last_name, 0 FROM user_import " +
+            "WHERE rejection IS NULL ORDER BY line_no";
+    private static final String REJECTIONS_SQL = "SELECT line_no, username, email, rejection FROM user_import " +
+            "WHERE rejection IS NOT NULL ORDER BY line_no LIMIT ?";
+    private static final String IMPORTED_SQL = "SELECT username, email FROM user_import WHERE rejection IS NULL";
+    private static final String INSERT_DIRECTORY_SQL =
+            "INSERT INTO user_directory (username, email) " +
+            "SELECT username, email FROM user_import WHERE rejection IS NULL ORDER BY line_no";
+    private static final String DIRECTORY_IMPORTED_SQL =
+            "SELECT d.id, i.username, i.email, i.first_name, i.last_name FROM user_import i " +
+            "JOIN user_directory d ON d.username = i.username WHERE i.rejection IS NULL";
+    private static final String INSERT_SHARD_USER_SQL =
+            "INSERT INTO users (id, username, email, first_name, last_name, version) VALUES (?, ?, ?, ?, ?, 0)";
+    private static final String DELETE_SHARD_USER_SQL = "DELETE FROM users WHERE id = ?";
+
+    // Applied in order, each to the rows no earlier rule rejected; within the file the earliest line wins.
+    // %s is the table holding the existing usernames and emails.
+    private static final List<ConflictRule> CONFLICT_RULES = List.of(
+            new ConflictRule("Username already exists",
+                    "EXISTS (SELECT 1 FROM %s u WHERE u.username = user_import.username)"),
+            new ConflictRule("Email already exists",
+                    "EXISTS (SELECT 1 FROM %s u WHERE u.email = user_import.email)"),
+            new ConflictRule("Duplicate username in import",
+                    "EXISTS (SELECT 1 FROM user_import d WHERE d.username = user_import.username " +
+                    "AND d.line_no < user_import.line_no AND d.rejection IS NULL)"),
+            new ConflictRule("Duplicate email in import",
+                    "EXISTS (SELECT 1 FROM user_import d WHERE d.email = user_import.email " +
+                    "AND d.line_no < user_import.line_no AND d.rejection IS NULL)"));
+
+    private static final String[] CSV_COLUMNS = {"username", "email", "firstname", "lastname"};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader userReader;
+    private final Validator validator;
+    private final UserExistenceFilter userExistenceFilter;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxReportedRejections;
+    private final boolean useCopy;
+
+    public UserImportServiceImpl(DataSource dataSource,
+                                 ObjectProvider<ShardRouter> shardRouter,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 UserExistenceFilter userExistenceFilter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${subscription.user-import.batch-size:1000}") int batchSize,
+                                 @Value("${subscription.user-import.max-reported-rejections:1000}") int maxReportedRejections,
+                                 @Value("${subscription.user-import.use-copy:true}") boolean useCopy) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardRouter = shardRouter.getIfAvailable();
+        this.transactionTemplate = transactionTemplate;
+        this.userReader = objectMapper.readerFor(UserDto.class);
+        this.validator = validator;
+        this.userExistenceFilter = userExistenceFilter;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxReportedRejections = maxReportedRejections;
+        this.useCopy = useCopy;
+    }
+
+    @Override
+    public UserImportResultDto importUsers(InputStream input, UserImportFormat format) {
+        long start = System.nanoTime();
+        ImportState state = transactionTemplate.execute(status ->
+                jdbcTemplate.execute((ConnectionCallback<ImportState>) connection -> {
+                    try {
+                        return importUsers(connection, input, format);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }));
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        long rejected = state.received - state.imported;
+        long rowsPerSecond = state.received * 1_000_000_000L / elapsedNanos;
+        meterRegistry.counter("user.import.rows", "result", "imported").increment(state.imported);
+        meterRegistry.counter("user.import.rows", "result", "rejected").increment(rejected);
+        log.info("Imported {} of {} users in {} ms ({} rows/s), {} rejected",
+                state.imported, state.received, elapsedNanos / 1_000_000, rowsPerSecond, rejected);
+
+        return UserImportResultDto.builder()
+                .received(state.received)
+                .imported(state.imported)
+                .rejected(rejected)
+                .durationMs(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .rejections(state.rejections)
+                .build();
+    }
+
+    private ImportState importUsers(Connection connection, InputStream input, UserImportFormat format)
+            throws SQLException, IOException {
+        boolean postgres = useCopy && connection.isWrapperFor(PGConnection.class);
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute(CREATE_STAGING_POSTGRES_SQL);
+            } else {
+                statement.execute("DROP TABLE IF EXISTS user_import");
+                statement.execute(CREATE_STAGING_SQL);
+            }
+        }
+
+        ImportState state = new ImportState();
+        Stager stager = postgres
+                ? new CopyStager(connection.unwrap(PGConnection.class))
+                : new BatchStager(connection, batchSize);
+        boolean staged = false;
+        try {
+            Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+            if (format == UserImportFormat.CSV) {
+                parseCsv(reader, state, stager);
+            } else {
+                parseNdjson(reader, state, stager);
+            }
+            stager.finish();
+            staged = true;
+        } finally {
+            if (!staged) {
+                stager.abort();
+            }
+        }
+
+        if (postgres) {
+            // Indexes are cheaper to build once after the load, and temp tables are never auto-analyzed
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE INDEX ON user_import (username, line_no)");
+                statement.execute("CREATE INDEX ON user_import (email, line_no)");
+                statement.execute("ANALYZE user_import");
+            }
+        }
+        String existingUsers = shardRouter != null ? "user_directory" : "users";
+        for (ConflictRule rule : CONFLICT_RULES) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE user_import SET rejection = ? WHERE rejection IS NULL AND " +
+                    rule.condition().formatted(existingUsers))) {
+                statement.setString(1, rule.reason());
+                statement.executeUpdate();
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (shardRouter == null) {
+                state.imported = statement.executeUpdate(INSERT_USERS_SQL);
+            } else {
+                state.imported = statement.executeUpdate(INSERT_DIRECTORY_SQL);
+                distribute(connection);
+            }
+        }
+
+        collectRejections(connection, state);
+        // Keeps the existence filter free of false negatives for the new usernames and emails
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(IMPORTED_SQL)) {
+            while (rs.next()) {
+                userExistenceFilter.add(rs.getString(1), rs.getString(2));
+            }
+        }
+        return state;
+    }
+
+    // Shard writes commit on their own, so when one fails the users already copied are deleted again
+    // before the exception rolls back the directory entries
+    private void distribute(Connection connection) throws SQLException {
+        try {
+            forEachShardBatch(connection, (shard, rows) -> shardJdbcTemplate(shard)
+                    .batchUpdate(INSERT_SHARD_USER_SQL, rows));
+        } catch (SQLException | RuntimeException ex) {
+            try {
+                forEachShardBatch(connection, (shard, rows) -> {
+                    try {
+                        shardJdbcTemplate(shard).batchUpdate(DELETE_SHARD_USER_SQL,
+                                rows.stream().map(row -> new Object[]{row[0]}).toList());
+                    } catch (RuntimeException cleanup) {
+                        log.error("Failed to remove imported users from {} after a failed import", shard, cleanup);
+                        ex.addSuppressed(cleanup);
+                    }
+                });
+            } catch (SQLException | RuntimeException cleanup) {
+                log.error("Failed to remove imported users from the shards after a failed import", cleanup);
+                ex.addSuppressed(cleanup);
+            }
+            throw ex;
+        }
+    }
+
+    // Streams the imported users with their directory IDs and hands them out in per-shard batches
+    private void forEachShardBatch(Connection connection, BiConsumer<String, List<Object[]>> writer)
+            throws SQLException {
+        Map<String, List<Object[]>> batches = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(DIRECTORY_IMPORTED_SQL)) {
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                String shard = shardRouter.shardFor(id);
+                List<Object[]> batch = batches.computeIfAbsent(shard, key -> new ArrayList<>(batchSize));
+                batch.add(new Object[]{id, rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)});
+                if (batch.size() == batchSize) {
+                    writer.accept(shard, batch);
+                    batch.clear();
+                }
+            }
+        }
+        batches.forEach((shard, batch) -> {
+            if (!batch.isEmpty()) {
+                writer.accept(shard, batch);
+            }
+        });
+    }
+
+    private JdbcTemplate shardJdbcTemplate(String shard) {
+        return new JdbcTemplate(shardRouter.dataSource(shard));
+    }
+
+    private void parseCsv(Reader reader, ImportState state, Stager stager) throws SQLException, IOException {
+        CsvReader csv = new CsvReader(reader);
+        String[] header = csv.readRow();
+        if (header == null) {
+            return;
+        }
+        int[] columns = csvColumns(header);
+        long line = 1;
+        String[] row;
+        while ((row = csv.readRow()) != null) {
+            line++;
+            if (row.length == 1 && row[0].isEmpty()) {
+                continue;
+            }
+            stage(line, UserDto.builder()
+                    .username(value(row, columns[0]))
+                    .email(value(row, columns[1]))
+                    .firstName(value(row, columns[2]))
+                    .lastName(value(row, columns[3]))
+                    .build(), state, stager);
+        }
+    }
+
+    private void parseNdjson(Reader reader, ImportState state, Stager stager) throws SQLException, IOException {
+        BufferedReader lines = new BufferedReader(reader, BUFFER_SIZE);
+        long line = 0;
+        String text;
+        while ((text = lines.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            UserDto user;
+            try {
+                user = userReader.readValue(text);
+            } catch (JsonProcessingException ex) {
+                state.received++;
+                state.reject(line, null, null, "Malformed JSON", maxReportedRejections);
+                continue;
+            }
+            stage(line, user, state, stager);
+        }
+    }
+
+    private void stage(long line, UserDto user, ImportState state, Stager stager) throws SQLException, IOException {
+        state.received++;
+        Set<ConstraintViolation<UserDto>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            String reason = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            state.reject(line, user.getUsername(), user.getEmail(), reason, maxReportedRejections);
+            return;
+        }
+        stager.add(line, user);
+    }
+
+    // Merges the earliest conflict rejections with the validation rejections collected while parsing
+    private void collectRejections(Connection connection, ImportState state) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(REJECTIONS_SQL)) {
+            statement.setInt(1, maxReportedRejections);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    state.rejections.add(new UserImportRejectionDto(
+                            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                }
+            }
+        }
+        state.rejections.sort(Comparator.comparingLong(UserImportRejectionDto::getLine));
+        if (state.rejections.size() > maxReportedRejections) {
+            state.rejections.subList(maxReportedRejections, state.rejections.size()).clear();
+        }
+    }
+
+    private static int[] csvColumns(String[] header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i].replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+            positions.putIfAbsent(name, i);
+        }
+        int[] columns = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            Integer position = positions.get(CSV_COLUMNS[i]);
+            if (position == null) {
+                throw new IllegalArgumentException("CSV header must contain username, email, first_name and last_name");
+            }
+            columns[i] = position;
+        }
+        return columns;
+    }
+
+    private static String value(String[] row, int column) {
+        return column < row.length ? row[column] : null;
+    }
+
+    private record ConflictRule(String reason, String condition) {
+    }
+
+    private static final class ImportState {
+        private long received;
+        private long imported;
+        private final List<UserImportRejectionDto> rejections = new ArrayList<>();
+
+        private void reject(long line, String username, String email, String reason, int maxReported) {
+            if (rejections.size() < maxReported) {
+                rejections.add(new UserImportRejectionDto(line, username, email, reason));
+            }
+        }
+    }
+
+    private interface Stager {
+        void add(long line, UserDto user) throws SQLException, IOException;
+
+        void finish() throws SQLException, IOException;
+
+        void abort() throws SQLException;
+    }
+
+    private static final class CopyStager implements Stager {
+        private final PGCopyOutputStream copy;
+        private final Writer writer;
+        private final CsvWriter csv;
+        private final String[] row = new String[5];
+
+        private CopyStager(PGConnection connection) throws SQLException {
+            this.copy = new PGCopyOutputStream(connection, COPY_SQL, BUFFER_SIZE);
+            this.writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), BUFFER_SIZE);
+            this.csv = new CsvWriter(writer);
+        }
+
+        @Override
+        public void add(long line, UserDto user) throws IOException {
+            row[0] = Long.toString(line);
+            row[1] = user.getUsername();
+            row[2] = user.getEmail();
+            row[3] = user.getFirstName();
+            row[4] = user.getLastName();
+            csv.writeRow(row);
+        }
+
+        @Override
+        public void finish() throws SQLException, IOException {
+            writer.flush();
+            copy.endCopy();
+        }
+
+        @Override
+        public void abort() throws SQLException {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static final class BatchStager implements Stager {
+        private final PreparedStatement statement;
+        private final int batchSize;
+        private int pending;
+
+        private BatchStager(Connection connection, int batchSize) throws SQLException {
+            this.statement = connection.prepareStatement(STAGE_SQL);
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void add(long line, UserDto user) throws SQLException {
+            statement.setLong(1, line);
+            statement.setString(2, user.getUsername());
+            statement.setString(3, user.getEmail());
+            statement.setString(4, user.getFirstName());
+            statement.setString(5, user.getLastName());
+            statement.addBatch();
+            if (++pending == batchSize) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+            statement.close();
+        }
+
+        @Override
+        public void abort() throws SQLException {
+            statement.close();
+        }
+    }
+}
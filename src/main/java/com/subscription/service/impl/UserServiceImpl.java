@@ -1,16 +1,29 @@
 package com.subscription.service.impl;
 
+import com.subscription.dto.PageDto;
 import com.subscription.dto.UserDto;
+import com.subscription.event.UserDeletedEvent;
+import com.subscription.exception.PreconditionFailedException;
 import com.subscription.model.User;
 import com.subscription.repository.UserRepository;
 import com.subscription.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,25 +31,34 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("username", "email", "firstName", "lastName");
+
     private final UserRepository userRepository;
+    private final UserExistenceFilter userExistenceFilter;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
 
     @Override
     @Transactional
     public UserDto createUser(UserDto userDto) {
         log.debug("Creating new user with username: {}", userDto.getUsername());
         
-        if (userRepository.existsByUsername(userDto.getUsername())) {
+        if (userExistenceFilter.usernameTaken(userDto.getUsername(), userRepository::existsByUsername)) {
             log.error("Username already exists: {}", userDto.getUsername());
             throw new IllegalArgumentException("Username already exists");
         }
         
-        if (userRepository.existsByEmail(userDto.getEmail())) {
+        if (userExistenceFilter.emailTaken(userDto.getEmail(), userRepository::existsByEmail)) {
             log.error("Email already exists: {}", userDto.getEmail());
             throw new IllegalArgumentException("Email already exists");
         }
         
         User user = mapToEntity(userDto);
         User savedUser = userRepository.save(user);
+        userExistenceFilter.add(savedUser.getUsername(), savedUser.getEmail());
         log.info("User created with ID: {}", savedUser.getId());
         
         return mapToDto(savedUser);
@@ -78,13 +100,13 @@ public class UserServiceImpl implements UserService {
                 });
         
         if (!user.getUsername().equals(userDto.getUsername()) && 
-                userRepository.existsByUsername(userDto.getUsername())) {
+                userExistenceFilter.usernameTaken(userDto.getUsername(), userRepository::existsByUsername)) {
             log.error("Username already exists: {}", userDto.getUsername());
             throw new IllegalArgumentException("Username already exists");
         }
         
         if (!user.getEmail().equals(userDto.getEmail()) && 
-                userRepository.existsByEmail(userDto.getEmail())) {
+                userExistenceFilter.emailTaken(userDto.getEmail(), userRepository::existsByEmail)) {
             log.error("Email already exists: {}", userDto.getEmail());
             throw new IllegalArgumentException("Email already exists");
         }
@@ -93,13 +115,107 @@ public class UserServiceImpl implements UserService {
         user.setEmail(userDto.getEmail());
         user.setFirstName(userDto.getFirstName());
         user.setLastName(userDto.getLastName());
+        user.setUpdatedAt(clock.instant());
         
         User updatedUser = userRepository.save(user);
+        userExistenceFilter.add(updatedUser.getUsername(), updatedUser.getEmail());
         log.info("User updated with ID: {}", updatedUser.getId());
         
         return mapToDto(updatedUser);
     }
 
+    @Override
+    @Transactional
+    public UserDto updateUser(Long id, UserDto userDto, long expectedVersion) {
+        log.debug("Updating user with ID: {} at version {}", id, expectedVersion);
+
+        if (userExistenceFilter.usernameTaken(userDto.getUsername(),
+                username -> userRepository.existsByUsernameAndIdNot(username, id))) {
+            log.error("Username already exists: {}", userDto.getUsername());
+            throw new IllegalArgumentException("Username already exists");
+        }
+
+        if (userExistenceFilter.emailTaken(userDto.getEmail(),
+                email -> userRepository.existsByEmailAndIdNot(email, id))) {
+            log.error("Email already exists: {}", userDto.getEmail());
+            throw new IllegalArgumentException("Email already exists");
+        }
+
+        // Single conditional UPDATE; the row is only read again to tell a stale version from a missing user
+        int updated = userRepository.updateIfVersionMatches(id, expectedVersion, userDto.getUsername(),
+                userDto.getEmail(), userDto.getFirstName(), userDto.getLastName(), clock.instant());
+        if (updated == 0) {
+            if (!userRepository.existsById(id)) {
+                log.error("User not found with ID: {}", id);
+                throw new EntityNotFoundException("User not found with ID: " + id);
+            }
+            log.error("User ID: {} was modified concurrently, expected version {}", id, expectedVersion);
+            throw new PreconditionFailedException("User was modified by another request");
+        }
+
+        userExistenceFilter.add(userDto.getUsername(), userDto.getEmail());
+        log.info("User updated with ID: {} to version {}", id, expectedVersion + 1);
+
+        return UserDto.builder()
+                .id(id)
+                .username(userDto.getUsername())
+                .email(userDto.getEmail())
+                .firstName(userDto.getFirstName())
+                .lastName(userDto.getLastName())
+                .version(expectedVersion + 1)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public UserDto patchUser(Long id, Map<String, Object> patch, Long expectedVersion) {
+        log.debug("Patching user with ID: {} fields {}", id, patch.keySet());
+
+        validatePatch(patch);
+
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("User not found with ID: {}", id);
+                    return new EntityNotFoundException("User not found with ID: " + id);
+                });
+
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            log.error("User ID: {} is at version {}, expected {}", id, user.getVersion(), expectedVersion);
+            throw new PreconditionFailedException("User was modified by another request");
+        }
+
+        String username = (String) patch.get("username");
+        if (username != null && !username.equals(user.getUsername())
+                && userExistenceFilter.usernameTaken(username, userRepository::existsByUsername)) {
+            log.error("Username already exists: {}", username);
+            throw new IllegalArgumentException("Username already exists");
+        }
+
+        String email = (String) patch.get("email");
+        if (email != null && !email.equals(user.getEmail())
+                && userExistenceFilter.emailTaken(email, userRepository::existsByEmail)) {
+            log.error("Email already exists: {}", email);
+            throw new IllegalArgumentException("Email already exists");
+        }
+
+        boolean changed = apply(patch, "username", user, User::getUsername, User::setUsername)
+                | apply(patch, "email", user, User::getEmail, User::setEmail)
+                | apply(patch, "firstName", user, User::getFirstName, User::setFirstName)
+                | apply(patch, "lastName", user, User::getLastName, User::setLastName);
+        if (!changed) {
+            log.debug("Patch for user ID: {} changes nothing", id);
+            return mapToDto(user);
+        }
+        user.setUpdatedAt(clock.instant());
+
+        // @DynamicUpdate limits the UPDATE to the columns dirty-checking found changed
+        User patchedUser = userRepository.saveAndFlush(user);
+        userExistenceFilter.add(patchedUser.getUsername(), patchedUser.getEmail());
+        log.info("User patched with ID: {}", id);
+
+        return mapToDto(patchedUser);
+    }
+
     @Override
     @Transactional
     public void deleteUser(Long id) {
@@ -112,8 +228,75 @@ public class UserServiceImpl implements UserService {
         
         userRepository.deleteById(id);
         log.info("User deleted with ID: {}", id);
+        // Subscriptions go with the user through ON DELETE CASCADE, without subscription events of their own
+        eventPublisher.publishEvent(new UserDeletedEvent(id));
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public PageDto<UserDto> searchUsers(String query, int page, int size) {
+        log.debug("Searching users for '{}' page {} size {}", query, page, size);
+
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || normalized.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must be between 1 and " + MAX_QUERY_LENGTH + " characters");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        // Fetch one extra row to report whether another page exists without a COUNT over fuzzy matches
+        List<User> users = userRepository.searchUsers(normalized, escapeLike(normalized) + "%",
+                size + 1, (long) page * size);
+        boolean hasNext = users.size() > size;
+
+        return PageDto.<UserDto>builder()
+                .content(users.stream()
+                        .limit(size)
+                        .map(this::mapToDto)
+                        .collect(Collectors.toList()))
+                .page(page)
+                .size(size)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    private void validatePatch(Map<String, Object> patch) {
+        if (patch.isEmpty()) {
+            throw new IllegalArgumentException("Patch must contain at least one field");
+        }
+        for (Map.Entry<String, Object> field : patch.entrySet()) {
+            if (!PATCHABLE_FIELDS.contains(field.getKey())) {
+                throw new IllegalArgumentException("Field cannot be patched: " + field.getKey());
+            }
+            if (!(field.getValue() instanceof String)) {
+                throw new IllegalArgumentException("Field " + field.getKey() + " must be a non-null string");
+            }
+            Set<ConstraintViolation<UserDto>> violations =
+                    validator.validateValue(UserDto.class, field.getKey(), field.getValue());
+            if (!violations.isEmpty()) {
+                throw new IllegalArgumentException(violations.iterator().next().getMessage());
+            }
+        }
+    }
+
+    private static boolean apply(Map<String, Object> patch, String field, User user,
+                                 Function<User, String> getter, BiConsumer<User, String> setter) {
+        if (!patch.containsKey(field)) {
+            return false;
+        }
+        String value = (String) patch.get(field);
+        if (Objects.equals(getter.apply(user), value)) {
+            return false;
+        }
+        setter.accept(user, value);
+        return true;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     private User mapToEntity(UserDto userDto) {
         return User.builder()
                 .username(userDto.getUsername())
@@ -130,6 +313,7 @@ public class UserServiceImpl implements UserService {
                 .email(user.getEmail())
                 .firstName(user.getFirstName())
                 .lastName(user.getLastName())
+                .version(user.getVersion())
                 .build();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.subscription.shard;
+
+import java.util.function.Supplier;
+
+// The shard the current thread talks to. ShardRoutingDataSource reads it whenever a connection is
+// opened, so it must be set before a transaction begins; without one the directory database is used.
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    // Returns the shard that was current before, to be handed back to restore
+    public static String enter(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static <T> T call(String shard, Supplier<T> task) {
+        String previous = enter(shard);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+}
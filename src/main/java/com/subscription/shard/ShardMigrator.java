@@ -0,0 +1,56 @@
+package com.subscription.shard;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Applies the same migrations to every shard after the directory database, then moves each shard's
+// subscription ID sequence into its own block. The rebalancer keeps subscription IDs when it moves
+// a user, so IDs handed out by different shards must never collide. Migrations under db/directory
+// only go to the directory database and are tracked in their own history table.
+@Slf4j
+@RequiredArgsConstructor
+public class ShardMigrator implements FlywayMigrationStrategy {
+
+    private static final long SUBSCRIPTION_ID_BLOCK = 1L << 40;
+    private static final String DIRECTORY_LOCATION = "classpath:db/directory";
+    private static final String DIRECTORY_HISTORY_TABLE = "directory_schema_history";
+
+    private static final String RESERVE_BLOCK_SQL =
+            "SELECT setval(pg_get_serial_sequence('subscriptions', 'id'), " +
+            "GREATEST(?, (SELECT COALESCE(MAX(id), 0) FROM subscriptions), 1))";
+
+    private final ShardRouter router;
+
+    @Override
+    public void migrate(Flyway flyway) {
+        flyway.migrate();
+        // The directory already holds the shared schema, so its own history starts below V1
+        Flyway.configure()
+                .configuration(flyway.getConfiguration())
+                .locations(DIRECTORY_LOCATION)
+                .table(DIRECTORY_HISTORY_TABLE)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+        List<String> shards = router.getShards();
+        for (int i = 0; i < shards.size(); i++) {
+            String shard = shards.get(i);
+            DataSource dataSource = router.dataSource(shard);
+            Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(dataSource)
+                    .load()
+                    .migrate();
+            // Blocks follow the shard's position in the configuration, which is why new shards are only appended
+            new JdbcTemplate(dataSource).queryForObject(RESERVE_BLOCK_SQL, Long.class, i * SUBSCRIPTION_ID_BLOCK);
+            log.info("Migrated shard {}", shard);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.subscription.shard;
+
+import com.subscription.dto.ShardRebalanceResultDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Moves every user that the ring places on another shard than the one holding it, together with its
+// live and archived subscriptions. Run it after appending a shard to the configuration.
+//
+// A user is moved while its row is locked on the source shard: the copy on the target is committed
+// first, then the source rows are deleted. If the second step fails the user exists twice and the
+// next run copies it again, replacing the earlier copy, so the tool can simply be rerun.
+@Slf4j
+public class ShardRebalancer {
+
+    private static final String SCAN_SQL = "SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String LOCK_USER_SQL = "SELECT * FROM users WHERE id = ? FOR UPDATE";
+    private static final String SELECT_SUBSCRIPTIONS_SQL = "SELECT * FROM subscriptions WHERE user_id = ?";
+    private static final String SELECT_ARCHIVED_SQL = "SELECT * FROM subscriptions_archive WHERE user_id = ?";
+    // Subscriptions and archived rows go with the user through ON DELETE CASCADE
+    private static final String DELETE_USER_SQL = "DELETE FROM users WHERE id = ?";
+
+    private static final List<String> USER_COLUMNS = List.of(
+            "id", "username", "email", "first_name", "last_name", "created_at", "updated_at", "version");
+    private static final List<String> SUBSCRIPTION_COLUMNS = List.of(
+            "id", "user_id", "subscription_type_id", "start_date", "end_date", "status", "auto_renew",
+            "created_at", "updated_at", "version");
+    private static final List<String> ARCHIVED_COLUMNS = List.of(
+            "id", "user_id", "subscription_type_id", "start_date", "end_date", "status", "auto_renew",
+            "created_at", "updated_at", "archived_at");
+
+    private final ShardRouter router;
+    private final int batchSize;
+
+    public ShardRebalancer(ShardRouter router, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.router = router;
+        this.batchSize = batchSize;
+    }
+
+    public ShardRebalanceResultDto rebalance() {
+        long started = System.nanoTime();
+        long scanned = 0;
+        long movedUsers = 0;
+        long movedSubscriptions = 0;
+        // Users moved onto a shard that is scanned later are already in place and are not counted again
+        Set<Long> movedIds = new HashSet<>();
+
+        for (String source : router.getShards()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(router.dataSource(source));
+            long after = 0;
+            List<Long> ids;
+            do {
+                ids = jdbcTemplate.queryForList(SCAN_SQL, Long.class, after, batchSize);
+                for (Long id : ids) {
+                    if (movedIds.contains(id)) {
+                        continue;
+                    }
+                    scanned++;
+                    String target = router.shardFor(id);
+                    if (!target.equals(source)) {
+                        int subscriptions = move(id, source, target);
+                        if (subscriptions >= 0) {
+                            movedIds.add(id);
+                            movedUsers++;
+                            movedSubscriptions += subscriptions;
+                        }
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    after = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == batchSize);
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Rebalanced shards: scanned {} users, moved {} users with {} subscriptions in {} ms",
+                scanned, movedUsers, movedSubscriptions, durationMs);
+        return ShardRebalanceResultDto.builder()
+                .scannedUsers(scanned)
+                .movedUsers(movedUsers)
+                .movedSubscriptions(movedSubscriptions)
+                .durationMs(durationMs)
+                .build();
+    }
+
+    // Returns the number of subscriptions moved with the user, or -1 when another run moved it first
+    private int move(long userId, String source, String target) {
+        JdbcTemplate sourceJdbc = new JdbcTemplate(router.dataSource(source));
+        JdbcTemplate targetJdbc = new JdbcTemplate(router.dataSource(target));
+        Integer moved = transactionTemplate(source).execute(status -> {
+            List<Map<String, Object>> user = sourceJdbc.queryForList(LOCK_USER_SQL, userId);
+            if (user.isEmpty()) {
+                return -1;
+            }
+            List<Map<String, Object>> subscriptions = sourceJdbc.queryForList(SELECT_SUBSCRIPTIONS_SQL, userId);
+            List<Map<String, Object>> archived = sourceJdbc.queryForList(SELECT_ARCHIVED_SQL, userId);
+
+            transactionTemplate(target).executeWithoutResult(targetStatus -> {
+                targetJdbc.update(DELETE_USER_SQL, userId);
+                copy(targetJdbc, "users", USER_COLUMNS, user);
+                copy(targetJdbc, "subscriptions", SUBSCRIPTION_COLUMNS, subscriptions);
+                copy(targetJdbc, "subscriptions_archive", ARCHIVED_COLUMNS, archived);
+            });
+            sourceJdbc.update(DELETE_USER_SQL, userId);
+            return subscriptions.size() + archived.size();
+        });
+        if (moved != null && moved >= 0) {
+            log.debug("Moved user ID: {} with {} subscriptions from {} to {}", userId, moved, source, target);
+        }
+        return moved != null ? moved : -1;
+    }
+
+    private TransactionTemplate transactionTemplate(String shard) {
+        return new TransactionTemplate(new DataSourceTransactionManager(router.dataSource(shard)));
+    }
+
+    private static void copy(JdbcTemplate jdbcTemplate, String table, List<String> columns,
+                             List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        jdbcTemplate.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList());
+    }
+}
@@ -0,0 +1,112 @@
+package com.subscription.shard;
+
+import com.subscription.util.ConsistentHashRing;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Maps user IDs to shards and runs work on one shard or on all of them. Fan-out runs one task per
+// shard in parallel, each on a pool thread with the shard set in ShardContext, so each task opens
+// its own transaction on its own shard.
+@Slf4j
+public class ShardRouter implements AutoCloseable {
+
+    private final ConsistentHashRing ring;
+    private final Map<String, DataSource> shards;
+    private final ExecutorService executor;
+
+    public ShardRouter(ConsistentHashRing ring, Map<String, DataSource> shards, int fanOutThreads) {
+        if (!shards.keySet().containsAll(ring.getNodes())) {
+            throw new IllegalArgumentException("Every shard on the ring needs a DataSource");
+        }
+        this.ring = ring;
+        this.shards = new LinkedHashMap<>(shards);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String shardFor(long userId) {
+        return ring.nodeFor(userId);
+    }
+
+    public List<String> getShards() {
+        return ring.getNodes();
+    }
+
+    public DataSource dataSource(String shard) {
+        DataSource dataSource = shards.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return dataSource;
+    }
+
+    public <T> T onUserShard(long userId, Supplier<T> task) {
+        return ShardContext.call(shardFor(userId), task);
+    }
+
+    // Results come back in ring order; the first failure cancels the remaining tasks and is rethrown
+    public <T> List<T> onEachShard(Supplier<T> task) {
+        List<String> names = ring.getNodes();
+        List<Future<T>> futures = new ArrayList<>(names.size());
+        for (String shard : names) {
+            futures.add(executor.submit(() -> ShardContext.call(shard, task)));
+        }
+        List<T> results = new ArrayList<>(names.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Shard task failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", ex);
+        }
+        return results;
+    }
+
+    // For components that also run without sharding, where a null router stands for the one database
+    public static <T> List<T> onEachDatabase(ShardRouter router, Supplier<T> task) {
+        return router != null ? router.onEachShard(task) : Collections.singletonList(task.get());
+    }
+
+    public static <T> T onUserDatabase(ShardRouter router, long userId, Supplier<T> task) {
+        return router != null ? router.onUserShard(userId, task) : task.get();
+    }
+
+    // The router owns the shard pools; the directory pool is closed by Spring
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (Map.Entry<String, DataSource> shard : shards.entrySet()) {
+            if (shard.getValue() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Failed to close the pool of shard {}", shard.getKey(), ex);
+                }
+            }
+        }
+    }
+}
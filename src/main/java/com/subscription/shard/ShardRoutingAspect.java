@@ -0,0 +1,34 @@
+package com.subscription.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+// Every user and subscription service method whose first argument is a user ID runs against that
+// user's shard. It has to wrap the transaction advice, because the connection is taken when the
+// transaction begins.
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ShardRoutingAspect {
+
+    private final ShardRouter router;
+
+    @Around("execution(* com.subscription.service.UserService.*(Long, ..)) || " +
+            "execution(* com.subscription.service.SubscriptionService.*(Long, ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Long userId = (Long) joinPoint.getArgs()[0];
+        if (userId == null) {
+            return joinPoint.proceed();
+        }
+        String previous = ShardContext.enter(router.shardFor(userId));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.subscription.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+// The DataSource JPA and the JDBC components see when sharding is on. Connections go to the shard in
+// ShardContext, or to the directory database when none is set, which is also where Flyway and
+// Hibernate bootstrap land.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(DataSource directory, Map<String, DataSource> shards) {
+        setDefaultTargetDataSource(directory);
+        setTargetDataSources(new HashMap<>(shards));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
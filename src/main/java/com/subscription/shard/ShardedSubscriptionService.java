@@ -0,0 +1,113 @@
+package com.subscription.shard;
+
+import com.subscription.dto.SubscriptionCountDto;
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.repository.SubscriptionRepository;
+import com.subscription.service.SubscriptionService;
+import com.subscription.util.StaleWhileRevalidateCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// The subscription service when users are spread over shards. Calls for one user reach the JPA
+// service on that user's shard through ShardRoutingAspect; the top subscriptions and batch reads
+// over many users are answered by every shard and merged here.
+@Slf4j
+public class ShardedSubscriptionService implements SubscriptionService {
+
+    private static final int TOP_LIMIT = 3;
+
+    private final SubscriptionService delegate;
+    private final SubscriptionRepository subscriptionRepository;
+    private final ShardRouter router;
+    private final StaleWhileRevalidateCache<List<SubscriptionTypeDto>> topSubscriptionsCache;
+
+    public ShardedSubscriptionService(SubscriptionService delegate,
+                                      SubscriptionRepository subscriptionRepository,
+                                      ShardRouter router,
+                                      StaleWhileRevalidateCache<List<SubscriptionTypeDto>> topSubscriptionsCache) {
+        this.delegate = delegate;
+        this.subscriptionRepository = subscriptionRepository;
+        this.router = router;
+        this.topSubscriptionsCache = topSubscriptionsCache;
+    }
+
+    @Override
+    public SubscriptionDto addSubscription(Long userId, SubscriptionDto subscriptionDto) {
+        return delegate.addSubscription(userId, subscriptionDto);
+    }
+
+    @Override
+    public List<SubscriptionDto> getUserSubscriptions(Long userId) {
+        return delegate.getUserSubscriptions(userId);
+    }
+
+    @Override
+    public List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses) {
+        return delegate.getUserSubscriptions(userId, statuses);
+    }
+
+    @Override
+    public List<SubscriptionDto> getUserSubscriptions(Long userId, Set<SubscriptionStatus> statuses, boolean includeArchived) {
+        return delegate.getUserSubscriptions(userId, statuses, includeArchived);
+    }
+
+    @Override
+    public SubscriptionCountDto countUserSubscriptions(Long userId) {
+        return delegate.countUserSubscriptions(userId);
+    }
+
+    // Users are grouped by shard and each group is streamed from its shard, so chunks follow shard order
+    @Override
+    public void streamSubscriptionsByUsers(List<Long> userIds, Consumer<Map<Long, List<SubscriptionDto>>> chunkConsumer) {
+        Map<String, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            byShard.computeIfAbsent(router.shardFor(userId), shard -> new ArrayList<>()).add(userId);
+        }
+        byShard.forEach((shard, shardUserIds) -> ShardContext.call(shard, () -> {
+            delegate.streamSubscriptionsByUsers(shardUserIds, chunkConsumer);
+            return null;
+        }));
+    }
+
+    @Override
+    public void deleteSubscription(Long userId, Long subscriptionId) {
+        delegate.deleteSubscription(userId, subscriptionId);
+    }
+
+    @Override
+    public List<SubscriptionTypeDto> getTopSubscriptions() {
+        // Callers get their own copies of the mutable DTOs, never the cached instances
+        return topSubscriptionsCache.get(this::loadTopSubscriptions).stream()
+                .map(dto -> dto.toBuilder().build())
+                .toList();
+    }
+
+    // Per-type counts from all shards are summed before ranking
+    private List<SubscriptionTypeDto> loadTopSubscriptions() {
+        log.debug("Fetching top subscriptions from {} shards", router.getShards().size());
+
+        Map<Long, SubscriptionTypeDto> totals = new LinkedHashMap<>();
+        for (List<Object[]> rows : router.onEachShard(subscriptionRepository::countBySubscriptionType)) {
+            for (Object[] row : rows) {
+                SubscriptionTypeDto total = totals.computeIfAbsent(((Number) row[0]).longValue(),
+                        id -> SubscriptionTypeDto.builder().id(id).name((String) row[1]).count(0L).build());
+                total.setCount(total.getCount() + ((Number) row[2]).longValue());
+            }
+        }
+        return totals.values().stream()
+                .sorted(Comparator.comparing(SubscriptionTypeDto::getCount).reversed()
+                        .thenComparing(SubscriptionTypeDto::getId))
+                .limit(TOP_LIMIT)
+                .toList();
+    }
+}
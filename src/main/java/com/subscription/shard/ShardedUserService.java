@@ -0,0 +1,181 @@
+package com.subscription.shard;
+
+import com.subscription.dto.PageDto;
+import com.subscription.dto.UserDto;
+import com.subscription.service.UserService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// The user service when users are spread over shards. Calls for one user are routed to its shard by
+// ShardRoutingAspect and passed on; creating users, renaming them and listing across shards go
+// through the user directory and fan out here.
+@Slf4j
+public class ShardedUserService implements UserService {
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO users (id, username, email, first_name, last_name) VALUES (?, ?, ?, ?, ?)";
+
+    private final UserService delegate;
+    private final ShardRouter router;
+    private final UserDirectory directory;
+
+    public ShardedUserService(UserService delegate, ShardRouter router, UserDirectory directory) {
+        this.delegate = delegate;
+        this.router = router;
+        this.directory = directory;
+    }
+
+    // The directory claims the username and email and picks the ID, and with it the shard
+    @Override
+    public UserDto createUser(UserDto userDto) {
+        log.debug("Creating new user with username: {}", userDto.getUsername());
+
+        long id = directory.reserve(userDto.getUsername(), userDto.getEmail());
+        String shard = router.shardFor(id);
+        try {
+            new JdbcTemplate(router.dataSource(shard)).update(INSERT_USER_SQL, id, userDto.getUsername(),
+                    userDto.getEmail(), userDto.getFirstName(), userDto.getLastName());
+        } catch (RuntimeException ex) {
+            directory.remove(id);
+            throw ex;
+        }
+        log.info("User created with ID: {} on {}", id, shard);
+
+        return UserDto.builder()
+                .id(id)
+                .username(userDto.getUsername())
+                .email(userDto.getEmail())
+                .firstName(userDto.getFirstName())
+                .lastName(userDto.getLastName())
+                .version(0L)
+                .build();
+    }
+
+    @Override
+    public UserDto getUserById(Long id) {
+        return delegate.getUserById(id);
+    }
+
+    @Override
+    public List<UserDto> getAllUsers() {
+        log.debug("Fetching all users from {} shards", router.getShards().size());
+
+        List<UserDto> users = new ArrayList<>();
+        router.onEachShard(delegate::getAllUsers).forEach(users::addAll);
+        users.sort(Comparator.comparing(UserDto::getId));
+        return users;
+    }
+
+    @Override
+    public UserDto updateUser(Long id, UserDto userDto) {
+        return renamed(id, userDto.getUsername(), userDto.getEmail(), () -> delegate.updateUser(id, userDto));
+    }
+
+    @Override
+    public UserDto updateUser(Long id, UserDto userDto, long expectedVersion) {
+        return renamed(id, userDto.getUsername(), userDto.getEmail(),
+                () -> delegate.updateUser(id, userDto, expectedVersion));
+    }
+
+    @Override
+    public UserDto patchUser(Long id, Map<String, Object> patch, Long expectedVersion) {
+        UserDirectory.Entry current = directory.find(id).orElse(null);
+        if (current == null) {
+            return delegate.patchUser(id, patch, expectedVersion);
+        }
+        String username = patch.get("username") instanceof String value ? value : current.username();
+        String email = patch.get("email") instanceof String value ? value : current.email();
+        return renamed(id, username, email, () -> delegate.patchUser(id, patch, expectedVersion));
+    }
+
+    @Override
+    public void deleteUser(Long id) {
+        delegate.deleteUser(id);
+        directory.remove(id);
+    }
+
+    // Each shard returns its own best matches for the pages up to the requested one. Shards are
+    // merged by prefix match first and then by rank within their shard, which approximates the
+    // single-database order without the similarity scores.
+    @Override
+    public PageDto<UserDto> searchUsers(String query, int page, int size) {
+        log.debug("Searching users for '{}' page {} size {} on {} shards", query, page, size, router.getShards().size());
+
+        List<PageDto<UserDto>> perShard = router.onEachShard(() -> {
+            List<UserDto> matches = new ArrayList<>();
+            boolean hasNext = false;
+            for (int current = 0; current <= page; current++) {
+                PageDto<UserDto> result = delegate.searchUsers(query, current, size);
+                matches.addAll(result.getContent());
+                hasNext = result.isHasNext();
+                if (!hasNext) {
+                    break;
+                }
+            }
+            return PageDto.<UserDto>builder().content(matches).page(0).size(matches.size()).hasNext(hasNext).build();
+        });
+
+        String prefix = query.trim().toLowerCase(Locale.ROOT);
+        List<Ranked> ranked = new ArrayList<>();
+        boolean more = false;
+        for (PageDto<UserDto> shardPage : perShard) {
+            List<UserDto> matches = shardPage.getContent();
+            for (int rank = 0; rank < matches.size(); rank++) {
+                ranked.add(new Ranked(matches.get(rank), startsWith(matches.get(rank), prefix), rank));
+            }
+            more |= shardPage.isHasNext();
+        }
+        ranked.sort(Comparator.comparing((Ranked r) -> !r.prefixMatch())
+                .thenComparingInt(Ranked::rank)
+                .thenComparing(r -> r.user().getId()));
+
+        int from = Math.min(page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        return PageDto.<UserDto>builder()
+                .content(ranked.subList(from, to).stream().map(Ranked::user).toList())
+                .page(page)
+                .size(size)
+                .hasNext(to < ranked.size() || more)
+                .build();
+    }
+
+    // The directory takes the new username and email first so the unique constraints decide races
+    // between shards; if the shard rejects the change the old values are put back.
+    private UserDto renamed(Long id, String username, String email, Supplier<UserDto> update) {
+        UserDirectory.Entry previous = directory.find(id)
+                .orElseThrow(() -> {
+                    log.error("User not found with ID: {}", id);
+                    return new EntityNotFoundException("User not found with ID: " + id);
+                });
+        boolean changed = !previous.username().equals(username) || !previous.email().equals(email);
+        if (changed) {
+            directory.update(id, username, email);
+        }
+        try {
+            return update.get();
+        } catch (RuntimeException ex) {
+            if (changed) {
+                directory.update(id, previous.username(), previous.email());
+            }
+            throw ex;
+        }
+    }
+
+    private static boolean startsWith(UserDto user, String prefix) {
+        return user.getUsername().toLowerCase(Locale.ROOT).startsWith(prefix)
+                || user.getEmail().toLowerCase(Locale.ROOT).startsWith(prefix)
+                || user.getFirstName().toLowerCase(Locale.ROOT).startsWith(prefix)
+                || user.getLastName().toLowerCase(Locale.ROOT).startsWith(prefix);
+    }
+
+    private record Ranked(UserDto user, boolean prefixMatch, int rank) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.subscription.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "subscription.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+    private int virtualNodes = 256;
+    private int fanOutThreads = 8;
+    private int rebalanceBatchSize = 500;
+    // Only ever append: the position of a shard fixes its block of subscription IDs
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,78 @@
+package com.subscription.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Optional;
+
+// The user_directory table in the directory database. It hands out user IDs, which decide the shard,
+// and its unique constraints keep usernames and emails unique across all shards.
+@Slf4j
+public class UserDirectory {
+
+    private static final String INSERT_SQL = "INSERT INTO user_directory (username, email) VALUES (?, ?)";
+    private static final String UPDATE_SQL = "UPDATE user_directory SET username = ?, email = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM user_directory WHERE id = ?";
+    private static final String FIND_SQL = "SELECT username, email FROM user_directory WHERE id = ?";
+    private static final String USERNAME_TAKEN_SQL =
+            "SELECT COUNT(*) FROM user_directory WHERE username = ? AND id <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserDirectory(DataSource directory) {
+        this.jdbcTemplate = new JdbcTemplate(directory);
+    }
+
+    // Claims the username and email and returns the new user's ID
+    public long reserve(String username, String email) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[] {"id"});
+                statement.setString(1, username);
+                statement.setString(2, email);
+                return statement;
+            }, keyHolder);
+        } catch (DuplicateKeyException ex) {
+            throw conflict(username, -1);
+        }
+        return keyHolder.getKey().longValue();
+    }
+
+    public Optional<Entry> find(long id) {
+        List<Entry> entries = jdbcTemplate.query(FIND_SQL,
+                (rs, rowNum) -> new Entry(rs.getString("username"), rs.getString("email")), id);
+        return entries.stream().findFirst();
+    }
+
+    public void update(long id, String username, String email) {
+        try {
+            jdbcTemplate.update(UPDATE_SQL, username, email, id);
+        } catch (DuplicateKeyException ex) {
+            throw conflict(username, id);
+        }
+    }
+
+    public void remove(long id) {
+        jdbcTemplate.update(DELETE_SQL, id);
+    }
+
+    private IllegalArgumentException conflict(String username, long id) {
+        Integer taken = jdbcTemplate.queryForObject(USERNAME_TAKEN_SQL, Integer.class, username, id);
+        if (taken != null && taken > 0) {
+            log.error("Username already exists: {}", username);
+            return new IllegalArgumentException("Username already exists");
+        }
+        log.error("Email already exists for username: {}", username);
+        return new IllegalArgumentException("Email already exists");
+    }
+
+    public record Entry(String username, String email) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.subscription.sql;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final StatementAccountingListener listener;
+
+    public DataSourceProxyPostProcessor(StatementAccountingListener listener) {
+        this.listener = listener;
+    }
+
+    // A routing source only hands out connections of the sources it routes to, and those are proxied
+    // themselves; proxying both would count every statement twice
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof AbstractRoutingDataSource)) {
+            return proxy(dataSource, beanName);
+        }
+        return bean;
+    }
+
+    // For pools that are not beans of their own, such as the shards
+    public DataSource proxy(DataSource dataSource, String name) {
+        if (dataSource instanceof ProxyDataSource) {
+            return dataSource;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(name)
+                .listener(listener)
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.subscription.sql;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+@Aspect
+public class ServiceMethodAttributionAspect {
+
+    @Around("execution(public * com.subscription.service..*Service.*(..))")
+    public Object attribute(ProceedingJoinPoint joinPoint) throws Throwable {
+        SqlStatementTracker.enterMethod(joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SqlStatementTracker.exitMethod();
+        }
+    }
+}
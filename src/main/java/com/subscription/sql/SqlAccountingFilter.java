@@ -0,0 +1,82 @@
+package com.subscription.sql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+
+@Slf4j
+public class SqlAccountingFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final long maxMillis;
+
+    public SqlAccountingFilter(MeterRegistry meterRegistry, int maxStatements, Duration maxTime) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxMillis = maxTime.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementTracker.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatementTracker.close(stats);
+            report(endpoint(request), stats);
+        }
+    }
+
+    private void report(String endpoint, SqlStatementStats stats) {
+        DistributionSummary.builder("sql.request.statements")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("sql.request.time")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(stats.getElapsedMillis()));
+        stats.getStatementsByMethod().forEach((method, count) ->
+                Counter.builder("sql.statements")
+                        .tag("endpoint", endpoint)
+                        .tag("method", method)
+                        .register(meterRegistry)
+                        .increment(count));
+
+        if (stats.getStatements() > maxStatements) {
+            exceeded(endpoint, "count");
+            log.warn("{} exceeded statement budget of {}: {}", endpoint, maxStatements, stats);
+        }
+        if (stats.getElapsedMillis() > maxMillis) {
+            exceeded(endpoint, "duration");
+            log.warn("{} exceeded SQL time budget of {} ms: {}", endpoint, maxMillis, stats);
+        }
+    }
+
+    private void exceeded(String endpoint, String budget) {
+        Counter.builder("sql.request.budget.exceeded")
+                .tag("endpoint", endpoint)
+                .tag("budget", budget)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // The matched handler pattern keeps the tag cardinality bounded, unlike the raw URI
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED");
+    }
+}
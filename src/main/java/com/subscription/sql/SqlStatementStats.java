@@ -0,0 +1,35 @@
+package com.subscription.sql;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SqlStatementStats {
+
+    private int statements;
+    private long elapsedMillis;
+    private final Map<String, Integer> statementsByMethod = new LinkedHashMap<>();
+
+    void record(String method, long millis) {
+        statements++;
+        elapsedMillis += millis;
+        statementsByMethod.merge(method, 1, Integer::sum);
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public Map<String, Integer> getStatementsByMethod() {
+        return Collections.unmodifiableMap(statementsByMethod);
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements in " + elapsedMillis + " ms " + statementsByMethod;
+    }
+}
@@ -0,0 +1,75 @@
+package com.subscription.sql;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Thread-bound accounting: every open scope on the executing thread sees each statement, so a test capture
+// and the request scope opened by SqlAccountingFilter can observe the same work
+public final class SqlStatementTracker {
+
+    static final String NO_METHOD = "none";
+
+    private static final ThreadLocal<List<SqlStatementStats>> SCOPES = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<String>> METHODS = new ThreadLocal<>();
+
+    private SqlStatementTracker() {
+    }
+
+    public static SqlStatementStats open() {
+        List<SqlStatementStats> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayList<>();
+            SCOPES.set(scopes);
+        }
+        SqlStatementStats stats = new SqlStatementStats();
+        scopes.add(stats);
+        return stats;
+    }
+
+    public static void close(SqlStatementStats stats) {
+        List<SqlStatementStats> scopes = SCOPES.get();
+        if (scopes != null) {
+            scopes.remove(stats);
+            if (scopes.isEmpty()) {
+                SCOPES.remove();
+            }
+        }
+    }
+
+    static void enterMethod(String method) {
+        Deque<String> methods = METHODS.get();
+        if (methods == null) {
+            methods = new ArrayDeque<>();
+            METHODS.set(methods);
+        }
+        methods.push(method);
+    }
+
+    static void exitMethod() {
+        Deque<String> methods = METHODS.get();
+        if (methods != null) {
+            methods.pop();
+            if (methods.isEmpty()) {
+                METHODS.remove();
+            }
+        }
+    }
+
+    static String currentMethod() {
+        Deque<String> methods = METHODS.get();
+        return methods == null ? NO_METHOD : methods.peek();
+    }
+
+    static void record(long elapsedMillis) {
+        List<SqlStatementStats> scopes = SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        String method = currentMethod();
+        for (SqlStatementStats stats : scopes) {
+            stats.record(method, elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.subscription.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class StatementAccountingListener implements QueryExecutionListener {
+
+    private static final int MAX_LOGGED_SQL_LENGTH = 1000;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long slowQueryMillis;
+
+    public StatementAccountingListener(ObjectProvider<MeterRegistry> meterRegistry, Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryMillis = slowQueryThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        SqlStatementTracker.record(elapsed);
+
+        if (elapsed >= slowQueryMillis) {
+            String method = SqlStatementTracker.currentMethod();
+            // Only the prepared SQL text is logged; bind values may carry personal data
+            log.warn("Slow query ({} ms) in {}: {} [{} bind parameter set(s) redacted]",
+                    elapsed, method, sql(queryInfoList), execInfo.isBatch() ? execInfo.getBatchSize() : 1);
+            meterRegistry.ifAvailable(registry -> registry.counter("sql.slow.queries", "method", method).increment());
+        }
+    }
+
+    private static String sql(List<QueryInfo> queryInfoList) {
+        String sql = queryInfoList.stream()
+                .map(QueryInfo::getQuery)
+                .collect(Collectors.joining("; "));
+        return sql.length() > MAX_LOGGED_SQL_LENGTH ? sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "..." : sql;
+    }
+}
@@ -0,0 +1,9 @@
+package com.subscription.stream;
+
+// What the hub does once a client's send queue is full
+public enum StreamOverflowPolicy {
+    // Discards the queued events and tells the client to reload its subscription list
+    RESYNC,
+    // Closes the stream; EventSource clients reconnect and start from a fresh snapshot
+    DISCONNECT
+}
@@ -0,0 +1,363 @@
+package com.subscription.stream;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.UserDeletedEvent;
+import com.subscription.exception.TooManyStreamsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+// Fans committed subscription changes out to SSE clients. Connections are Servlet async requests, so an
+// idle stream costs a socket and a small queue, not a thread. Publishers only append to a client's
+// bounded queue; a shared sender pool does the writes, one drain per client at a time. When a queue fills
+// up the overflow policy either replaces its contents with a resync event or closes the stream. A write
+// blocks its sender thread while the client's socket buffer is full, so a write that outlives the send
+// timeout drops the client and interrupts the thread; otherwise a few stalled clients would take the pool
+// from everyone else. Events only reach clients connected to the instance that made the change.
+@Slf4j
+public class SubscriptionStreamHub implements AutoCloseable {
+
+    static final String SNAPSHOT = "snapshot";
+    static final String ADDED = "subscription-added";
+    static final String DELETED = "subscription-deleted";
+    static final String STATUS = "subscription-status";
+    static final String RESYNC = "resync";
+
+    private static final Message HEARTBEAT = new Message(null, null);
+    private static final Message CLOSE = new Message(null, null);
+
+    private final LongFunction<SseEmitter> emitterFactory;
+    private final Executor senders;
+    private final int queueCapacity;
+    private final int maxConnections;
+    private final long timeoutMillis;
+    private final Duration heartbeatInterval;
+    private final long sendTimeoutNanos;
+    private final StreamOverflowPolicy overflowPolicy;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter overflows;
+    private final Counter droppedEvents;
+    private final Counter stalledSends;
+    private ScheduledExecutorService heartbeats;
+
+    public SubscriptionStreamHub(LongFunction<SseEmitter> emitterFactory,
+                                 Executor senders,
+                                 MeterRegistry meterRegistry,
+                                 int queueCapacity,
+                                 int maxConnections,
+                                 Duration timeout,
+                                 Duration heartbeatInterval,
+                                 Duration sendTimeout,
+                                 StreamOverflowPolicy overflowPolicy) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.emitterFactory = emitterFactory;
+        this.senders = senders;
+        this.queueCapacity = queueCapacity;
+        this.maxConnections = maxConnections;
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatInterval = heartbeatInterval;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.overflowPolicy = overflowPolicy;
+
+        this.overflows = Counter.builder("subscription.stream.overflows")
+                .tag("policy", overflowPolicy.name().toLowerCase()).register(meterRegistry);
+        this.droppedEvents = Counter.builder("subscription.stream.dropped").register(meterRegistry);
+        this.stalledSends = Counter.builder("subscription.stream.stalled").register(meterRegistry);
+        Gauge.builder("subscription.stream.connections", connections, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subscription-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        // Checking every half timeout catches a stalled write within one and a half send timeouts
+        long checkMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) / 2, 1);
+        heartbeats.scheduleAtFixedRate(this::expireStalledSends, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Registers before reading the snapshot, so a change committed in between is delivered as an event.
+    // The snapshot is sent ahead of anything queued meanwhile; clients apply events idempotently by ID.
+    public SseEmitter subscribe(Long userId, Supplier<List<SubscriptionDto>> snapshot) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new TooManyStreamsException("Too many open subscription streams, please retry later");
+        }
+        SseEmitter emitter = emitterFactory.apply(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.compute(userId, (id, targets) -> {
+            Set<Subscriber> updated = targets != null ? targets : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        try {
+            subscriber.start(new Message(SNAPSHOT, snapshot.get()));
+        } catch (RuntimeException ex) {
+            subscriber.close();
+            throw ex;
+        }
+        log.debug("Opened subscription stream for user ID: {}", userId);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubscriptionEvent(SubscriptionEvent event) {
+        Set<Subscriber> targets = subscribers.get(event.getUserId());
+        if (targets == null) {
+            return;
+        }
+        String name = switch (event.getType()) {
+            case CREATED -> ADDED;
+            case DELETED -> DELETED;
+            case EXPIRED, RENEWED -> STATUS;
+        };
+        Message message = new Message(name, toDto(event));
+        targets.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserDeleted(UserDeletedEvent event) {
+        Set<Subscriber> targets = subscribers.get(event.getUserId());
+        if (targets != null) {
+            targets.forEach(subscriber -> subscriber.offer(CLOSE));
+        }
+    }
+
+    // Keeps proxies from timing out idle streams and surfaces dead connections through failed writes
+    public void heartbeat() {
+        subscribers.values().forEach(targets -> targets.forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+    }
+
+    public void expireStalledSends() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(targets -> targets.forEach(subscriber -> subscriber.expireStalledSend(now)));
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    @Override
+    public void close() {
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        subscribers.values().forEach(targets -> targets.forEach(subscriber -> subscriber.offer(CLOSE)));
+        if (senders instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    private static SubscriptionDto toDto(SubscriptionEvent event) {
+        return SubscriptionDto.builder()
+                .id(event.getSubscriptionId())
+                .subscriptionTypeId(event.getSubscriptionTypeId())
+                .startDate(event.getStartDate())
+                .endDate(event.getEndDate())
+                .status(event.getStatus())
+                .autoRenew(event.isAutoRenew())
+                .build();
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(Message message) {
+        if (message == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        return SseEmitter.event().name(message.name()).data(message.data(), MediaType.APPLICATION_JSON);
+    }
+
+    private record Message(String name, Object data) {
+    }
+
+    private final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean registered = new AtomicBoolean(true);
+        private final Deque<Message> queue = new ArrayDeque<>();
+        private boolean started;
+        private boolean draining;
+        private boolean closing;
+        // The thread writing to the client and since when, guarded by this subscriber's lock
+        private Thread sender;
+        private long sendStartedNanos;
+        private boolean stalled;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void start(Message snapshot) {
+            synchronized (this) {
+                queue.addFirst(snapshot);
+                started = true;
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            dispatch();
+        }
+
+        void offer(Message message) {
+            synchronized (this) {
+                if (closing) {
+                    return;
+                }
+                if (message == CLOSE) {
+                    closing = true;
+                } else if (queue.size() >= queueCapacity) {
+                    if (message == HEARTBEAT) {
+                        return;
+                    }
+                    overflow();
+                    return;
+                } else if (message == HEARTBEAT && !queue.isEmpty()) {
+                    return;
+                }
+                queue.add(message);
+                if (!started || draining) {
+                    return;
+                }
+                draining = true;
+            }
+            dispatch();
+        }
+
+        // Called with the lock held; the overflowing message is dropped along with the queue
+        private void overflow() {
+            overflows.increment();
+            droppedEvents.increment(queue.size() + 1);
+            queue.clear();
+            if (overflowPolicy == StreamOverflowPolicy.DISCONNECT) {
+                log.debug("Closing subscription stream of slow client for user ID: {}", userId);
+                closing = true;
+                queue.add(CLOSE);
+            } else {
+                queue.add(new Message(RESYNC, Map.of("userId", userId)));
+            }
+        }
+
+        private void dispatch() {
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                close();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Message message;
+                synchronized (this) {
+                    message = queue.poll();
+                    if (message == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (message == CLOSE) {
+                    close();
+                    emitter.complete();
+                    return;
+                }
+                synchronized (this) {
+                    sender = Thread.currentThread();
+                    sendStartedNanos = System.nanoTime();
+                }
+                try {
+                    emitter.send(toEvent(message));
+                } catch (IOException | IllegalStateException ex) {
+                    // The client went away; the container reports the failure and ends the request itself
+                    log.debug("Dropping subscription stream for user ID {}: {}", userId, ex.getMessage());
+                    close();
+                    return;
+                } finally {
+                    synchronized (this) {
+                        sender = null;
+                        // An interrupt meant for this write must not reach the next client's drain
+                        Thread.interrupted();
+                    }
+                }
+                if (isStalled()) {
+                    emitter.complete();
+                    return;
+                }
+            }
+        }
+
+        void expireStalledSend(long now) {
+            synchronized (this) {
+                if (sender == null || stalled || now - sendStartedNanos < sendTimeoutNanos) {
+                    return;
+                }
+                stalled = true;
+                sender.interrupt();
+            }
+            stalledSends.increment();
+            log.debug("Dropping subscription stream with a stalled write for user ID: {}", userId);
+            close();
+        }
+
+        // A stalled write that went through after all leaves a client nobody sends to any more
+        private synchronized boolean isStalled() {
+            return stalled;
+        }
+
+        void close() {
+            synchronized (this) {
+                closing = true;
+                queue.clear();
+            }
+            if (!registered.compareAndSet(true, false)) {
+                return;
+            }
+            subscribers.computeIfPresent(userId, (id, targets) -> {
+                targets.remove(this);
+                return targets.isEmpty() ? null : targets;
+            });
+            connections.decrementAndGet();
+        }
+    }
+}
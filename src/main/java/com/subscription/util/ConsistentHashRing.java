@@ -0,0 +1,72 @@
+package com.subscription.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Places every node at many points on a 64-bit ring and maps a key to the first node clockwise of its
+// hash. Adding a node only takes over the keys that now land on its points, about 1/N of them, and
+// leaves every other key where it was.
+public class ConsistentHashRing {
+
+    private final List<String> nodes;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(nodes);
+        if (distinct.size() != nodes.size()) {
+            throw new IllegalArgumentException("Node names must be unique");
+        }
+        this.nodes = List.copyOf(distinct);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On the rare collision the node listed first keeps the point, so the ring does not depend on map order
+                ring.putIfAbsent(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public String nodeFor(long key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(mix(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public ConsistentHashRing withNode(String node, int virtualNodes) {
+        List<String> grown = new ArrayList<>(nodes);
+        grown.add(node);
+        return new ConsistentHashRing(grown, virtualNodes);
+    }
+
+    // 64-bit FNV-1a over the UTF-16 code units followed by the MurmurHash3 finalizer
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
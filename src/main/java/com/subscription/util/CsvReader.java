@@ -0,0 +1,87 @@
+package com.subscription.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streaming RFC 4180 reader: quoted values may contain commas, doubled quotes and line breaks.
+// Reads through its own buffer so the per-character cost stays off the Reader's lock.
+public class CsvReader {
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder value = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Returns null at end of input
+    public String[] readRow() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        while (true) {
+            value.setLength(0);
+            if (c == '"') {
+                c = readQuoted();
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    value.append((char) c);
+                    c = read();
+                }
+            }
+            values.add(value.toString());
+            if (c == ',') {
+                c = read();
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                skipLineFeed = c == '\r';
+                return values.toArray(String[]::new);
+            } else {
+                throw new IllegalArgumentException("Unexpected character after quoted CSV value: " + (char) c);
+            }
+        }
+    }
+
+    // Consumes a quoted value into the buffer and returns the character following the closing quote
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IllegalArgumentException("Unterminated quoted CSV value");
+            }
+            if (c == '"') {
+                c = read();
+                if (c != '"') {
+                    return c;
+                }
+            }
+            value.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (c == '\n') {
+                return read();
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,90 @@
+package com.subscription.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gradient-style adaptive limit: shrinks when sampled latency rises above the long-term baseline
+// and grows by roughly sqrt(limit) while latency stays close to it
+public class GradientLimiter {
+
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double longRttDecay;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double longRttNanos;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit,
+                           double smoothing, double rttTolerance, int longWindow) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (smoothing <= 0 || smoothing > 1 || rttTolerance < 1 || longWindow < 1) {
+            throw new IllegalArgumentException("Invalid smoothing, tolerance or window");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.longRttDecay = 2.0 / (longWindow + 1);
+    }
+
+    // share < 1 caps a lower-priority class below the full limit so higher-priority work keeps headroom
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized void onSample(long rttNanos, boolean dropped) {
+        if (dropped) {
+            setLimit(limit * DROP_BACKOFF);
+            return;
+        }
+        double shortRtt = Math.max(1, rttNanos);
+        longRttNanos = longRttNanos == 0 ? shortRtt : longRttNanos + (shortRtt - longRttNanos) * longRttDecay;
+
+        // Let the baseline recover quickly once an overload has passed
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRtt));
+
+        // Far below the limit the latency says nothing about spare capacity, so only a rise may shrink it
+        boolean appLimited = inFlight.get() < limit / 2;
+        if (appLimited && gradient >= 1.0) {
+            return;
+        }
+        double newLimit = limit * gradient + (appLimited ? 0 : Math.sqrt(limit));
+        setLimit(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,184 @@
+package com.subscription.util;
+
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel: level 0 has one bucket per tick, each higher level covers a whole
+// rotation of the level below per bucket. Timers live in intrusive doubly-linked lists, so schedule
+// and cancel are O(1) regardless of how many are pending. Higher-level buckets are cascaded down
+// when the level below wraps. Not thread-safe; callers serialize access.
+public class HierarchicalTimingWheel<T> {
+
+    private final long origin;
+    private final long tickMillis;
+    private final int wheelBits;
+    private final int mask;
+    private final Bucket<T>[][] levels;
+    private final long maxDelta;
+
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelBits, int levelCount, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (wheelBits < 1 || levelCount < 1 || (long) wheelBits * levelCount > 62) {
+            throw new IllegalArgumentException("Wheel must have between 2 and 2^62 ticks in total");
+        }
+        this.origin = startMillis;
+        this.tickMillis = tickMillis;
+        this.wheelBits = wheelBits;
+        this.mask = (1 << wheelBits) - 1;
+        this.levels = new Bucket[levelCount][1 << wheelBits];
+        for (Bucket<T>[] level : levels) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Bucket<>();
+            }
+        }
+        this.maxDelta = (1L << (wheelBits * levelCount)) - 1;
+    }
+
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        // Rounded up so a timer never fires before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis - origin + tickMillis - 1, tickMillis);
+        Timeout<T> timeout = new Timeout<>(payload, deadlineMillis, deadlineTick);
+        place(timeout, 1);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    // Moves time forward and hands every timer whose deadline has passed to the consumer, tick by tick
+    public int advanceTo(long nowMillis, Consumer<T> onExpired) {
+        long targetTick = Math.floorDiv(nowMillis - origin, tickMillis);
+        int expired = 0;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            cascade();
+            Bucket<T> bucket = levels[0][(int) (currentTick & mask)];
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                size--;
+                expired++;
+                onExpired.accept(timeout.payload);
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    // New timers go at least one tick ahead, since the current tick has already fired; cascaded
+    // timers may land on the current tick, which is processed right after the cascade
+    private void place(Timeout<T> timeout, long minDelta) {
+        long delta = Math.max(minDelta, timeout.deadlineTick - currentTick);
+        long tick = currentTick + Math.min(delta, maxDelta);
+        int level = 0;
+        while (delta >= 1L << (wheelBits * (level + 1)) && level < levels.length - 1) {
+            level++;
+        }
+        levels[level][(int) ((tick >>> (wheelBits * level)) & mask)].add(timeout);
+    }
+
+    // When the lower digits of the tick wrap to zero, the matching higher-level bucket now covers
+    // the current span and its timers are re-placed closer to level 0
+    private void cascade() {
+        for (int level = 1; level < levels.length; level++) {
+            if ((currentTick & ((1L << (wheelBits * level)) - 1)) != 0) {
+                return;
+            }
+            Bucket<T> bucket = levels[level][(int) ((currentTick >>> (wheelBits * level)) & mask)];
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                place(timeout, 0);
+            }
+        }
+    }
+
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private Bucket<T> bucket;
+
+        private Timeout(T payload, long deadlineMillis, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        Timeout<T> poll() {
+            Timeout<T> timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
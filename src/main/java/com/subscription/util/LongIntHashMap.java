@@ -0,0 +1,194 @@
+package com.subscription.util;
+
+// Open-addressing hash map from long to int with linear probing, so millions of entries cost two
+// flat arrays instead of boxed keys, values and entry objects. Removal shifts the following run
+// back instead of leaving tombstones. Key 0 marks a free slot and is kept in a separate field.
+// Not thread-safe; callers serialize access.
+public class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    private final int missingValue;
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap(int expectedSize, int missingValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        this.missingValue = missingValue;
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == 0) {
+                return missingValue;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    // Returns the previous value, or the missing value if the key was absent
+    public int put(long key, int value) {
+        if (key == 0) {
+            int previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int slot = slot(key);
+        for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    // Adds delta to the current value, treating an absent key as zero, and returns the new value
+    public int addTo(long key, int delta) {
+        int updated = (containsKey(key) ? get(key) : 0) + delta;
+        put(key, updated);
+        return updated;
+    }
+
+    // Returns the removed value, or the missing value if the key was absent
+    public int remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return missingValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == 0) {
+                return missingValue;
+            }
+            if (current == key) {
+                int previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // Moves entries that probed past the freed slot back into it until the run ends
+    private void shiftBack(int freed) {
+        int slot = freed;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == 0) {
+                break;
+            }
+            int home = slot(key);
+            // The entry may fill the gap only if its home slot is not cyclically between the gap and itself
+            boolean between = freed <= slot ? freed < home && home <= slot : freed < home || home <= slot;
+            if (!between) {
+                keys[freed] = key;
+                values[freed] = values[slot];
+                freed = slot;
+            }
+        }
+        keys[freed] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long hash = key * PHI;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR) + 1;
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Expected size is too large");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
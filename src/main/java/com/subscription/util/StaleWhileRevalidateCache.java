@@ -0,0 +1,136 @@
+package com.subscription.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+public class StaleWhileRevalidateCache<T> {
+
+    private final long freshNanos;
+    private final long maxStaleNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<Entry<T>> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+
+    private final Counter freshHits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter loadSuccesses;
+    private final Counter loadFailures;
+
+    public StaleWhileRevalidateCache(String name, Duration freshFor, Duration maxStale, Executor refreshExecutor,
+                                     LongSupplier nanoClock, MeterRegistry meterRegistry) {
+        if (freshFor.isNegative() || maxStale.isNegative()) {
+            throw new IllegalArgumentException("Freshness and staleness windows must not be negative");
+        }
+        this.freshNanos = freshFor.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.nanoClock = nanoClock;
+
+        this.freshHits = requests(name, "fresh", meterRegistry);
+        this.staleHits = requests(name, "stale", meterRegistry);
+        this.misses = requests(name, "miss", meterRegistry);
+        this.coalesced = requests(name, "coalesced", meterRegistry);
+        this.loadSuccesses = Counter.builder(name + ".loads").tag("outcome", "success").register(meterRegistry);
+        this.loadFailures = Counter.builder(name + ".loads").tag("outcome", "failure").register(meterRegistry);
+        Gauge.builder(name + ".age", this, cache -> cache.ageNanos() / 1e9)
+                .baseUnit("seconds").register(meterRegistry);
+    }
+
+    public T get(Supplier<T> loader) {
+        Entry<T> entry = current.get();
+        if (entry != null) {
+            long age = nanoClock.getAsLong() - entry.loadedAt();
+            if (age <= freshNanos) {
+                freshHits.increment();
+                return entry.value();
+            }
+            if (age <= freshNanos + maxStaleNanos) {
+                staleHits.increment();
+                refreshInBackground(loader);
+                return entry.value();
+            }
+        }
+        return load(loader);
+    }
+
+    public void invalidate() {
+        current.set(null);
+    }
+
+    private T load(Supplier<T> loader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.compareAndExchange(null, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        misses.increment();
+        run(loader, future);
+        return await(future);
+    }
+
+    private void refreshInBackground(Supplier<T> loader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!inFlight.compareAndSet(null, future)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> run(loader, future));
+        } catch (RejectedExecutionException ex) {
+            inFlight.compareAndSet(future, null);
+            future.completeExceptionally(ex);
+        }
+    }
+
+    private void run(Supplier<T> loader, CompletableFuture<T> future) {
+        try {
+            T value = loader.get();
+            current.set(new Entry<>(value, nanoClock.getAsLong()));
+            loadSuccesses.increment();
+            future.complete(value);
+        } catch (RuntimeException ex) {
+            // A failed background refresh keeps serving the previous value until it is too stale
+            loadFailures.increment();
+            future.completeExceptionally(ex);
+        } finally {
+            inFlight.compareAndSet(future, null);
+        }
+    }
+
+    private T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private long ageNanos() {
+        Entry<T> entry = current.get();
+        return entry == null ? 0 : nanoClock.getAsLong() - entry.loadedAt();
+    }
+
+    private static Counter requests(String name, String result, MeterRegistry meterRegistry) {
+        return Counter.builder(name + ".requests").tag("result", result).register(meterRegistry);
+    }
+
+    private record Entry<T>(T value, long loadedAt) {
+    }
+}
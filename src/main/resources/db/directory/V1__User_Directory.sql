@@ -0,0 +1,11 @@
+-- Applied by ShardMigrator to the directory database only: user IDs are allocated here and
+-- usernames and emails stay unique across shards
+CREATE TABLE user_directory (
+    id BIGSERIAL PRIMARY KEY,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    email VARCHAR(100) NOT NULL UNIQUE
+);
+
+-- Existing users keep their IDs, so a database that becomes the first shard needs no rewrite
+INSERT INTO user_directory (id, username, email) SELECT id, username, email FROM users;
+SELECT setval(pg_get_serial_sequence('user_directory', 'id'), COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
@@ -0,0 +1,2 @@
+-- Set when an instance claims the expiry reminder, so that only one of several instances sends it
+ALTER TABLE subscriptions ADD COLUMN reminded_at TIMESTAMP WITH TIME ZONE;
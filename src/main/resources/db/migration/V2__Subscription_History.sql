@@ -0,0 +1,14 @@
+CREATE TABLE subscription_history (
+    id BIGSERIAL PRIMARY KEY,
+    subscription_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    subscription_type_id BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    start_date TIMESTAMP WITH TIME ZONE,
+    end_date TIMESTAMP WITH TIME ZONE,
+    recorded_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- History is append-only: no foreign keys, so rows outlive deleted users and subscriptions
+CREATE INDEX idx_subscription_history_user_recorded ON subscription_history (user_id, recorded_at);
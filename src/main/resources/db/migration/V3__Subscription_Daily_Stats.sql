@@ -0,0 +1,7 @@
+CREATE TABLE subscription_daily_stats (
+    stat_date DATE NOT NULL,
+    subscription_type_id BIGINT NOT NULL,
+    created_count BIGINT NOT NULL DEFAULT 0,
+    cancelled_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (stat_date, subscription_type_id)
+);
@@ -0,0 +1,2 @@
+-- Covers per-user status filters and lets per-status counts run as index-only scans
+CREATE INDEX idx_subscriptions_user_status ON subscriptions (user_id, status);
@@ -0,0 +1,8 @@
+ALTER TABLE subscription_types ADD COLUMN billing_period VARCHAR(20);
+-- The seeded services all bill monthly; types without a period are one-off and simply expire
+UPDATE subscription_types SET billing_period = 'MONTHLY';
+
+ALTER TABLE subscriptions ADD COLUMN auto_renew BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Only due auto-renewing subscriptions are ever claimed, so the index stays a small fraction of the table
+CREATE INDEX idx_subscriptions_renewal_due ON subscriptions (end_date) WHERE status = 'ACTIVE' AND auto_renew;
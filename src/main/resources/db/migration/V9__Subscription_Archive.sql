@@ -0,0 +1,18 @@
+-- Cold storage for subscriptions that ended long ago; rows keep the id they had in subscriptions
+CREATE TABLE subscriptions_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    subscription_type_id BIGINT NOT NULL REFERENCES subscription_types(id),
+    start_date TIMESTAMP WITH TIME ZONE NOT NULL,
+    end_date TIMESTAMP WITH TIME ZONE,
+    status VARCHAR(20) NOT NULL,
+    auto_renew BOOLEAN NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_subscriptions_archive_user ON subscriptions_archive (user_id);
+
+-- Lets the archiver find old cancelled and expired rows without scanning the live ones
+CREATE INDEX idx_subscriptions_archivable ON subscriptions (updated_at) WHERE status IN ('CANCELLED', 'EXPIRED');
@@ -0,0 +1,32 @@
+package com.subscription.reactive.config;
+
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+@Configuration
+@Profile("reactive")
+@EnableR2dbcRepositories(basePackages = "com.subscription.reactive.repository")
+public class ReactiveConfig {
+
+    private static final String REACTIVE_PACKAGE = "com.subscription.reactive";
+
+    // The blocking MVC controllers stay on the classpath; only map handlers from the reactive package
+    @Bean
+    public WebFluxRegistrations reactiveControllerRegistrations() {
+        return new WebFluxRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new RequestMappingHandlerMapping() {
+                    @Override
+                    protected boolean isHandler(Class<?> beanType) {
+                        return super.isHandler(beanType) && beanType.getPackageName().startsWith(REACTIVE_PACKAGE);
+                    }
+                };
+            }
+        };
+    }
+}
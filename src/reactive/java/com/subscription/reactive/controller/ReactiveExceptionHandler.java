@@ -0,0 +1,42 @@
+package com.subscription.reactive.controller;
+
+import com.subscription.dto.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// WebFlux reports @Valid failures as WebExchangeBindException; everything else falls through to GlobalExceptionHandler
+@RestControllerAdvice(basePackages = "com.subscription.reactive.controller")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Profile("reactive")
+@Slf4j
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationExceptions(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getAllErrors().forEach((error) -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            errors.put(fieldName, errorMessage);
+        });
+        log.error("Validation error: {}", errors);
+        return new ResponseEntity<>(
+                ApiResponse.<Map<String, String>>builder()
+                        .success(false)
+                        .message("Validation failed")
+                        .data(errors)
+                        .build(),
+                HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,62 @@
+package com.subscription.reactive.controller;
+
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.reactive.service.ReactiveSubscriptionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveSubscriptionController {
+
+    private final ReactiveSubscriptionService subscriptionService;
+
+    @PostMapping("/users/{userId}/subscriptions")
+    public Mono<ResponseEntity<ApiResponse<SubscriptionDto>>> addSubscription(
+            @PathVariable Long userId,
+            @Valid @RequestBody SubscriptionDto subscriptionDto) {
+        log.info("Received request to add subscription for user ID: {}", userId);
+        return subscriptionService.addSubscription(userId, subscriptionDto)
+                .map(addedSubscription -> new ResponseEntity<>(
+                        ApiResponse.success("Subscription added successfully", addedSubscription),
+                        HttpStatus.CREATED));
+    }
+
+    @GetMapping("/users/{userId}/subscriptions")
+    public Mono<ResponseEntity<ApiResponse<List<SubscriptionDto>>>> getUserSubscriptions(@PathVariable Long userId) {
+        log.info("Received request to get subscriptions for user ID: {}", userId);
+        return subscriptionService.getUserSubscriptions(userId)
+                .collectList()
+                .map(subscriptions -> ResponseEntity.ok(ApiResponse.success(subscriptions)));
+    }
+
+    @DeleteMapping("/users/{userId}/subscriptions/{subscriptionId}")
+    public Mono<ResponseEntity<ApiResponse<Void>>> deleteSubscription(
+            @PathVariable Long userId,
+            @PathVariable Long subscriptionId) {
+        log.info("Received request to delete subscription ID: {} for user ID: {}", subscriptionId, userId);
+        return subscriptionService.deleteSubscription(userId, subscriptionId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(
+                        ApiResponse.<Void>success("Subscription deleted successfully", null))));
+    }
+
+    @GetMapping("/subscriptions/top")
+    public Mono<ResponseEntity<ApiResponse<List<SubscriptionTypeDto>>>> getTopSubscriptions() {
+        log.info("Received request to get top subscriptions");
+        return subscriptionService.getTopSubscriptions()
+                .collectList()
+                .map(topSubscriptions -> ResponseEntity.ok(ApiResponse.success(topSubscriptions)));
+    }
+}
@@ -0,0 +1,63 @@
+package com.subscription.reactive.controller;
+
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.UserDto;
+import com.subscription.reactive.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/users")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    @PostMapping
+    public Mono<ResponseEntity<ApiResponse<UserDto>>> createUser(@Valid @RequestBody UserDto userDto) {
+        log.info("Received request to create user with username: {}", userDto.getUsername());
+        return userService.createUser(userDto)
+                .map(createdUser -> new ResponseEntity<>(
+                        ApiResponse.success("User created successfully", createdUser), HttpStatus.CREATED));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<UserDto>>> getUserById(@PathVariable Long id) {
+        log.info("Received request to get user with ID: {}", id);
+        return userService.getUserById(id)
+                .map(user -> ResponseEntity.ok(ApiResponse.success(user)));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<ApiResponse<List<UserDto>>>> getAllUsers() {
+        log.info("Received request to get all users");
+        return userService.getAllUsers()
+                .collectList()
+                .map(users -> ResponseEntity.ok(ApiResponse.success(users)));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<UserDto>>> updateUser(@PathVariable Long id,
+                                                                 @Valid @RequestBody UserDto userDto) {
+        log.info("Received request to update user with ID: {}", id);
+        return userService.updateUser(id, userDto)
+                .map(updatedUser -> ResponseEntity.ok(ApiResponse.success("User updated successfully", updatedUser)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<Void>>> deleteUser(@PathVariable Long id) {
+        log.info("Received request to delete user with ID: {}", id);
+        return userService.deleteUser(id)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(ApiResponse.<Void>success("User deleted successfully", null))));
+    }
+}
@@ -0,0 +1,50 @@
+package com.subscription.reactive.model;
+
+import com.subscription.model.SubscriptionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+@Table("subscriptions")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionRow {
+
+    @Id
+    private Long id;
+
+    @Column("user_id")
+    private Long userId;
+
+    @Column("subscription_type_id")
+    private Long subscriptionTypeId;
+
+    @Column("start_date")
+    private OffsetDateTime startDate;
+
+    @Column("end_date")
+    private OffsetDateTime endDate;
+
+    private SubscriptionStatus status;
+
+    @Column("auto_renew")
+    private boolean autoRenew;
+
+    @Column("created_at")
+    private OffsetDateTime createdAt;
+
+    @Column("updated_at")
+    private OffsetDateTime updatedAt;
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,28 @@
+package com.subscription.reactive.model;
+
+import com.subscription.model.BillingPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Table("subscription_types")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionTypeRow {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    @Column("billing_period")
+    private BillingPeriod billingPeriod;
+}
@@ -0,0 +1,7 @@
+package com.subscription.reactive.model;
+
+public interface TopSubscriptionTypeView {
+    Long getId();
+    String getName();
+    Long getCount();
+}
@@ -0,0 +1,20 @@
+package com.subscription.reactive.repository;
+
+import com.subscription.reactive.model.SubscriptionRow;
+import com.subscription.reactive.model.TopSubscriptionTypeView;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveSubscriptionRepository extends R2dbcRepository<SubscriptionRow, Long> {
+    Flux<SubscriptionRow> findByUserId(Long userId);
+
+    @Query("SELECT st.id AS id, st.name AS name, COUNT(s.id) AS count " +
+           "FROM subscriptions s JOIN subscription_types st ON st.id = s.subscription_type_id " +
+           "GROUP BY st.id, st.name " +
+           "ORDER BY count DESC " +
+           "LIMIT 3")
+    Flux<TopSubscriptionTypeView> findTopSubscriptionTypes();
+}
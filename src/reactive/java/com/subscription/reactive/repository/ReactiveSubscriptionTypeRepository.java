@@ -0,0 +1,9 @@
+package com.subscription.reactive.repository;
+
+import com.subscription.reactive.model.SubscriptionTypeRow;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveSubscriptionTypeRepository extends R2dbcRepository<SubscriptionTypeRow, Long> {
+}
@@ -0,0 +1,14 @@
+package com.subscription.reactive.repository;
+
+import com.subscription.reactive.model.UserRow;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<UserRow, Long> {
+    Mono<UserRow> findByUsername(String username);
+    Mono<UserRow> findByEmail(String email);
+    Mono<Boolean> existsByUsername(String username);
+    Mono<Boolean> existsByEmail(String email);
+}
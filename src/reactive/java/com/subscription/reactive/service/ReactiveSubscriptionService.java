@@ -0,0 +1,13 @@
+package com.subscription.reactive.service;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveSubscriptionService {
+    Mono<SubscriptionDto> addSubscription(Long userId, SubscriptionDto subscriptionDto);
+    Flux<SubscriptionDto> getUserSubscriptions(Long userId);
+    Mono<Void> deleteSubscription(Long userId, Long subscriptionId);
+    Flux<SubscriptionTypeDto> getTopSubscriptions();
+}
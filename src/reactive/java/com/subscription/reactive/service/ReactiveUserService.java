@@ -0,0 +1,13 @@
+package com.subscription.reactive.service;
+
+import com.subscription.dto.UserDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserService {
+    Mono<UserDto> createUser(UserDto userDto);
+    Mono<UserDto> getUserById(Long id);
+    Flux<UserDto> getAllUsers();
+    Mono<UserDto> updateUser(Long id, UserDto userDto);
+    Mono<Void> deleteUser(Long id);
+}
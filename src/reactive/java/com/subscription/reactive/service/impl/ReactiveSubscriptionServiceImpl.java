@@ -0,0 +1,186 @@
+package com.subscription.reactive.service.impl;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.BillingPeriod;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.reactive.model.SubscriptionRow;
+import com.subscription.reactive.model.SubscriptionTypeRow;
+import com.subscription.reactive.repository.ReactiveSubscriptionRepository;
+import com.subscription.reactive.repository.ReactiveSubscriptionTypeRepository;
+import com.subscription.reactive.repository.ReactiveUserRepository;
+import com.subscription.reactive.service.ReactiveSubscriptionService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalEventPublisher;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveSubscriptionServiceImpl implements ReactiveSubscriptionService {
+
+    private final ReactiveSubscriptionRepository subscriptionRepository;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveSubscriptionTypeRepository subscriptionTypeRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+
+    @Override
+    public Mono<SubscriptionDto> addSubscription(Long userId, SubscriptionDto subscriptionDto) {
+        log.debug("Adding subscription for user ID: {}", userId);
+
+        Mono<Boolean> userExists = userRepository.existsById(userId)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("User not found with ID: {}", userId);
+                    return Mono.error(new EntityNotFoundException("User not found with ID: " + userId));
+                }));
+
+        return userExists
+                .then(findSubscriptionType(subscriptionDto.getSubscriptionTypeId()))
+                .flatMap(subscriptionType -> {
+                    OffsetDateTime now = OffsetDateTime.now(clock);
+                    BillingPeriod billingPeriod = subscriptionType.getBillingPeriod();
+                    boolean autoRenew = Boolean.TRUE.equals(subscriptionDto.getAutoRenew());
+                    if (autoRenew && billingPeriod == null) {
+                        return Mono.error(new IllegalArgumentException(
+                                "Subscription type " + subscriptionType.getName() + " does not renew"));
+                    }
+                    OffsetDateTime startDate = subscriptionDto.getStartDate() != null
+                            ? subscriptionDto.getStartDate().atOffset(ZoneOffset.UTC) : now;
+                    OffsetDateTime endDate = subscriptionDto.getEndDate() != null
+                            ? subscriptionDto.getEndDate().atOffset(ZoneOffset.UTC) : null;
+                    if (autoRenew && endDate == null) {
+                        endDate = billingPeriod.extend(startDate.toInstant()).atOffset(ZoneOffset.UTC);
+                    }
+                    SubscriptionRow subscription = SubscriptionRow.builder()
+                            .userId(userId)
+                            .subscriptionTypeId(subscriptionType.getId())
+                            .startDate(startDate)
+                            .endDate(endDate)
+                            .status(subscriptionDto.getStatus() != null
+                                    ? subscriptionDto.getStatus() : SubscriptionStatus.ACTIVE)
+                            .autoRenew(autoRenew)
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build();
+                    return subscriptionRepository.save(subscription)
+                            .flatMap(saved -> publish(SubscriptionEventType.CREATED, saved).thenReturn(saved))
+                            .map(saved -> mapToDto(saved, subscriptionType.getName()));
+                })
+                .doOnNext(saved -> log.info("Subscription added with ID: {} for user ID: {}", saved.getId(), userId))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Flux<SubscriptionDto> getUserSubscriptions(Long userId) {
+        log.debug("Fetching subscriptions for user ID: {}", userId);
+
+        return userRepository.existsById(userId)
+                .flatMapMany(exists -> {
+                    if (!exists) {
+                        log.error("User not found with ID: {}", userId);
+                        return Flux.error(new EntityNotFoundException("User not found with ID: " + userId));
+                    }
+                    return subscriptionRepository.findByUserId(userId).collectList()
+                            .flatMapMany(subscriptions -> subscriptionTypeRepository
+                                    .findAllById(subscriptions.stream().map(SubscriptionRow::getSubscriptionTypeId).distinct().toList())
+                                    .collectMap(SubscriptionTypeRow::getId, SubscriptionTypeRow::getName)
+                                    .flatMapMany(typeNames -> Flux.fromIterable(subscriptions)
+                                            .map(subscription -> mapToDto(subscription, typeNames))));
+                });
+    }
+
+    @Override
+    public Mono<Void> deleteSubscription(Long userId, Long subscriptionId) {
+        log.debug("Deleting subscription ID: {} for user ID: {}", subscriptionId, userId);
+
+        return subscriptionRepository.findById(subscriptionId)
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("Subscription not found with ID: {}", subscriptionId);
+                    return Mono.error(new EntityNotFoundException("Subscription not found with ID: " + subscriptionId));
+                }))
+                .flatMap(subscription -> {
+                    if (!subscription.getUserId().equals(userId)) {
+                        log.error("Subscription ID: {} does not belong to user ID: {}", subscriptionId, userId);
+                        return Mono.error(new IllegalArgumentException("Subscription does not belong to user"));
+                    }
+                    return subscriptionRepository.delete(subscription)
+                            .then(publish(SubscriptionEventType.DELETED, subscription));
+                })
+                .doOnSuccess(ignored -> log.info("Subscription deleted with ID: {}", subscriptionId))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Flux<SubscriptionTypeDto> getTopSubscriptions() {
+        log.debug("Fetching top subscriptions");
+
+        return subscriptionRepository.findTopSubscriptionTypes()
+                .map(row -> SubscriptionTypeDto.builder()
+                        .id(row.getId())
+                        .name(row.getName())
+                        .count(row.getCount())
+                        .build());
+    }
+
+    private Mono<SubscriptionTypeRow> findSubscriptionType(Long subscriptionTypeId) {
+        return subscriptionTypeRepository.findById(subscriptionTypeId)
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("Subscription type not found with ID: {}", subscriptionTypeId);
+                    return Mono.error(new EntityNotFoundException("Subscription type not found with ID: " + subscriptionTypeId));
+                }));
+    }
+
+    // Delivered to the @TransactionalEventListener consumers once the reactive transaction commits
+    private Mono<Void> publish(SubscriptionEventType type, SubscriptionRow subscription) {
+        return new TransactionalEventPublisher(eventPublisher).publishEvent(SubscriptionEvent.builder()
+                .type(type)
+                .subscriptionId(subscription.getId())
+                .userId(subscription.getUserId())
+                .subscriptionTypeId(subscription.getSubscriptionTypeId())
+                .status(subscription.getStatus())
+                .startDate(toInstant(subscription.getStartDate()))
+                .endDate(toInstant(subscription.getEndDate()))
+                .autoRenew(subscription.isAutoRenew())
+                .occurredAt(clock.instant())
+                .build());
+    }
+
+    private SubscriptionDto mapToDto(SubscriptionRow subscription, Map<Long, String> typeNames) {
+        return mapToDto(subscription, typeNames.get(subscription.getSubscriptionTypeId()));
+    }
+
+    private SubscriptionDto mapToDto(SubscriptionRow subscription, String subscriptionTypeName) {
+        return SubscriptionDto.builder()
+                .id(subscription.getId())
+                .subscriptionTypeId(subscription.getSubscriptionTypeId())
+                .subscriptionTypeName(subscriptionTypeName)
+                .startDate(toInstant(subscription.getStartDate()))
+                .endDate(toInstant(subscription.getEndDate()))
+                .status(subscription.getStatus())
+                .autoRenew(subscription.isAutoRenew())
+                .build();
+    }
+
+    private static Instant toInstant(OffsetDateTime value) {
+        return value != null ? value.toInstant() : null;
+    }
+}
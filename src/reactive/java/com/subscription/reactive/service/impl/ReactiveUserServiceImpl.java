@@ -0,0 +1,140 @@
+package com.subscription.reactive.service.impl;
+
+import com.subscription.dto.UserDto;
+import com.subscription.reactive.model.UserRow;
+import com.subscription.reactive.repository.ReactiveUserRepository;
+import com.subscription.reactive.service.ReactiveUserService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private final ReactiveUserRepository userRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final Clock clock;
+
+    @Override
+    public Mono<UserDto> createUser(UserDto userDto) {
+        log.debug("Creating new user with username: {}", userDto.getUsername());
+
+        return ensureUsernameAvailable(userDto.getUsername())
+                .then(ensureEmailAvailable(userDto.getEmail()))
+                .then(Mono.defer(() -> {
+                    OffsetDateTime now = OffsetDateTime.now(clock);
+                    return userRepository.save(UserRow.builder()
+                            .username(userDto.getUsername())
+                            .email(userDto.getEmail())
+                            .firstName(userDto.getFirstName())
+                            .lastName(userDto.getLastName())
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build());
+                }))
+                .doOnNext(saved -> log.info("User created with ID: {}", saved.getId()))
+                .map(this::mapToDto)
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<UserDto> getUserById(Long id) {
+        log.debug("Fetching user with ID: {}", id);
+
+        return findUser(id).map(this::mapToDto);
+    }
+
+    @Override
+    public Flux<UserDto> getAllUsers() {
+        log.debug("Fetching all users");
+
+        return userRepository.findAll().map(this::mapToDto);
+    }
+
+    @Override
+    public Mono<UserDto> updateUser(Long id, UserDto userDto) {
+        log.debug("Updating user with ID: {}", id);
+
+        return findUser(id)
+                .flatMap(user -> {
+                    Mono<Void> checks = Mono.empty();
+                    if (!user.getUsername().equals(userDto.getUsername())) {
+                        checks = checks.then(ensureUsernameAvailable(userDto.getUsername()));
+                    }
+                    if (!user.getEmail().equals(userDto.getEmail())) {
+                        checks = checks.then(ensureEmailAvailable(userDto.getEmail()));
+                    }
+                    user.setUsername(userDto.getUsername());
+                    user.setEmail(userDto.getEmail());
+                    user.setFirstName(userDto.getFirstName());
+                    user.setLastName(userDto.getLastName());
+                    user.setUpdatedAt(OffsetDateTime.now(clock));
+                    return checks.then(userRepository.save(user));
+                })
+                .doOnNext(updated -> log.info("User updated with ID: {}", updated.getId()))
+                .map(this::mapToDto)
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<Void> deleteUser(Long id) {
+        log.debug("Deleting user with ID: {}", id);
+
+        return findUser(id)
+                .flatMap(userRepository::delete)
+                .doOnSuccess(ignored -> log.info("User deleted with ID: {}", id))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<UserRow> findUser(Long id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("User not found with ID: {}", id);
+                    return Mono.error(new EntityNotFoundException("User not found with ID: " + id));
+                }));
+    }
+
+    private Mono<Void> ensureUsernameAvailable(String username) {
+        return userRepository.existsByUsername(username)
+                .flatMap(exists -> {
+                    if (exists) {
+                        log.error("Username already exists: {}", username);
+                        return Mono.error(new IllegalArgumentException("Username already exists"));
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> ensureEmailAvailable(String email) {
+        return userRepository.existsByEmail(email)
+                .flatMap(exists -> {
+                    if (exists) {
+                        log.error("Email already exists: {}", email);
+                        return Mono.error(new IllegalArgumentException("Email already exists"));
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private UserDto mapToDto(UserRow user) {
+        return UserDto.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .version(user.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.subscription.archive;
+
+import com.subscription.event.SubscriptionsArchivedEvent;
+import com.subscription.shard.ShardRouter;
+import com.subscription.shard.ShardRoutingDataSource;
+import com.subscription.support.MigratedDatabase;
+import com.subscription.util.ConsistentHashRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SubscriptionArchiverTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2024, 6, 15, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final Duration RETENTION = Duration.ofDays(90);
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private SubscriptionArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = MigratedDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        archiver = archiver(dataSource, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void archiveBatch_MovesOnlyEndedSubscriptionsPastRetention() {
+        insert(1, "CANCELLED", NOW.minusDays(91));
+        insert(2, "EXPIRED", NOW.minusDays(120));
+        insert(3, "EXPIRED", NOW.minusDays(30));
+        insert(4, "ACTIVE", NOW.minusDays(365));
+
+        assertEquals(2, archiver.archiveBatch());
+
+        assertEquals(List.of(3L, 4L), ids("subscriptions"));
+        assertEquals(List.of(1L, 2L), ids("subscriptions_archive"));
+        assertEquals("CANCELLED", jdbcTemplate.queryForObject(
+                "SELECT status FROM subscriptions_archive WHERE id = 1", String.class));
+        assertEquals(NOW.toInstant(), jdbcTemplate.queryForObject(
+                "SELECT archived_at FROM subscriptions_archive WHERE id = 2", OffsetDateTime.class).toInstant());
+        ArgumentCaptor<SubscriptionsArchivedEvent> event = ArgumentCaptor.forClass(SubscriptionsArchivedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(List.of(2L, 1L), event.getValue().getSubscriptionIds());
+    }
+
+    @Test
+    void archiveBatch_NothingToArchive_PublishesNothing() {
+        insert(1, "ACTIVE", NOW.minusDays(365));
+
+        assertEquals(0, archiver.archiveBatch());
+
+        assertEquals(List.of(1L), ids("subscriptions"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void run_MoreThanOneBatch_ArchivesAllAndRecordsMetrics() {
+        for (long id = 1; id <= 5; id++) {
+            insert(id, "EXPIRED", NOW.minusDays(100 + id));
+        }
+        insert(6, "ACTIVE", NOW.minusDays(200));
+
+        archiver.run();
+
+        assertEquals(List.of(6L), ids("subscriptions"));
+        assertEquals(5, ids("subscriptions_archive").size());
+        assertEquals(5.0, meterRegistry.get("subscription.archived").counter().count());
+        assertEquals(1.0, meterRegistry.get("subscription.hot.rows").gauge().value());
+        verify(eventPublisher, times(3)).publishEvent(any(SubscriptionsArchivedEvent.class));
+    }
+
+    @Test
+    void run_Sharded_ArchivesOnEveryShard() {
+        EmbeddedDatabase directory = MigratedDatabase.createDirectory();
+        EmbeddedDatabase otherShard = MigratedDatabase.create();
+        JdbcTemplate otherJdbcTemplate = new JdbcTemplate(otherShard);
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put("shard-0", dataSource);
+        shards.put("shard-1", otherShard);
+        ShardRouter router = new ShardRouter(new ConsistentHashRing(shards.keySet(), 64), shards, 2);
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(directory, shards);
+        routingDataSource.afterPropertiesSet();
+        // The archiver from setUp already owns the gauges of the shared registry
+        meterRegistry = new SimpleMeterRegistry();
+        try {
+            insert(jdbcTemplate, 1, "EXPIRED", NOW.minusDays(100));
+            insert(jdbcTemplate, 2, "ACTIVE", NOW.minusDays(100));
+            insert(otherJdbcTemplate, 3, "CANCELLED", NOW.minusDays(100));
+            insert(otherJdbcTemplate, 4, "EXPIRED", NOW.minusDays(100));
+
+            archiver(routingDataSource, router).run();
+
+            assertEquals(List.of(2L), ids("subscriptions"));
+            assertEquals(List.of(1L), ids("subscriptions_archive"));
+            assertEquals(List.of(3L, 4L), otherJdbcTemplate.queryForList(
+                    "SELECT id FROM subscriptions_archive ORDER BY id", Long.class));
+            assertEquals(3.0, meterRegistry.get("subscription.archived").counter().count());
+            assertEquals(1.0, meterRegistry.get("subscription.hot.rows").gauge().value());
+        } finally {
+            router.close();
+            directory.shutdown();
+            otherShard.shutdown();
+        }
+    }
+
+    private SubscriptionArchiver archiver(DataSource dataSource, ShardRouter router) {
+        return new SubscriptionArchiver(dataSource, router,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                eventPublisher, meterRegistry, () -> NOW.toInstant().toEpochMilli(),
+                RETENTION, 2, Duration.ofHours(1));
+    }
+
+    private void insert(long id, String status, OffsetDateTime updatedAt) {
+        insert(jdbcTemplate, id, status, updatedAt);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, long id, String status, OffsetDateTime updatedAt) {
+        MigratedDatabase.insertUser(jdbcTemplate, id);
+        jdbcTemplate.update("INSERT INTO subscriptions (id, user_id, subscription_type_id, status, start_date, end_date, " +
+                        "auto_renew, created_at, updated_at, version) VALUES (?, ?, 1, ?, ?, ?, FALSE, ?, ?, 0)",
+                id, id, status, updatedAt.minusYears(1), updatedAt, updatedAt.minusYears(1), updatedAt);
+    }
+
+    private List<Long> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class);
+    }
+}
@@ -0,0 +1,111 @@
+package com.subscription.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.subscription.config.BinaryFormatConfig;
+import com.subscription.dto.UserDto;
+import com.subscription.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserController.class)
+@Import(BinaryFormatConfig.class)
+class BinaryContentNegotiationTest {
+
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserService userService;
+
+    private UserDto userDto;
+
+    @BeforeEach
+    void setUp() {
+        userDto = UserDto.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .firstName("Test")
+                .lastName("User")
+                .version(0L)
+                .build();
+    }
+
+    @Test
+    void getUserById_AcceptCbor_ReturnsCborBody() throws Exception {
+        when(userService.getUserById(1L)).thenReturn(userDto);
+
+        byte[] body = mockMvc.perform(get("/users/1").accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = new CBORMapper().readTree(body);
+        assertTrue(response.get("success").asBoolean());
+        assertEquals("testuser", response.get("data").get("username").asText());
+        assertTrue(response.get("timestamp").isNumber());
+    }
+
+    @Test
+    void getUserById_AcceptSmile_ReturnsSmileBody() throws Exception {
+        when(userService.getUserById(1L)).thenReturn(userDto);
+
+        byte[] body = mockMvc.perform(get("/users/1").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = new SmileMapper().readTree(body);
+        assertEquals("test@example.com", response.get("data").get("email").asText());
+    }
+
+    @Test
+    void getUserById_NoAccept_DefaultsToJson() throws Exception {
+        when(userService.getUserById(1L)).thenReturn(userDto);
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data.username").value("testuser"));
+    }
+
+    @Test
+    void createUser_CborRequestBody_IsAccepted() throws Exception {
+        when(userService.createUser(any(UserDto.class))).thenReturn(userDto);
+        ObjectMapper cbor = new CBORMapper();
+        UserDto request = UserDto.builder()
+                .username("testuser")
+                .email("test@example.com")
+                .firstName("Test")
+                .lastName("User")
+                .build();
+
+        byte[] body = mockMvc.perform(post("/users")
+                        .contentType(CBOR)
+                        .accept(CBOR)
+                        .content(cbor.writeValueAsBytes(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(1L, cbor.readTree(body).get("data").get("id").asLong());
+    }
+}
@@ -0,0 +1,78 @@
+package com.subscription.controller;
+
+import com.subscription.dto.ExportDataset;
+import com.subscription.dto.ExportResultDto;
+import com.subscription.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ExportController.class)
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportService exportService;
+
+    @Test
+    void exportCsv_StreamsCsvAttachment() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("id,username\n1,testuser\n".getBytes(StandardCharsets.UTF_8));
+            return ExportResultDto.builder().dataset(ExportDataset.USERS).rows(1).build();
+        }).when(exportService).exportCsv(eq(ExportDataset.USERS), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/exports/users"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", containsString("users.csv")))
+                .andExpect(content().string("id,username\n1,testuser\n"));
+    }
+
+    @Test
+    void exportCsv_UnknownDataset_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/exports/payments"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)));
+
+        verifyNoInteractions(exportService);
+    }
+
+    @Test
+    void exportCsvFiles_ReturnsThroughput() throws Exception {
+        when(exportService.exportCsvFiles(ExportDataset.SUBSCRIPTIONS, 4)).thenReturn(ExportResultDto.builder()
+                .dataset(ExportDataset.SUBSCRIPTIONS)
+                .rows(1000)
+                .durationMs(50)
+                .rowsPerSecond(20000)
+                .files(List.of("/tmp/part-00000.csv"))
+                .build());
+
+        mockMvc.perform(post("/exports/subscriptions/files").param("parallelism", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.rows", is(1000)))
+                .andExpect(jsonPath("$.data.rowsPerSecond", is(20000)))
+                .andExpect(jsonPath("$.data.dataset", is("SUBSCRIPTIONS")));
+    }
+}
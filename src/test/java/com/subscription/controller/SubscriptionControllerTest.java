@@ -1,6 +1,9 @@
 package com.subscription.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subscription.dto.ApiResponse;
+import com.subscription.dto.SubscriptionBatchRequest;
+import com.subscription.dto.SubscriptionCountDto;
 import com.subscription.dto.SubscriptionDto;
 import com.subscription.dto.SubscriptionTypeDto;
 import com.subscription.model.SubscriptionStatus;
@@ -13,9 +16,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -46,7 +53,7 @@ class SubscriptionControllerTest {
                 .id(1L)
                 .subscriptionTypeId(1L)
                 .subscriptionTypeName("Netflix")
-                .startDate(ZonedDateTime.now())
+                .startDate(Instant.now())
                 .status(SubscriptionStatus.ACTIVE)
                 .build();
 
@@ -131,6 +138,96 @@ class SubscriptionControllerTest {
         verify(subscriptionService).getUserSubscriptions(1L);
     }
 
+    @Test
+    void getUserSubscriptions_WithStatusFilter() throws Exception {
+        Set<SubscriptionStatus> statuses = Set.of(SubscriptionStatus.ACTIVE, SubscriptionStatus.PENDING);
+        when(subscriptionService.getUserSubscriptions(1L, statuses)).thenReturn(List.of(subscriptionDto));
+
+        mockMvc.perform(get("/users/1/subscriptions").param("status", "ACTIVE,PENDING"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].status", is("ACTIVE")));
+
+        verify(subscriptionService).getUserSubscriptions(1L, statuses);
+        verify(subscriptionService, never()).getUserSubscriptions(anyLong());
+    }
+
+    @Test
+    void getUserSubscriptions_IncludeArchived() throws Exception {
+        when(subscriptionService.getUserSubscriptions(1L, null, true)).thenReturn(List.of(subscriptionDto));
+
+        mockMvc.perform(get("/users/1/subscriptions").param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)));
+
+        verify(subscriptionService).getUserSubscriptions(1L, null, true);
+        verify(subscriptionService, never()).getUserSubscriptions(anyLong());
+    }
+
+    @Test
+    void getUserSubscriptions_InvalidStatus_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/users/1/subscriptions").param("status", "UNKNOWN"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)));
+
+        verifyNoInteractions(subscriptionService);
+    }
+
+    @Test
+    void countUserSubscriptions_Success() throws Exception {
+        SubscriptionCountDto counts = SubscriptionCountDto.builder()
+                .total(3)
+                .byStatus(Map.of(SubscriptionStatus.ACTIVE, 2L, SubscriptionStatus.EXPIRED, 1L))
+                .build();
+        when(subscriptionService.countUserSubscriptions(1L)).thenReturn(counts);
+
+        mockMvc.perform(get("/users/1/subscriptions/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data.total", is(3)))
+                .andExpect(jsonPath("$.data.byStatus.ACTIVE", is(2)))
+                .andExpect(jsonPath("$.data.byStatus.EXPIRED", is(1)));
+
+        verify(subscriptionService).countUserSubscriptions(1L);
+    }
+
+    @Test
+    void batchGetSubscriptions_StreamsMapOfUserSubscriptions() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Map<Long, List<SubscriptionDto>>> consumer = invocation.getArgument(1);
+            consumer.accept(Map.of(1L, List.of(subscriptionDto)));
+            consumer.accept(Map.of(2L, List.of()));
+            return null;
+        }).when(subscriptionService).streamSubscriptionsByUsers(eq(List.of(1L, 2L)), any());
+
+        MvcResult result = mockMvc.perform(post("/subscriptions/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SubscriptionBatchRequest(List.of(1L, 2L)))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.message", is(ApiResponse.success(null).getMessage())))
+                .andExpect(jsonPath("$.timestamp").exists())
+                .andExpect(jsonPath("$.data['1']", hasSize(1)))
+                .andExpect(jsonPath("$.data['1'][0].subscriptionTypeName", is("Netflix")))
+                .andExpect(jsonPath("$.data['2']", hasSize(0)));
+    }
+
+    @Test
+    void batchGetSubscriptions_EmptyRequest_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/subscriptions/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SubscriptionBatchRequest(List.of()))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)));
+
+        verifyNoInteractions(subscriptionService);
+    }
+
     @Test
     void deleteSubscription_Success() throws Exception {
         doNothing().when(subscriptionService).deleteSubscription(anyLong(), anyLong());
@@ -0,0 +1,67 @@
+package com.subscription.controller;
+
+import com.subscription.dto.SubscriptionHistoryDto;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.service.SubscriptionHistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SubscriptionHistoryController.class)
+class SubscriptionHistoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SubscriptionHistoryService subscriptionHistoryService;
+
+    @Test
+    void getUserSubscriptionHistory_Success() throws Exception {
+        SubscriptionHistoryDto entry = SubscriptionHistoryDto.builder()
+                .subscriptionId(1L)
+                .subscriptionTypeId(1L)
+                .eventType(SubscriptionEventType.CREATED)
+                .status(SubscriptionStatus.ACTIVE)
+                .recordedAt(Instant.now())
+                .build();
+        when(subscriptionHistoryService.getUserHistory(eq(1L), eq(Instant.parse("2024-01-01T00:00:00Z")), isNull()))
+                .thenReturn(List.of(entry));
+
+        mockMvc.perform(get("/users/1/subscriptions/history")
+                .param("from", "2024-01-01T03:00:00+03:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].eventType", is("CREATED")));
+
+        verify(subscriptionHistoryService).getUserHistory(eq(1L), eq(Instant.parse("2024-01-01T00:00:00Z")), isNull());
+    }
+
+    @Test
+    void getUserSubscriptionHistory_InvalidRange_ReturnsBadRequest() throws Exception {
+        when(subscriptionHistoryService.getUserHistory(eq(1L), any(), any()))
+                .thenThrow(new IllegalArgumentException("'from' must not be after 'to'"));
+
+        mockMvc.perform(get("/users/1/subscriptions/history")
+                .param("from", "2024-02-01T00:00:00Z")
+                .param("to", "2024-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+}
@@ -0,0 +1,87 @@
+package com.subscription.controller;
+
+import com.subscription.dto.StatsGranularity;
+import com.subscription.dto.SubscriptionStatsDto;
+import com.subscription.service.SubscriptionStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SubscriptionStatsController.class)
+class SubscriptionStatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SubscriptionStatsService subscriptionStatsService;
+
+    @Test
+    void getStats_Success() throws Exception {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 31);
+        when(subscriptionStatsService.getStats(from, to, StatsGranularity.WEEK)).thenReturn(List.of(
+                SubscriptionStatsDto.builder()
+                        .periodStart(from)
+                        .subscriptionTypeId(1L)
+                        .subscriptionTypeName("Netflix")
+                        .created(7)
+                        .cancelled(2)
+                        .build()));
+
+        mockMvc.perform(get("/subscriptions/stats")
+                .param("from", "2024-01-01")
+                .param("to", "2024-01-31")
+                .param("granularity", "WEEK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].subscriptionTypeName", is("Netflix")))
+                .andExpect(jsonPath("$.data[0].created", is(7)))
+                .andExpect(jsonPath("$.data[0].cancelled", is(2)));
+
+        verify(subscriptionStatsService).getStats(from, to, StatsGranularity.WEEK);
+    }
+
+    @Test
+    void getStats_DefaultsToDailyGranularity() throws Exception {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        when(subscriptionStatsService.getStats(day, day, StatsGranularity.DAY)).thenReturn(List.of());
+
+        mockMvc.perform(get("/subscriptions/stats")
+                .param("from", "2024-01-01")
+                .param("to", "2024-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(0)));
+
+        verify(subscriptionStatsService).getStats(day, day, StatsGranularity.DAY);
+    }
+
+    @Test
+    void rebuildStats_Success() throws Exception {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 3, 31);
+        when(subscriptionStatsService.rebuild(from, to)).thenReturn(42);
+
+        mockMvc.perform(post("/subscriptions/stats/rebuild")
+                .param("from", "2024-01-01")
+                .param("to", "2024-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data", is(42)));
+
+        verify(subscriptionStatsService).rebuild(from, to);
+    }
+}
@@ -0,0 +1,83 @@
+package com.subscription.controller;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.exception.TooManyStreamsException;
+import com.subscription.service.SubscriptionService;
+import com.subscription.stream.SubscriptionStreamHub;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SubscriptionStreamController.class)
+class SubscriptionStreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SubscriptionStreamHub subscriptionStreamHub;
+
+    @MockBean
+    private SubscriptionService subscriptionService;
+
+    @Test
+    void streamUserSubscriptions_OpensEventStreamWithSnapshotFromService() throws Exception {
+        List<SubscriptionDto> subscriptions = List.of(SubscriptionDto.builder().id(1L).subscriptionTypeId(1L).build());
+        when(subscriptionService.getUserSubscriptions(1L)).thenReturn(subscriptions);
+        when(subscriptionStreamHub.subscribe(eq(1L), any())).thenAnswer(invocation -> {
+            Supplier<List<SubscriptionDto>> snapshot = invocation.getArgument(1);
+            List<SubscriptionDto> current = snapshot.get();
+            assertSame(subscriptions, current);
+            // Like the hub, sends the snapshot straight away; headers go out with the first write
+            SseEmitter emitter = new SseEmitter();
+            emitter.send(SseEmitter.event().name("snapshot").data(current, MediaType.APPLICATION_JSON));
+            return emitter;
+        });
+
+        mockMvc.perform(get("/users/1/subscriptions/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+
+        verify(subscriptionService).getUserSubscriptions(1L);
+    }
+
+    @Test
+    void streamUserSubscriptions_UserNotFound_ReturnsNotFound() throws Exception {
+        when(subscriptionService.getUserSubscriptions(1L))
+                .thenThrow(new EntityNotFoundException("User not found with ID: 1"));
+        when(subscriptionStreamHub.subscribe(eq(1L), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        mockMvc.perform(get("/users/1/subscriptions/stream"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
+    @Test
+    void streamUserSubscriptions_TooManyStreams_ReturnsServiceUnavailable() throws Exception {
+        when(subscriptionStreamHub.subscribe(eq(1L), any()))
+                .thenThrow(new TooManyStreamsException("Too many open subscription streams, please retry later"));
+
+        mockMvc.perform(get("/users/1/subscriptions/stream"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+}
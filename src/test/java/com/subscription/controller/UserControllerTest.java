@@ -1,7 +1,9 @@
 package com.subscription.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subscription.dto.PageDto;
 import com.subscription.dto.UserDto;
+import com.subscription.exception.PreconditionFailedException;
 import com.subscription.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,10 +11,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -162,6 +166,94 @@ class UserControllerTest {
         verify(userService).updateUser(eq(1L), any(UserDto.class));
     }
 
+    @Test
+    void getUserById_ReturnsVersionAsETag() throws Exception {
+        userDto.setVersion(2L);
+        when(userService.getUserById(1L)).thenReturn(userDto);
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.data.version", is(2)));
+    }
+
+    @Test
+    void updateUser_WithIfMatch_UsesConditionalUpdate() throws Exception {
+        UserDto updatedUser = UserDto.builder()
+                .id(1L)
+                .username("updated")
+                .email("updated@example.com")
+                .firstName("Updated")
+                .lastName("User")
+                .version(4L)
+                .build();
+        when(userService.updateUser(eq(1L), any(UserDto.class), eq(3L))).thenReturn(updatedUser);
+
+        mockMvc.perform(put("/users/1")
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedUser)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.data.version", is(4)));
+
+        verify(userService).updateUser(eq(1L), any(UserDto.class), eq(3L));
+        verify(userService, never()).updateUser(anyLong(), any(UserDto.class));
+    }
+
+    @Test
+    void updateUser_StaleIfMatch_ReturnsPreconditionFailed() throws Exception {
+        when(userService.updateUser(eq(1L), any(UserDto.class), eq(3L)))
+                .thenThrow(new PreconditionFailedException("User was modified by another request"));
+
+        mockMvc.perform(put("/users/1")
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
+    @Test
+    void updateUser_MalformedIfMatch_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(put("/users/1")
+                .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void patchUser_MergePatch_PassesOnlyProvidedFields() throws Exception {
+        userDto.setFirstName("Renamed");
+        userDto.setVersion(3L);
+        when(userService.patchUser(1L, Map.of("firstName", "Renamed"), 2L)).thenReturn(userDto);
+
+        mockMvc.perform(patch("/users/1")
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"firstName\": \"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.data.firstName", is("Renamed")));
+
+        verify(userService).patchUser(1L, Map.of("firstName", "Renamed"), 2L);
+    }
+
+    @Test
+    void patchUser_InvalidField_ReturnsBadRequest() throws Exception {
+        when(userService.patchUser(eq(1L), any(), isNull()))
+                .thenThrow(new IllegalArgumentException("Field cannot be patched: id"));
+
+        mockMvc.perform(patch("/users/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\": 5}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Field cannot be patched: id")));
+    }
+
     @Test
     void deleteUser_Success() throws Exception {
         doNothing().when(userService).deleteUser(anyLong());
@@ -173,4 +265,34 @@ class UserControllerTest {
 
         verify(userService).deleteUser(1L);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void searchUsers_Success() throws Exception {
+        PageDto<UserDto> page = PageDto.<UserDto>builder()
+                .content(List.of(userDto))
+                .page(0)
+                .size(20)
+                .hasNext(false)
+                .build();
+        when(userService.searchUsers("tes", 0, 20)).thenReturn(page);
+
+        mockMvc.perform(get("/users/search").param("q", "tes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data.content", hasSize(1)))
+                .andExpect(jsonPath("$.data.content[0].username", is("testuser")))
+                .andExpect(jsonPath("$.data.hasNext", is(false)));
+
+        verify(userService).searchUsers("tes", 0, 20);
+    }
+
+    @Test
+    void searchUsers_InvalidQuery_ReturnsBadRequest() throws Exception {
+        when(userService.searchUsers(" ", 0, 20))
+                .thenThrow(new IllegalArgumentException("Search query must be between 1 and 100 characters"));
+
+        mockMvc.perform(get("/users/search").param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+}
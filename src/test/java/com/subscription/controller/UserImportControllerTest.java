@@ -0,0 +1,65 @@
+package com.subscription.controller;
+
+import com.subscription.dto.UserImportFormat;
+import com.subscription.dto.UserImportRejectionDto;
+import com.subscription.dto.UserImportResultDto;
+import com.subscription.service.UserImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserImportController.class)
+class UserImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserImportService userImportService;
+
+    @Test
+    void importCsv_ReturnsCountsAndRejections() throws Exception {
+        when(userImportService.importUsers(any(InputStream.class), eq(UserImportFormat.CSV)))
+                .thenReturn(UserImportResultDto.builder()
+                        .received(2)
+                        .imported(1)
+                        .rejected(1)
+                        .rejections(List.of(new UserImportRejectionDto(3, "taken", "taken@example.com",
+                                "Username already exists")))
+                        .build());
+
+        mockMvc.perform(post("/users/import")
+                        .contentType("text/csv")
+                        .content("username,email,first_name,last_name\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported", is(1)))
+                .andExpect(jsonPath("$.data.rejections", hasSize(1)))
+                .andExpect(jsonPath("$.data.rejections[0].reason", is("Username already exists")));
+    }
+
+    @Test
+    void importNdjson_SelectsNdjsonFormat() throws Exception {
+        when(userImportService.importUsers(any(InputStream.class), eq(UserImportFormat.NDJSON)))
+                .thenReturn(UserImportResultDto.builder().received(0).rejections(List.of()).build());
+
+        mockMvc.perform(post("/users/import")
+                        .contentType("application/x-ndjson")
+                        .content(""))
+                .andExpect(status().isOk());
+
+        verify(userImportService).importUsers(any(InputStream.class), eq(UserImportFormat.NDJSON));
+    }
+}
@@ -0,0 +1,126 @@
+package com.subscription.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subscription.dto.SubscriptionBatchRequest;
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.UserDto;
+import com.subscription.model.SubscriptionType;
+import com.subscription.repository.SubscriptionRepository;
+import com.subscription.repository.SubscriptionTypeRepository;
+import com.subscription.repository.UserRepository;
+import com.subscription.support.LazyLoadCapture;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: every request gets its own persistence context, as in production, so an
+// association touched outside a fetch plan shows up as a lazy load instead of a first-level cache hit
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LazyLoadingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SubscriptionTypeRepository subscriptionTypeRepository;
+
+    private Long firstTypeId;
+    private Long secondTypeId;
+
+    @BeforeEach
+    void setUp() {
+        firstTypeId = subscriptionTypeRepository.save(SubscriptionType.builder().name("Lazy Load Video").build()).getId();
+        secondTypeId = subscriptionTypeRepository.save(SubscriptionType.builder().name("Lazy Load Music").build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriptionRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        subscriptionTypeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void requestPaths_DoNotTriggerLazyLoads() throws Exception {
+        UserDto userDto = UserDto.builder()
+                .username("lazyload")
+                .email("lazyload@example.com")
+                .firstName("Lazy")
+                .lastName("Load")
+                .build();
+        Long userId = id(perform("create user", post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto))));
+
+        userDto.setLastName("Loaded");
+        perform("update user", put("/users/{id}", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)));
+        perform("patch user", patch("/users/{id}", userId)
+                .contentType("application/merge-patch+json")
+                .content("{\"firstName\": \"Lazier\"}"));
+        perform("get user", get("/users/{id}", userId));
+        perform("list users", get("/users"));
+
+        Long subscriptionId = id(perform("add subscription", post("/users/{userId}/subscriptions", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(SubscriptionDto.builder().subscriptionTypeId(firstTypeId).build()))));
+        perform("add second subscription", post("/users/{userId}/subscriptions", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(SubscriptionDto.builder().subscriptionTypeId(secondTypeId).build())));
+
+        perform("list subscriptions", get("/users/{userId}/subscriptions", userId));
+        perform("list subscriptions by status", get("/users/{userId}/subscriptions", userId).param("status", "ACTIVE"));
+        perform("count subscriptions", get("/users/{userId}/subscriptions/count", userId));
+        perform("batch get subscriptions", post("/subscriptions/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SubscriptionBatchRequest(List.of(userId)))));
+        perform("top subscriptions", get("/subscriptions/top"));
+
+        perform("delete subscription", delete("/users/{userId}/subscriptions/{subscriptionId}", userId, subscriptionId));
+        perform("delete user", delete("/users/{id}", userId));
+    }
+
+    private MvcResult perform(String description, MockHttpServletRequestBuilder request) throws Exception {
+        LazyLoadCapture lazyLoads = LazyLoadCapture.start(entityManagerFactory);
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        status().is2xxSuccessful().match(result);
+        lazyLoads.assertNoLazyLoads(description);
+        return result;
+    }
+
+    private Long id(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).path("data").path("id").asLong();
+    }
+}
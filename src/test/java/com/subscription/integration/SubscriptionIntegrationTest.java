@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.subscription.dto.SubscriptionDto;
 import com.subscription.dto.UserDto;
 import com.subscription.model.SubscriptionStatus;
+import com.subscription.support.SqlStatementCapture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +26,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
+@Sql("/sql/subscription-types.sql")
 @Transactional
 class SubscriptionIntegrationTest {
 
@@ -44,7 +47,7 @@ class SubscriptionIntegrationTest {
                 .lastName("Test")
                 .build();
 
-        MvcResult result = mockMvc.perform(post("/api/users")
+        MvcResult result = mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(userDto)))
                 .andExpect(status().isCreated())
@@ -64,7 +67,7 @@ class SubscriptionIntegrationTest {
                 .status(SubscriptionStatus.ACTIVE)
                 .build();
 
-        MvcResult result = mockMvc.perform(post("/api/users/{userId}/subscriptions", userId)
+        MvcResult result = mockMvc.perform(post("/users/{userId}/subscriptions", userId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(subscriptionDto)))
                 .andExpect(status().isCreated())
@@ -80,13 +83,16 @@ class SubscriptionIntegrationTest {
                 .path("id")
                 .asLong();
 
-        mockMvc.perform(get("/api/users/{userId}/subscriptions", userId))
+        SqlStatementCapture sql = SqlStatementCapture.start();
+        mockMvc.perform(get("/users/{userId}/subscriptions", userId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.data", hasSize(1)))
                 .andExpect(jsonPath("$.data[0].id", is(subscriptionId.intValue())))
                 .andExpect(jsonPath("$.data[0].subscriptionTypeId", is(1)))
                 .andExpect(jsonPath("$.data[0].status", is("ACTIVE")));
+        // existsById + findByUserId; subscription types must not be loaded one by one
+        sql.assertStatementsAtMost(3);
     }
 
     @Test
@@ -96,7 +102,7 @@ class SubscriptionIntegrationTest {
                 .status(SubscriptionStatus.ACTIVE)
                 .build();
 
-        MvcResult result = mockMvc.perform(post("/api/users/{userId}/subscriptions", userId)
+        MvcResult result = mockMvc.perform(post("/users/{userId}/subscriptions", userId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(subscriptionDto)))
                 .andExpect(status().isCreated())
@@ -109,11 +115,11 @@ class SubscriptionIntegrationTest {
                 .path("id")
                 .asLong();
 
-        mockMvc.perform(delete("/api/users/{userId}/subscriptions/{subscriptionId}", userId, subscriptionId))
+        mockMvc.perform(delete("/users/{userId}/subscriptions/{subscriptionId}", userId, subscriptionId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)));
 
-        mockMvc.perform(get("/api/users/{userId}/subscriptions", userId))
+        mockMvc.perform(get("/users/{userId}/subscriptions", userId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.data", hasSize(0)));
@@ -121,7 +127,7 @@ class SubscriptionIntegrationTest {
 
     @Test
     void addMultipleSubscriptionsAndGetTopSubscriptions() throws Exception {
-        mockMvc.perform(post("/api/users/{userId}/subscriptions", userId)
+        mockMvc.perform(post("/users/{userId}/subscriptions", userId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(SubscriptionDto.builder()
                         .subscriptionTypeId(1L) // Netflix
@@ -136,7 +142,7 @@ class SubscriptionIntegrationTest {
                 .lastName("Test2")
                 .build();
 
-        MvcResult user2Result = mockMvc.perform(post("/api/users")
+        MvcResult user2Result = mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(user2Dto)))
                 .andExpect(status().isCreated())
@@ -147,7 +153,7 @@ class SubscriptionIntegrationTest {
                 .path("id")
                 .asLong();
 
-        mockMvc.perform(post("/api/users/{userId}/subscriptions", user2Id)
+        mockMvc.perform(post("/users/{userId}/subscriptions", user2Id)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(SubscriptionDto.builder()
                         .subscriptionTypeId(1L) // Netflix
@@ -155,7 +161,7 @@ class SubscriptionIntegrationTest {
                         .build())))
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/api/users/{userId}/subscriptions", user2Id)
+        mockMvc.perform(post("/users/{userId}/subscriptions", user2Id)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(SubscriptionDto.builder()
                         .subscriptionTypeId(3L) // Spotify
@@ -170,7 +176,7 @@ class SubscriptionIntegrationTest {
                 .lastName("Test3")
                 .build();
 
-        MvcResult user3Result = mockMvc.perform(post("/api/users")
+        MvcResult user3Result = mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(user3Dto)))
                 .andExpect(status().isCreated())
@@ -181,7 +187,7 @@ class SubscriptionIntegrationTest {
                 .path("id")
                 .asLong();
 
-        mockMvc.perform(post("/api/users/{userId}/subscriptions", user3Id)
+        mockMvc.perform(post("/users/{userId}/subscriptions", user3Id)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(SubscriptionDto.builder()
                         .subscriptionTypeId(2L) // YouTube Premium
@@ -189,7 +195,7 @@ class SubscriptionIntegrationTest {
                         .build())))
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(get("/api/subscriptions/top"))
+        mockMvc.perform(get("/subscriptions/top"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.data", hasSize(3)))
@@ -205,7 +211,7 @@ class SubscriptionIntegrationTest {
                 .status(SubscriptionStatus.ACTIVE)
                 .build();
 
-        mockMvc.perform(post("/api/users/{userId}/subscriptions", 999L)
+        mockMvc.perform(post("/users/{userId}/subscriptions", 999L)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(subscriptionDto)))
                 .andExpect(status().isNotFound())
@@ -220,7 +226,7 @@ class SubscriptionIntegrationTest {
                 .status(SubscriptionStatus.ACTIVE)
                 .build();
 
-        mockMvc.perform(post("/api/users/{userId}/subscriptions", userId)
+        mockMvc.perform(post("/users/{userId}/subscriptions", userId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(subscriptionDto)))
                 .andExpect(status().isNotFound())
@@ -2,6 +2,7 @@ package com.subscription.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.subscription.dto.UserDto;
+import com.subscription.support.SqlStatementCapture;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -38,7 +39,7 @@ class UserIntegrationTest {
                 .lastName("Test")
                 .build();
 
-        MvcResult result = mockMvc.perform(post("/api/users")
+        MvcResult result = mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(userDto)))
                 .andExpect(status().isCreated())
@@ -53,7 +54,8 @@ class UserIntegrationTest {
                 .path("id")
                 .asLong();
 
-        mockMvc.perform(get("/api/users/{id}", userId))
+        SqlStatementCapture sql = SqlStatementCapture.start();
+        mockMvc.perform(get("/users/{id}", userId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.data.id", is(userId.intValue())))
@@ -61,6 +63,7 @@ class UserIntegrationTest {
                 .andExpect(jsonPath("$.data.email", is("integration@test.com")))
                 .andExpect(jsonPath("$.data.firstName", is("Integration")))
                 .andExpect(jsonPath("$.data.lastName", is("Test")));
+        sql.assertStatementsAtMost(1);
     }
 
     @Test
@@ -72,7 +75,7 @@ class UserIntegrationTest {
                 .lastName("Test")
                 .build();
 
-        MvcResult result = mockMvc.perform(post("/api/users")
+        MvcResult result = mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(userDto)))
                 .andExpect(status().isCreated())
@@ -91,7 +94,7 @@ class UserIntegrationTest {
                 .lastName("User")
                 .build();
 
-        mockMvc.perform(put("/api/users/{id}", userId)
+        mockMvc.perform(put("/users/{id}", userId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updateDto)))
                 .andExpect(status().isOk())
@@ -99,14 +102,52 @@ class UserIntegrationTest {
                 .andExpect(jsonPath("$.data.firstName", is("Updated")))
                 .andExpect(jsonPath("$.data.lastName", is("User")));
 
-        mockMvc.perform(delete("/api/users/{id}", userId))
+        mockMvc.perform(delete("/users/{id}", userId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)));
 
-        mockMvc.perform(get("/api/users/{id}", userId))
+        mockMvc.perform(get("/users/{id}", userId))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void conditionalUpdateRejectsStaleVersion() throws Exception {
+        UserDto userDto = UserDto.builder()
+                .username("versiontest")
+                .email("version@test.com")
+                .firstName("Version")
+                .lastName("Test")
+                .build();
+
+        MvcResult result = mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.version", is(0)))
+                .andReturn();
+
+        Long userId = objectMapper.readTree(result.getResponse().getContentAsString())
+                .path("data")
+                .path("id")
+                .asLong();
+        userDto.setFirstName("Renamed");
+
+        mockMvc.perform(put("/users/{id}", userId)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.data.firstName", is("Renamed")));
+
+        mockMvc.perform(put("/users/{id}", userId)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
     @Test
     void createUserWithDuplicateUsername() throws Exception {
         UserDto userDto = UserDto.builder()
@@ -116,7 +157,7 @@ class UserIntegrationTest {
                 .lastName("Test")
                 .build();
 
-        mockMvc.perform(post("/api/users")
+        mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(userDto)))
                 .andExpect(status().isCreated());
@@ -128,7 +169,7 @@ class UserIntegrationTest {
                 .lastName("Test")
                 .build();
 
-        mockMvc.perform(post("/api/users")
+        mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(duplicateDto)))
                 .andExpect(status().isBadRequest())
@@ -152,17 +193,17 @@ class UserIntegrationTest {
                 .lastName("User2")
                 .build();
 
-        mockMvc.perform(post("/api/users")
+        mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(user1)))
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(post("/api/users")
+        mockMvc.perform(post("/users")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(user2)))
                 .andExpect(status().isCreated());
 
-        mockMvc.perform(get("/api/users"))
+        mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.data", hasSize(greaterThanOrEqualTo(2))))
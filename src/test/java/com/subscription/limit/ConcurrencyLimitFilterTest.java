@@ -0,0 +1,75 @@
+package com.subscription.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.subscription.util.GradientLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private GradientLimiter limiter;
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new GradientLimiter(5, 1, 10, 0.2, 1.5, 100);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(limiter, new ObjectMapper().registerModule(new JavaTimeModule()),
+                RequestPriority.READS, 0.6, meterRegistry);
+    }
+
+    @Test
+    void doFilter_UnderLimit_PassesThroughAndReleasesPermit() throws Exception {
+        AtomicBoolean permitSeen = new AtomicBoolean();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), response,
+                (request, res) -> permitSeen.set(ConcurrencyLimitFilter.permitHeld()));
+
+        assertEquals(200, response.getStatus());
+        assertTrue(permitSeen.get());
+        assertFalse(ConcurrencyLimitFilter.permitHeld());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doFilter_WritesShedBeforeReads() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1.0);
+        }
+
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/users"), write, new MockFilterChain());
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), read, new MockFilterChain());
+
+        assertEquals(503, write.getStatus());
+        assertEquals("1", write.getHeader("Retry-After"));
+        assertTrue(write.getContentAsString().contains("\"success\":false"));
+        assertEquals(200, read.getStatus());
+        assertEquals(1.0, meterRegistry.get("concurrency.rejected").tag("priority", "low").counter().count());
+    }
+
+    @Test
+    void doFilter_AtFullLimit_ShedsReads() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(1.0);
+        }
+
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), read, new MockFilterChain());
+
+        assertEquals(503, read.getStatus());
+        assertEquals(1.0, meterRegistry.get("concurrency.rejected").tag("priority", "high").counter().count());
+    }
+}
@@ -0,0 +1,79 @@
+package com.subscription.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.subscription.util.GradientLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ServiceLatencyAspectTest {
+
+    private GradientLimiter limiter;
+    private ConcurrencyLimitFilter filter;
+    private ServiceLatencyAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new GradientLimiter(20, 1, 40, 0.2, 1.5, 100);
+        filter = new ConcurrencyLimitFilter(limiter, new ObjectMapper().registerModule(new JavaTimeModule()),
+                RequestPriority.READS, 0.6, new SimpleMeterRegistry());
+        aspect = new ServiceLatencyAspect(limiter);
+    }
+
+    @Test
+    void sample_PoolTimeoutOpeningTransaction_CountsAsDrop() throws Throwable {
+        assertShrinksLimit(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms")));
+    }
+
+    @Test
+    void sample_PoolTimeoutInJdbcTemplate_CountsAsDrop() throws Throwable {
+        assertShrinksLimit(new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection",
+                new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms")));
+    }
+
+    @Test
+    void sample_OtherFailure_IsNotADrop() throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenThrow(new IllegalArgumentException("Invalid request"));
+
+        assertThrows(IllegalArgumentException.class, () -> sampleWithPermit(joinPoint));
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    private void assertShrinksLimit(RuntimeException failure) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenThrow(failure);
+
+        assertThrows(failure.getClass(), () -> sampleWithPermit(joinPoint));
+
+        assertTrue(limiter.getLimit() < 20, "limit after " + failure.getClass().getSimpleName());
+    }
+
+    private void sampleWithPermit(ProceedingJoinPoint joinPoint) throws Throwable {
+        Throwable[] thrown = new Throwable[1];
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    try {
+                        aspect.sample(joinPoint);
+                    } catch (Throwable ex) {
+                        thrown[0] = ex;
+                    }
+                });
+        if (thrown[0] != null) {
+            throw thrown[0];
+        }
+    }
+}
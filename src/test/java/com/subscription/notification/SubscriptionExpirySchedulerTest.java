@@ -0,0 +1,272 @@
+package com.subscription.notification;
+
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.shard.ShardRouter;
+import com.subscription.shard.ShardRoutingDataSource;
+import com.subscription.support.MigratedDatabase;
+import com.subscription.util.ConsistentHashRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SubscriptionExpirySchedulerTest {
+
+    private static final long START = Instant.parse("2024-06-01T00:00:00Z").toEpochMilli();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SubscriptionNotifier notifier;
+    private ApplicationEventPublisher eventPublisher;
+    private AtomicLong clock;
+    private SubscriptionExpiryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = MigratedDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        notifier = mock(SubscriptionNotifier.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        clock = new AtomicLong(START);
+        scheduler = scheduler(dataSource, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void refill_LoadsDeadlinesInsideWindowOnly() {
+        insert(1, START + HOUR);
+        insert(2, START + 3 * DAY + HOUR);
+        insert(3, START + 5 * DAY);
+        insert(4, START - DAY);
+
+        scheduler.refill();
+
+        // 1 and 4 expire within the window, 2 is due for a reminder; 3 is out of reach
+        assertEquals(3, scheduler.pending());
+    }
+
+    @Test
+    void advance_AtEndDate_MarksExpiredAndNotifies() {
+        insert(1, START + HOUR);
+        scheduler.refill();
+
+        advanceTo(START + HOUR - 1000);
+        verifyNoInteractions(notifier);
+
+        advanceTo(START + HOUR);
+        assertEquals("EXPIRED", jdbcTemplate.queryForObject("SELECT status FROM subscriptions WHERE id = 1", String.class));
+        verify(notifier).expired(any(ExpiryNotice.class));
+        ArgumentCaptor<SubscriptionEvent> event = ArgumentCaptor.forClass(SubscriptionEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(SubscriptionEventType.EXPIRED, event.getValue().getType());
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    void advance_ReminderLeadBeforeEndDate_SendsReminder() {
+        insert(1, START + 3 * DAY + HOUR);
+        scheduler.refill();
+
+        advanceTo(START + HOUR);
+
+        ArgumentCaptor<ExpiryNotice> notice = ArgumentCaptor.forClass(ExpiryNotice.class);
+        verify(notifier).expiringSoon(notice.capture());
+        assertEquals(1L, notice.getValue().getSubscriptionId());
+        verify(notifier, never()).expired(any());
+    }
+
+    @Test
+    void advance_TwoInstances_SendOneReminder() {
+        insert(1, START + 3 * DAY + HOUR);
+        SubscriptionExpiryScheduler other = scheduler(dataSource, null);
+        scheduler.refill();
+        other.refill();
+
+        clock.set(START + HOUR);
+        scheduler.advance();
+        other.advance();
+
+        verify(notifier, times(1)).expiringSoon(any(ExpiryNotice.class));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT reminded_at FROM subscriptions WHERE id = 1", OffsetDateTime.class));
+    }
+
+    @Test
+    void advance_NewEndDate_RemindsAgain() {
+        insert(1, START + 3 * DAY + HOUR);
+        scheduler.refill();
+        advanceTo(START + HOUR);
+
+        // Extended by hand to a new end date; the reminder claimed for the old one does not block it
+        long newEnd = START + 6 * DAY + HOUR;
+        jdbcTemplate.update("UPDATE subscriptions SET end_date = ? WHERE id = 1",
+                Instant.ofEpochMilli(newEnd).atOffset(ZoneOffset.UTC));
+        clock.set(START + 3 * DAY + HOUR);
+        scheduler.refill();
+        advanceTo(START + 3 * DAY + 2 * HOUR);
+
+        verify(notifier, times(2)).expiringSoon(any(ExpiryNotice.class));
+    }
+
+    @Test
+    void onSubscriptionEvent_CreatedInsideWindow_IsScheduled_DeletedIsCancelled() {
+        scheduler.refill();
+        insert(7, START + 2 * HOUR);
+
+        scheduler.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 7, START + 2 * HOUR));
+        assertEquals(1, scheduler.pending());
+
+        scheduler.onSubscriptionEvent(event(SubscriptionEventType.DELETED, 7, START + 2 * HOUR));
+        assertEquals(0, scheduler.pending());
+
+        advanceTo(START + 3 * HOUR);
+        verifyNoInteractions(notifier);
+    }
+
+    @Test
+    void refill_AfterWindowMoves_LoadsOnlyNewlyCoveredRange() {
+        insert(1, START + DAY + 2 * HOUR);
+        scheduler.refill();
+        assertEquals(0, scheduler.pending());
+
+        clock.set(START + 3 * HOUR);
+        scheduler.refill();
+
+        assertEquals(1, scheduler.pending());
+    }
+
+    @Test
+    void advance_SubscriptionDeletedBehindScheduler_DoesNotNotify() {
+        insert(1, START + HOUR);
+        insert(2, START + 3 * DAY + HOUR);
+        scheduler.refill();
+        jdbcTemplate.update("DELETE FROM subscriptions");
+
+        advanceTo(START + 2 * HOUR);
+
+        verifyNoInteractions(notifier);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void refill_AutoRenewingSubscription_IsLeftToRenewal() {
+        insert(1, START + HOUR);
+        jdbcTemplate.update("UPDATE subscriptions SET auto_renew = TRUE WHERE id = 1");
+
+        scheduler.refill();
+        advanceTo(START + 2 * HOUR);
+
+        assertEquals(0, scheduler.pending());
+        assertEquals("ACTIVE", jdbcTemplate.queryForObject("SELECT status FROM subscriptions WHERE id = 1", String.class));
+        verifyNoInteractions(notifier);
+    }
+
+    @Test
+    void advance_Sharded_LoadsEveryShardAndExpiresOnTheUsersShard() {
+        EmbeddedDatabase directory = MigratedDatabase.createDirectory();
+        EmbeddedDatabase otherShard = MigratedDatabase.create();
+        JdbcTemplate otherJdbcTemplate = new JdbcTemplate(otherShard);
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put("shard-0", dataSource);
+        shards.put("shard-1", otherShard);
+        ShardRouter router = new ShardRouter(new ConsistentHashRing(shards.keySet(), 64), shards, 2);
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(directory, shards);
+        routingDataSource.afterPropertiesSet();
+        try {
+            long firstUser = userOn(router, "shard-0");
+            long secondUser = userOn(router, "shard-1");
+            MigratedDatabase.insertUser(jdbcTemplate, firstUser);
+            MigratedDatabase.insertUser(otherJdbcTemplate, secondUser);
+            insert(jdbcTemplate, 1, firstUser, 1, START + HOUR);
+            insert(otherJdbcTemplate, 2, secondUser, 1, START + HOUR);
+            insert(otherJdbcTemplate, 3, secondUser, 2, START + 3 * DAY + 2 * HOUR);
+            scheduler = scheduler(routingDataSource, router);
+
+            scheduler.refill();
+            assertEquals(3, scheduler.pending());
+            advanceTo(START + 2 * HOUR);
+
+            assertEquals("EXPIRED", jdbcTemplate.queryForObject(
+                    "SELECT status FROM subscriptions WHERE id = 1", String.class));
+            assertEquals("EXPIRED", otherJdbcTemplate.queryForObject(
+                    "SELECT status FROM subscriptions WHERE id = 2", String.class));
+            verify(notifier, times(2)).expired(any(ExpiryNotice.class));
+            verify(notifier).expiringSoon(any(ExpiryNotice.class));
+        } finally {
+            router.close();
+            directory.shutdown();
+            otherShard.shutdown();
+        }
+    }
+
+    private SubscriptionExpiryScheduler scheduler(DataSource dataSource, ShardRouter router) {
+        return new SubscriptionExpiryScheduler(dataSource, router,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                eventPublisher, notifier, new SimpleMeterRegistry(), clock::get,
+                Duration.ofSeconds(1), Duration.ofDays(1), Duration.ofDays(3), Duration.ofHours(1));
+    }
+
+    private static long userOn(ShardRouter router, String shard) {
+        long userId = 1;
+        while (!router.shardFor(userId).equals(shard)) {
+            userId++;
+        }
+        return userId;
+    }
+
+    private void advanceTo(long millis) {
+        clock.set(millis);
+        scheduler.advance();
+    }
+
+    private void insert(long id, long endMillis) {
+        MigratedDatabase.insertUser(jdbcTemplate, id);
+        insert(jdbcTemplate, id, id, 1, endMillis);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, long id, long userId, long typeId, long endMillis) {
+        jdbcTemplate.update("INSERT INTO subscriptions (id, user_id, subscription_type_id, status, start_date, end_date, version) " +
+                        "VALUES (?, ?, ?, 'ACTIVE', ?, ?, 0)",
+                id, userId, typeId, OffsetDateTime.ofInstant(Instant.ofEpochMilli(START - DAY), ZoneOffset.UTC),
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(endMillis), ZoneOffset.UTC));
+    }
+
+    private static SubscriptionEvent event(SubscriptionEventType type, long id, long endMillis) {
+        return SubscriptionEvent.builder()
+                .type(type)
+                .subscriptionId(id)
+                .userId(1L)
+                .subscriptionTypeId(1L)
+                .status(SubscriptionStatus.ACTIVE)
+                .endDate(Instant.ofEpochMilli(endMillis))
+                .occurredAt(Instant.ofEpochMilli(START))
+                .build();
+    }
+}
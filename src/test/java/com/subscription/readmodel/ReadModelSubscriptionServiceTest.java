@@ -0,0 +1,221 @@
+package com.subscription.readmodel;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.event.SubscriptionsArchivedEvent;
+import com.subscription.event.UserDeletedEvent;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.service.SubscriptionService;
+import com.subscription.support.MigratedDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadModelSubscriptionServiceTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2024, 6, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final long NETFLIX = 2;
+    private static final long SPOTIFY = 3;
+    private static final long VK_MUSIC = 4;
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SubscriptionService delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private ReadModelSubscriptionService service;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = MigratedDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (long userId = 1; userId <= 3; userId++) {
+            MigratedDatabase.insertUser(jdbcTemplate, userId);
+        }
+        insert(10, 1, NETFLIX, "ACTIVE");
+        insert(11, 1, SPOTIFY, "EXPIRED");
+        insert(12, 2, SPOTIFY, "ACTIVE");
+
+        delegate = mock(SubscriptionService.class);
+        service = newService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void beforeInitialization_ReadsGoToDelegate() {
+        service.getUserSubscriptions(1L);
+        service.getTopSubscriptions();
+
+        verify(delegate).getUserSubscriptions(1L, null);
+        verify(delegate).getTopSubscriptions();
+    }
+
+    @Test
+    void initialize_WithoutSnapshot_BuildsFromTablesAndServesFromMemory() {
+        service.initialize();
+
+        List<SubscriptionDto> subscriptions = service.getUserSubscriptions(1L);
+        List<SubscriptionTypeDto> top = service.getTopSubscriptions();
+
+        assertEquals(List.of(10L, 11L), subscriptions.stream().map(SubscriptionDto::getId).toList());
+        assertEquals("Spotify Premium", subscriptions.get(1).getSubscriptionTypeName());
+        assertEquals(SPOTIFY, top.get(0).getId());
+        assertEquals(2L, top.get(0).getCount());
+        verifyNoInteractions(delegate);
+        assertEquals(2.0, meterRegistry.get("subscription.read-model.reads").tag("source", "memory").counter().count());
+    }
+
+    @Test
+    void unknownUser_FallsBackToDelegate() {
+        service.initialize();
+
+        service.getUserSubscriptions(99L);
+
+        verify(delegate).getUserSubscriptions(99L, null);
+    }
+
+    @Test
+    void userWithoutSubscriptions_DeletedElsewhere_IsConfirmedByDelegate() {
+        service.initialize();
+        jdbcTemplate.update("DELETE FROM users WHERE id = 3");
+        when(delegate.getUserSubscriptions(3L, null)).thenThrow(new EntityNotFoundException("User not found with ID: 3"));
+
+        assertTrue(service.verify());
+        assertThrows(EntityNotFoundException.class, () -> service.getUserSubscriptions(3L));
+    }
+
+    @Test
+    void events_KeepModelCurrent() {
+        service.initialize();
+
+        service.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 13, 3, SubscriptionStatus.ACTIVE));
+        service.onSubscriptionEvent(event(SubscriptionEventType.EXPIRED, 10, 1, SubscriptionStatus.EXPIRED));
+        service.onSubscriptionEvent(event(SubscriptionEventType.DELETED, 11, 1, SubscriptionStatus.EXPIRED));
+        service.onUserDeleted(new UserDeletedEvent(2L));
+
+        assertEquals(List.of(13L), service.getUserSubscriptions(3L).stream().map(SubscriptionDto::getId).toList());
+        assertEquals(SubscriptionStatus.EXPIRED, service.getUserSubscriptions(1L).get(0).getStatus());
+        assertEquals(1, service.getUserSubscriptions(1L).size());
+        service.getUserSubscriptions(2L);
+        verify(delegate).getUserSubscriptions(2L, null);
+    }
+
+    @Test
+    void archivedSubscriptions_AreDroppedAndReadFromDatabaseWhenRequested() {
+        service.initialize();
+
+        service.onSubscriptionsArchived(new SubscriptionsArchivedEvent(List.of(11L)));
+
+        assertEquals(List.of(10L), service.getUserSubscriptions(1L).stream().map(SubscriptionDto::getId).toList());
+        service.getUserSubscriptions(1L, null, true);
+        verify(delegate).getUserSubscriptions(1L, null, true);
+    }
+
+    @Test
+    void verify_DetectsWritesMissedByEventsAndRebuilds() {
+        service.initialize();
+        assertTrue(service.verify());
+
+        insert(13, 3, NETFLIX, "ACTIVE");
+        jdbcTemplate.update("UPDATE subscriptions SET status = 'EXPIRED' WHERE id = 12");
+
+        assertFalse(service.verify());
+        assertEquals(List.of(13L), service.getUserSubscriptions(3L).stream().map(SubscriptionDto::getId).toList());
+        assertEquals(SubscriptionStatus.EXPIRED, service.getUserSubscriptions(2L).get(0).getStatus());
+        assertTrue(service.verify());
+    }
+
+    @Test
+    void verify_DetectsInPlaceChangesMadeElsewhere() {
+        service.initialize();
+
+        // A renewal, a type change and an auto-renew flip keep every status count and id sum unchanged
+        jdbcTemplate.update("UPDATE subscriptions SET end_date = ? WHERE id = 10", START.plusMonths(2));
+        assertFalse(service.verify());
+        jdbcTemplate.update("UPDATE subscriptions SET subscription_type_id = ? WHERE id = 11", VK_MUSIC);
+        assertFalse(service.verify());
+        jdbcTemplate.update("UPDATE subscriptions SET auto_renew = TRUE WHERE id = 12");
+        assertFalse(service.verify());
+
+        List<SubscriptionDto> first = service.getUserSubscriptions(1L);
+        assertEquals(START.plusMonths(2).toInstant(), first.get(0).getEndDate());
+        assertEquals(VK_MUSIC, first.get(1).getSubscriptionTypeId());
+        assertTrue(service.getUserSubscriptions(2L).get(0).getAutoRenew());
+        assertTrue(service.verify());
+    }
+
+    @Test
+    void close_WritesSnapshotThatTheNextStartLoads() {
+        service.initialize();
+        service.close();
+        assertTrue(Files.exists(directory.resolve("read-model.bin")));
+
+        ReadModelSubscriptionService restarted = newService();
+        restarted.initialize();
+
+        assertEquals(List.of(10L, 11L), restarted.getUserSubscriptions(1L).stream().map(SubscriptionDto::getId).toList());
+        assertTrue(meterRegistry.find("subscription.read-model.rebuilds").counters().isEmpty());
+    }
+
+    @Test
+    void initialize_StaleSnapshot_Rebuilds() {
+        service.initialize();
+        service.snapshot();
+        insert(13, 3, NETFLIX, "ACTIVE");
+
+        ReadModelSubscriptionService restarted = newService();
+        restarted.initialize();
+
+        assertEquals(List.of(13L), restarted.getUserSubscriptions(3L).stream().map(SubscriptionDto::getId).toList());
+    }
+
+    private ReadModelSubscriptionService newService() {
+        meterRegistry = new SimpleMeterRegistry();
+        return new ReadModelSubscriptionService(delegate, dataSource,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), meterRegistry,
+                directory.resolve("read-model.bin"), Duration.ofMinutes(5), Duration.ofMinutes(1));
+    }
+
+    private void insert(long id, long userId, long typeId, String status) {
+        jdbcTemplate.update("INSERT INTO subscriptions (id, user_id, subscription_type_id, status, start_date, end_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", id, userId, typeId, status, START, START.plusMonths(1));
+    }
+
+    private static SubscriptionEvent event(SubscriptionEventType type, long id, long userId, SubscriptionStatus status) {
+        return SubscriptionEvent.builder()
+                .type(type)
+                .subscriptionId(id)
+                .userId(userId)
+                .subscriptionTypeId(NETFLIX)
+                .status(status)
+                .startDate(START.toInstant())
+                .endDate(START.plusMonths(1).toInstant())
+                .occurredAt(START.toInstant())
+                .build();
+    }
+}
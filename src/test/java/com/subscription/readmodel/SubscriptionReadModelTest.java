@@ -0,0 +1,119 @@
+package com.subscription.readmodel;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.model.SubscriptionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionReadModelTest {
+
+    private static final long START = Instant.parse("2024-06-01T00:00:00Z").getEpochSecond();
+
+    private SubscriptionReadModel model;
+
+    @BeforeEach
+    void setUp() {
+        model = new SubscriptionReadModel(0);
+        model.putTypeName(1, "Netflix");
+        model.putTypeName(2, "Spotify Premium");
+        model.putTypeName(3, "VK Music");
+    }
+
+    @Test
+    void findByUser_ReturnsUsersSubscriptionsOrderedById() {
+        model.upsert(12, 100, 2, START, SubscriptionReadModel.NO_DATE, SubscriptionStatus.ACTIVE, true);
+        model.upsert(11, 100, 1, START, START + 3600, SubscriptionStatus.EXPIRED, false);
+        model.upsert(13, 200, 1, START, SubscriptionReadModel.NO_DATE, SubscriptionStatus.ACTIVE, false);
+
+        List<SubscriptionDto> subscriptions = model.findByUser(100, null);
+
+        assertEquals(List.of(11L, 12L), subscriptions.stream().map(SubscriptionDto::getId).toList());
+        assertEquals("Netflix", subscriptions.get(0).getSubscriptionTypeName());
+        assertEquals(Instant.ofEpochSecond(START + 3600), subscriptions.get(0).getEndDate());
+        assertNull(subscriptions.get(1).getEndDate());
+        assertTrue(subscriptions.get(1).getAutoRenew());
+        assertEquals(List.of(12L), model.findByUser(100, Set.of(SubscriptionStatus.ACTIVE)).stream()
+                .map(SubscriptionDto::getId).toList());
+    }
+
+    @Test
+    void findByUser_UnknownUser_ReturnsNull_KnownUserWithoutSubscriptions_ReturnsEmpty() {
+        model.putUser(300);
+
+        assertNull(model.findByUser(999, null));
+        assertEquals(List.of(), model.findByUser(300, null));
+    }
+
+    @Test
+    void upsert_ExistingId_ReplacesEntry() {
+        model.upsert(11, 100, 1, START, START + 60, SubscriptionStatus.ACTIVE, false);
+        model.upsert(11, 100, 1, START, START + 60, SubscriptionStatus.EXPIRED, false);
+
+        assertEquals(1, model.size());
+        assertEquals(SubscriptionStatus.EXPIRED, model.findByUser(100, null).get(0).getStatus());
+        assertEquals(new SubscriptionReadModel.StatusTotals(0, 0, 0), model.statusTotals().get(SubscriptionStatus.ACTIVE));
+        assertEquals(new SubscriptionReadModel.StatusTotals(1, 11,
+                SubscriptionReadModel.rowChecksum(11, 1, START, START + 60, false)), model.statusTotals().get(SubscriptionStatus.EXPIRED));
+    }
+
+    @Test
+    void remove_And_RemoveUser_DropEntriesAndCounts() {
+        model.upsert(11, 100, 1, START, START, SubscriptionStatus.ACTIVE, false);
+        model.upsert(12, 100, 2, START, START, SubscriptionStatus.ACTIVE, false);
+        model.upsert(13, 200, 2, START, START, SubscriptionStatus.ACTIVE, false);
+
+        model.remove(12);
+        assertEquals(List.of(11L), model.findByUser(100, null).stream().map(SubscriptionDto::getId).toList());
+
+        model.removeUser(100);
+        assertNull(model.findByUser(100, null));
+        assertEquals(1, model.size());
+        assertEquals(new SubscriptionReadModel.StatusTotals(1, 13,
+                SubscriptionReadModel.rowChecksum(13, 2, START, START, false)), model.statusTotals().get(SubscriptionStatus.ACTIVE));
+    }
+
+    @Test
+    void top_OrdersTypesByCountThenId() {
+        model.upsert(1, 100, 3, START, START, SubscriptionStatus.ACTIVE, false);
+        model.upsert(2, 101, 3, START, START, SubscriptionStatus.ACTIVE, false);
+        model.upsert(3, 102, 1, START, START, SubscriptionStatus.ACTIVE, false);
+        model.upsert(4, 103, 2, START, START, SubscriptionStatus.ACTIVE, false);
+
+        List<SubscriptionTypeDto> top = model.top(2);
+
+        assertEquals(2, top.size());
+        assertEquals(3L, top.get(0).getId());
+        assertEquals("VK Music", top.get(0).getName());
+        assertEquals(2L, top.get(0).getCount());
+        assertEquals(1L, top.get(1).getId());
+    }
+
+    @Test
+    void snapshot_RoundTripsEverything(@TempDir Path directory) throws Exception {
+        model.putUser(1000);
+        for (long id = 1; id <= 5_000; id++) {
+            model.upsert(id, 100 + id % 250, 1 + id % 3, START + id, id % 2 == 0 ? START + 2 * id : SubscriptionReadModel.NO_DATE,
+                    id % 7 == 0 ? SubscriptionStatus.EXPIRED : SubscriptionStatus.ACTIVE, id % 5 == 0);
+        }
+        model.remove(10);
+        Path file = directory.resolve("nested").resolve("read-model.bin");
+
+        model.writeSnapshot(file);
+        SubscriptionReadModel loaded = SubscriptionReadModel.readSnapshot(file);
+
+        assertEquals(model.size(), loaded.size());
+        assertEquals(model.statusTotals(), loaded.statusTotals());
+        assertEquals(model.top(3), loaded.top(3));
+        assertEquals(model.findByUser(110, null), loaded.findByUser(110, null));
+        assertEquals(List.of(), loaded.findByUser(1000, null));
+    }
+}
@@ -0,0 +1,206 @@
+package com.subscription.renewal;
+
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.shard.ShardRouter;
+import com.subscription.shard.ShardRoutingDataSource;
+import com.subscription.support.MigratedDatabase;
+import com.subscription.util.ConsistentHashRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SubscriptionRenewalEngineTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2024, 6, 15, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final long MONTHLY_TYPE = 1;
+    private static final long ONE_OFF_TYPE = 2;
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private SubscriptionRenewalEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = MigratedDatabase.create();
+        jdbcTemplate = createTypes(dataSource);
+
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        engine = engine(dataSource, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void processBatch_DueMonthlySubscription_ExtendsEndDateByOnePeriod() {
+        insert(1, MONTHLY_TYPE, NOW.minusDays(1), true);
+
+        assertEquals(1, engine.processBatch());
+
+        assertEquals(NOW.minusDays(1).plusMonths(1).toInstant(), endDate(1).toInstant());
+        assertEquals("ACTIVE", status(1));
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT version FROM subscriptions WHERE id = 1", Long.class));
+        ArgumentCaptor<SubscriptionEvent> event = ArgumentCaptor.forClass(SubscriptionEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(SubscriptionEventType.RENEWED, event.getValue().getType());
+        assertEquals(SubscriptionStatus.ACTIVE, event.getValue().getStatus());
+        assertEquals(1.0, meterRegistry.get("subscription.renewals").tag("outcome", "renewed").counter().count());
+    }
+
+    @Test
+    void processBatch_MissedSeveralPeriods_CatchesUpPastNow() {
+        insert(1, MONTHLY_TYPE, NOW.minusMonths(3).minusDays(1), true);
+
+        engine.processBatch();
+
+        assertEquals(NOW.minusMonths(3).minusDays(1).plusMonths(4).toInstant(), endDate(1).toInstant());
+    }
+
+    @Test
+    void processBatch_StartedOnMonthEnd_KeepsEndingOnMonthEnd() {
+        OffsetDateTime start = OffsetDateTime.of(2024, 1, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+        insert(jdbcTemplate, 1, MONTHLY_TYPE, start, start.plusMonths(1), true);
+
+        engine.processBatch();
+
+        // Extending Feb 29 month by month would end on Jun 29
+        assertEquals(OffsetDateTime.of(2024, 6, 30, 0, 0, 0, 0, ZoneOffset.UTC).toInstant(), endDate(1).toInstant());
+    }
+
+    @Test
+    void processBatch_TypeWithoutBillingPeriod_Expires() {
+        insert(1, ONE_OFF_TYPE, NOW.minusHours(1), true);
+
+        engine.processBatch();
+
+        assertEquals("EXPIRED", status(1));
+        ArgumentCaptor<SubscriptionEvent> event = ArgumentCaptor.forClass(SubscriptionEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(SubscriptionEventType.EXPIRED, event.getValue().getType());
+    }
+
+    @Test
+    void processBatch_NotDueOrNotAutoRenewing_IsLeftAlone() {
+        insert(1, MONTHLY_TYPE, NOW.plusDays(1), true);
+        insert(2, MONTHLY_TYPE, NOW.minusDays(1), false);
+
+        assertEquals(0, engine.processBatch());
+
+        assertEquals(NOW.plusDays(1).toInstant(), endDate(1).toInstant());
+        assertEquals(NOW.minusDays(1).toInstant(), endDate(2).toInstant());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void drain_MoreThanOneBatchDue_ProcessesAllAndClearsBacklog() {
+        for (long id = 1; id <= 5; id++) {
+            insert(id, MONTHLY_TYPE, NOW.minusDays(id), true);
+        }
+        assertEquals(5, engine.refreshBacklog());
+
+        assertEquals(5, engine.drain());
+
+        assertEquals(0, engine.refreshBacklog());
+        assertEquals(0.0, meterRegistry.get("subscription.renewal.backlog").gauge().value());
+        List<Long> versions = jdbcTemplate.queryForList("SELECT version FROM subscriptions", Long.class);
+        assertTrue(versions.stream().allMatch(version -> version == 1L));
+    }
+
+    @Test
+    void drain_Sharded_RenewsDueSubscriptionsOnEveryShard() {
+        EmbeddedDatabase directory = MigratedDatabase.createDirectory();
+        EmbeddedDatabase otherShard = MigratedDatabase.create();
+        JdbcTemplate otherJdbcTemplate = createTypes(otherShard);
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put("shard-0", dataSource);
+        shards.put("shard-1", otherShard);
+        ShardRouter router = new ShardRouter(new ConsistentHashRing(shards.keySet(), 64), shards, 2);
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(directory, shards);
+        routingDataSource.afterPropertiesSet();
+        try {
+            SubscriptionRenewalEngine shardedEngine = engine(routingDataSource, router);
+            for (long id = 1; id <= 3; id++) {
+                insert(jdbcTemplate, id, MONTHLY_TYPE, NOW.minusDays(id), true);
+            }
+            insert(otherJdbcTemplate, 4, MONTHLY_TYPE, NOW.minusDays(4), true);
+            insert(otherJdbcTemplate, 5, ONE_OFF_TYPE, NOW.minusDays(5), true);
+            assertEquals(5, shardedEngine.refreshBacklog());
+
+            assertEquals(5, shardedEngine.drain());
+
+            assertEquals(0, shardedEngine.refreshBacklog());
+            assertEquals(NOW.minusDays(4).plusMonths(1).toInstant(), otherJdbcTemplate.queryForObject(
+                    "SELECT end_date FROM subscriptions WHERE id = 4", OffsetDateTime.class).toInstant());
+            assertEquals("EXPIRED", otherJdbcTemplate.queryForObject(
+                    "SELECT status FROM subscriptions WHERE id = 5", String.class));
+        } finally {
+            router.close();
+            directory.shutdown();
+            otherShard.shutdown();
+        }
+    }
+
+    private SubscriptionRenewalEngine engine(DataSource dataSource, ShardRouter router) {
+        return new SubscriptionRenewalEngine(dataSource, router,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                eventPublisher, meterRegistry, () -> NOW.toInstant().toEpochMilli(),
+                2, 2, Duration.ofSeconds(30), Duration.ofMinutes(1));
+    }
+
+    // The seeded types all bill monthly; one of them is made a one-off purchase
+    private static JdbcTemplate createTypes(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("UPDATE subscription_types SET billing_period = NULL WHERE id = ?", ONE_OFF_TYPE);
+        return jdbcTemplate;
+    }
+
+    private void insert(long id, long typeId, OffsetDateTime endDate, boolean autoRenew) {
+        insert(jdbcTemplate, id, typeId, endDate, autoRenew);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, long id, long typeId, OffsetDateTime endDate,
+                               boolean autoRenew) {
+        insert(jdbcTemplate, id, typeId, endDate.minusMonths(1), endDate, autoRenew);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, long id, long typeId, OffsetDateTime startDate,
+                               OffsetDateTime endDate, boolean autoRenew) {
+        MigratedDatabase.insertUser(jdbcTemplate, id);
+        jdbcTemplate.update("INSERT INTO subscriptions (id, user_id, subscription_type_id, status, start_date, end_date, " +
+                        "version, auto_renew) VALUES (?, ?, ?, 'ACTIVE', ?, ?, 0, ?)",
+                id, id, typeId, startDate, endDate, autoRenew);
+    }
+
+    private OffsetDateTime endDate(long id) {
+        return jdbcTemplate.queryForObject("SELECT end_date FROM subscriptions WHERE id = ?", OffsetDateTime.class, id);
+    }
+
+    private String status(long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM subscriptions WHERE id = ?", String.class, id);
+    }
+}
@@ -0,0 +1,172 @@
+package com.subscription.service;
+
+import com.subscription.dto.ExportDataset;
+import com.subscription.dto.ExportResultDto;
+import com.subscription.service.impl.ExportServiceImpl;
+import com.subscription.shard.ShardRouter;
+import com.subscription.shard.ShardRoutingDataSource;
+import com.subscription.support.MigratedDatabase;
+import com.subscription.util.ConsistentHashRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportServiceTest {
+
+    @TempDir
+    Path exportDirectory;
+
+    private EmbeddedDatabase dataSource;
+    private SimpleMeterRegistry meterRegistry;
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = MigratedDatabase.create();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (int i = 1; i <= 10; i++) {
+            insertUser(jdbcTemplate, i, i == 1 ? "O'Neil, Jr." : "Last");
+        }
+        jdbcTemplate.update("INSERT INTO subscriptions (id, user_id, subscription_type_id, status, start_date) " +
+                "VALUES (1, 1, 2, 'ACTIVE', TIMESTAMP WITH TIME ZONE '2024-06-01 00:00:00Z')");
+
+        meterRegistry = new SimpleMeterRegistry();
+        exportService = new ExportServiceImpl(dataSource, provider(null), meterRegistry, exportDirectory.toString(), 2, 4, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void exportCsv_FallsBackToCursorAndWritesHeaderAndRows() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ExportResultDto result = exportService.exportCsv(ExportDataset.USERS, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(10, result.getRows());
+        assertEquals(11, lines.size());
+        assertEquals("id,username,email,first_name,last_name,created_at,updated_at", lines.get(0));
+        assertTrue(lines.get(1).startsWith("1,user1,user1@example.com,First,\"O'Neil, Jr.\","), lines.get(1));
+        assertEquals(10.0, meterRegistry.get("export.rows").tag("dataset", "users").counter().count());
+    }
+
+    @Test
+    void exportCsv_Subscriptions_JoinsTypeName() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ExportResultDto result = exportService.exportCsv(ExportDataset.SUBSCRIPTIONS, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, result.getRows());
+        assertTrue(lines.get(0).contains("subscription_type"));
+        assertTrue(lines.get(1).startsWith("1,1,2,Netflix,ACTIVE"));
+    }
+
+    @Test
+    void exportCsvFiles_SplitsByIdRange() throws IOException {
+        ExportResultDto result = exportService.exportCsvFiles(ExportDataset.USERS, 3);
+
+        assertEquals(10, result.getRows());
+        assertEquals(3, result.getFiles().size());
+        long dataLines = 0;
+        for (String file : result.getFiles()) {
+            List<String> lines = Files.readAllLines(Path.of(file));
+            assertTrue(lines.get(0).startsWith("id,"));
+            dataLines += lines.size() - 1;
+        }
+        assertEquals(10, dataLines);
+    }
+
+    @Test
+    void exportCsvFiles_EmptyTable_WritesHeaderOnly() throws IOException {
+        new JdbcTemplate(dataSource).update("DELETE FROM subscriptions");
+
+        ExportResultDto result = exportService.exportCsvFiles(ExportDataset.SUBSCRIPTIONS, 2);
+
+        assertEquals(0, result.getRows());
+        assertEquals(1, result.getFiles().size());
+        assertEquals(1, Files.readAllLines(Path.of(result.getFiles().get(0))).size());
+    }
+
+    @Test
+    void exportCsvFiles_InvalidParallelism_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> exportService.exportCsvFiles(ExportDataset.USERS, 0));
+        assertThrows(IllegalArgumentException.class, () -> exportService.exportCsvFiles(ExportDataset.USERS, 5));
+    }
+
+    @Test
+    void export_Sharded_ReadsEveryShard() throws IOException {
+        EmbeddedDatabase directory = MigratedDatabase.createDirectory();
+        EmbeddedDatabase otherShard = MigratedDatabase.create();
+        JdbcTemplate otherJdbcTemplate = new JdbcTemplate(otherShard);
+        for (int i = 11; i <= 15; i++) {
+            insertUser(otherJdbcTemplate, i, "Last");
+        }
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put("shard-0", dataSource);
+        shards.put("shard-1", otherShard);
+        ShardRouter router = new ShardRouter(new ConsistentHashRing(shards.keySet(), 64), shards, 2);
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(directory, shards);
+        routingDataSource.afterPropertiesSet();
+        try {
+            ExportService shardedExportService = new ExportServiceImpl(routingDataSource, provider(router), meterRegistry,
+                    exportDirectory.toString(), 2, 4, true);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            ExportResultDto streamed = shardedExportService.exportCsv(ExportDataset.USERS, out);
+
+            List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals(15, streamed.getRows());
+            assertEquals(16, lines.size());
+            assertEquals(1, lines.stream().filter(line -> line.startsWith("id,")).count());
+
+            ExportResultDto files = shardedExportService.exportCsvFiles(ExportDataset.USERS, 2);
+
+            assertEquals(15, files.getRows());
+            assertEquals(4, files.getFiles().size());
+            long dataLines = 0;
+            for (String file : files.getFiles()) {
+                dataLines += Files.readAllLines(Path.of(file)).size() - 1;
+            }
+            assertEquals(15, dataLines);
+        } finally {
+            router.close();
+            directory.shutdown();
+            otherShard.shutdown();
+        }
+    }
+
+    private static ObjectProvider<ShardRouter> provider(ShardRouter router) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (router != null) {
+            beanFactory.addBean("shardRouter", router);
+        }
+        return beanFactory.getBeanProvider(ShardRouter.class);
+    }
+
+    private static void insertUser(JdbcTemplate jdbcTemplate, int id, String lastName) {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, first_name, last_name) VALUES (?, ?, ?, ?, ?)",
+                id, "user" + id, "user" + id + "@example.com", "First", lastName);
+    }
+}
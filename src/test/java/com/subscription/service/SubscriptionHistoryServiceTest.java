@@ -0,0 +1,205 @@
+package com.subscription.service;
+
+import com.subscription.dto.SubscriptionHistoryDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.SubscriptionHistory;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.repository.SubscriptionHistoryRepository;
+import com.subscription.service.impl.SubscriptionHistoryServiceImpl;
+import com.subscription.shard.ShardContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionHistoryServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-31T10:00:00Z");
+
+    @Mock
+    private SubscriptionHistoryRepository subscriptionHistoryRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private SubscriptionHistoryServiceImpl subscriptionHistoryService;
+
+    private SubscriptionEvent event;
+
+    @BeforeEach
+    void setUp() {
+        event = SubscriptionEvent.builder()
+                .type(SubscriptionEventType.CREATED)
+                .subscriptionId(1L)
+                .userId(1L)
+                .subscriptionTypeId(1L)
+                .status(SubscriptionStatus.ACTIVE)
+                .startDate(NOW)
+                .occurredAt(NOW)
+                .build();
+    }
+
+    @Test
+    void flush_WritesBufferedEventsInOneBatch() {
+        List<List<SubscriptionEvent>> batches = recordBatches();
+        SubscriptionEvent deleted = event.toBuilder().type(SubscriptionEventType.DELETED).build();
+        subscriptionHistoryService.onSubscriptionEvent(event);
+        subscriptionHistoryService.onSubscriptionEvent(deleted);
+
+        subscriptionHistoryService.flush();
+
+        assertEquals(List.of(List.of(event, deleted)), batches);
+    }
+
+    @Test
+    void flush_NothingBuffered_DoesNotTouchDatabase() {
+        subscriptionHistoryService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_Failure_KeepsEventsForRetry() {
+        List<List<SubscriptionEvent>> batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    batches.add(List.copyOf(invocation.<Collection<SubscriptionEvent>>getArgument(1)));
+                    throw new RuntimeException("Database unavailable");
+                })
+                .thenAnswer(invocation -> {
+                    batches.add(List.copyOf(invocation.<Collection<SubscriptionEvent>>getArgument(1)));
+                    return new int[][]{{1}};
+                });
+
+        subscriptionHistoryService.onSubscriptionEvent(event);
+        subscriptionHistoryService.flush();
+        subscriptionHistoryService.flush();
+
+        assertEquals(List.of(List.of(event), List.of(event)), batches);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onSubscriptionEvent_DatabaseDown_DropsOldestWithoutRetryingInline() {
+        ReflectionTestUtils.setField(subscriptionHistoryService, "maxPending", 3);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("Database unavailable"));
+
+        for (long id = 1; id <= 10; id++) {
+            subscriptionHistoryService.onSubscriptionEvent(event.toBuilder().subscriptionId(id).build());
+        }
+
+        // Only the first backlog was flushed inline; after it failed, events 1..7 were dropped
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(7.0, meterRegistry.counter("subscription.history.dropped").count());
+
+        List<List<SubscriptionEvent>> batches = recordBatches();
+        subscriptionHistoryService.flush();
+        assertEquals(List.of(8L, 9L, 10L), batches.get(0).stream().map(SubscriptionEvent::getSubscriptionId).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onSubscriptionEvent_InlineFlushOnShardThread_WritesToDirectory() {
+        ReflectionTestUtils.setField(subscriptionHistoryService, "maxPending", 1);
+        List<String> shards = new ArrayList<>();
+        doAnswer(invocation -> {
+            shards.add(ShardContext.current());
+            return new int[][]{};
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        ShardContext.call("shard-1", () -> {
+            subscriptionHistoryService.onSubscriptionEvent(event);
+            assertEquals("shard-1", ShardContext.current());
+            return null;
+        });
+
+        assertEquals(Collections.singletonList(null), shards);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<SubscriptionEvent>> recordBatches() {
+        // flush() reuses its batch list, so the argument is copied when the call is made
+        List<List<SubscriptionEvent>> batches = new ArrayList<>();
+        doAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<Collection<SubscriptionEvent>>getArgument(1)));
+            return new int[][]{};
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        return batches;
+    }
+
+    @Test
+    void getUserHistory_Success() {
+        Instant from = NOW.minus(Duration.ofDays(30));
+        Instant to = NOW;
+        SubscriptionHistory history = SubscriptionHistory.builder()
+                .id(1L)
+                .subscriptionId(1L)
+                .userId(1L)
+                .subscriptionTypeId(2L)
+                .eventType(SubscriptionEventType.DELETED)
+                .status(SubscriptionStatus.ACTIVE)
+                .recordedAt(to.minus(Duration.ofDays(1)))
+                .build();
+        when(subscriptionHistoryRepository.findUserHistory(1L, from, to)).thenReturn(List.of(history));
+
+        List<SubscriptionHistoryDto> result = subscriptionHistoryService.getUserHistory(1L, from, to);
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getSubscriptionId());
+        assertEquals(2L, result.get(0).getSubscriptionTypeId());
+        assertEquals(SubscriptionEventType.DELETED, result.get(0).getEventType());
+        verify(subscriptionHistoryRepository).findUserHistory(1L, from, to);
+    }
+
+    @Test
+    void getUserHistory_NoRange_ReadsEverythingUpToNow() {
+        when(subscriptionHistoryRepository.findUserHistory(1L, Instant.EPOCH, NOW)).thenReturn(List.of());
+
+        assertTrue(subscriptionHistoryService.getUserHistory(1L, null, null).isEmpty());
+
+        verify(subscriptionHistoryRepository).findUserHistory(1L, Instant.EPOCH, NOW);
+    }
+
+    @Test
+    void getUserHistory_InvertedRange_ThrowsException() {
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> subscriptionHistoryService.getUserHistory(1L, NOW, NOW.minus(Duration.ofDays(1)))
+        );
+
+        assertEquals("'from' must not be after 'to'", exception.getMessage());
+        verifyNoInteractions(subscriptionHistoryRepository);
+    }
+}
@@ -1,35 +1,53 @@
 package com.subscription.service;
 
+import com.subscription.dto.SubscriptionCountDto;
 import com.subscription.dto.SubscriptionDto;
 import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.ArchivedSubscription;
+import com.subscription.model.BillingPeriod;
 import com.subscription.model.Subscription;
 import com.subscription.model.SubscriptionStatus;
 import com.subscription.model.SubscriptionType;
 import com.subscription.model.User;
+import com.subscription.repository.ArchivedSubscriptionRepository;
 import com.subscription.repository.SubscriptionRepository;
 import com.subscription.repository.SubscriptionTypeRepository;
 import com.subscription.repository.UserRepository;
 import com.subscription.service.impl.SubscriptionServiceImpl;
+import com.subscription.util.StaleWhileRevalidateCache;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.time.ZonedDateTime;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class SubscriptionServiceTest {
 
+    private static final Instant NOW = Instant.parse("2024-01-31T10:00:00Z");
+
     @Mock
     private SubscriptionRepository subscriptionRepository;
 
@@ -39,6 +57,18 @@ class SubscriptionServiceTest {
     @Mock
     private SubscriptionTypeRepository subscriptionTypeRepository;
 
+    @Mock
+    private ArchivedSubscriptionRepository archivedSubscriptionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StaleWhileRevalidateCache<List<SubscriptionTypeDto>> topSubscriptionsCache;
+
+    @Spy
+    private Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
     @InjectMocks
     private SubscriptionServiceImpl subscriptionService;
 
@@ -67,15 +97,19 @@ class SubscriptionServiceTest {
                 .id(1L)
                 .user(user)
                 .subscriptionType(subscriptionType)
-                .startDate(ZonedDateTime.now())
+                .startDate(NOW)
                 .status(SubscriptionStatus.ACTIVE)
                 .build();
 
         subscriptionDto = SubscriptionDto.builder()
                 .subscriptionTypeId(1L)
-                .startDate(ZonedDateTime.now())
+                .startDate(NOW)
                 .status(SubscriptionStatus.ACTIVE)
                 .build();
+
+        // Behave like an always-empty cache so the loader runs on every call
+        lenient().when(topSubscriptionsCache.get(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<List<SubscriptionTypeDto>>>getArgument(0).get());
     }
 
     @Test
@@ -95,6 +129,8 @@ class SubscriptionServiceTest {
         verify(userRepository).findById(1L);
         verify(subscriptionTypeRepository).findById(1L);
         verify(subscriptionRepository).save(any(Subscription.class));
+        verify(eventPublisher).publishEvent(argThat((SubscriptionEvent event) ->
+                event.getType() == SubscriptionEventType.CREATED && event.getSubscriptionId().equals(1L)));
     }
 
     @Test
@@ -110,6 +146,7 @@ class SubscriptionServiceTest {
         verify(userRepository).findById(1L);
         verify(subscriptionTypeRepository, never()).findById(anyLong());
         verify(subscriptionRepository, never()).save(any(Subscription.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -126,6 +163,61 @@ class SubscriptionServiceTest {
         verify(userRepository).findById(1L);
         verify(subscriptionTypeRepository).findById(1L);
         verify(subscriptionRepository, never()).save(any(Subscription.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void addSubscription_RecurringTypeWithoutAutoRenew_DoesNotRenew() {
+        subscriptionType.setBillingPeriod(BillingPeriod.MONTHLY);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(subscriptionTypeRepository.findById(anyLong())).thenReturn(Optional.of(subscriptionType));
+        when(subscriptionRepository.save(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SubscriptionDto result = subscriptionService.addSubscription(1L, subscriptionDto);
+
+        assertFalse(result.getAutoRenew());
+        assertNull(result.getEndDate());
+        verify(subscriptionRepository).save(argThat(subscription -> !subscription.isAutoRenew()));
+    }
+
+    @Test
+    void addSubscription_RecurringTypeWithAutoRenew_RunsForOnePeriod() {
+        subscriptionType.setBillingPeriod(BillingPeriod.MONTHLY);
+        subscriptionDto.setAutoRenew(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(subscriptionTypeRepository.findById(anyLong())).thenReturn(Optional.of(subscriptionType));
+        when(subscriptionRepository.save(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SubscriptionDto result = subscriptionService.addSubscription(1L, subscriptionDto);
+
+        assertTrue(result.getAutoRenew());
+        assertEquals(Instant.parse("2024-02-29T10:00:00Z"), result.getEndDate());
+        verify(subscriptionRepository).save(argThat(Subscription::isAutoRenew));
+    }
+
+    @Test
+    void addSubscription_WithoutStartDate_StartsNow() {
+        subscriptionDto.setStartDate(null);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(subscriptionTypeRepository.findById(anyLong())).thenReturn(Optional.of(subscriptionType));
+        when(subscriptionRepository.save(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SubscriptionDto result = subscriptionService.addSubscription(1L, subscriptionDto);
+
+        assertEquals(NOW, result.getStartDate());
+        verify(eventPublisher).publishEvent(argThat((SubscriptionEvent event) -> NOW.equals(event.getOccurredAt())));
+    }
+
+    @Test
+    void addSubscription_AutoRenewForOneOffType_ThrowsException() {
+        subscriptionDto.setAutoRenew(true);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(subscriptionTypeRepository.findById(anyLong())).thenReturn(Optional.of(subscriptionType));
+
+        assertThrows(IllegalArgumentException.class, () -> subscriptionService.addSubscription(1L, subscriptionDto));
+
+        verify(subscriptionRepository, never()).save(any(Subscription.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -161,6 +253,112 @@ class SubscriptionServiceTest {
         verify(subscriptionRepository, never()).findByUserId(anyLong());
     }
 
+    @Test
+    void getUserSubscriptions_WithStatuses_UsesFilteredQuery() {
+        Set<SubscriptionStatus> statuses = Set.of(SubscriptionStatus.ACTIVE);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(subscriptionRepository.findByUserIdAndStatusIn(1L, statuses)).thenReturn(List.of(subscription));
+
+        List<SubscriptionDto> result = subscriptionService.getUserSubscriptions(1L, statuses);
+
+        assertEquals(1, result.size());
+        assertEquals(SubscriptionStatus.ACTIVE, result.get(0).getStatus());
+        verify(subscriptionRepository, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    void getUserSubscriptions_WithoutStatuses_ReturnsAll() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(subscriptionRepository.findByUserId(1L)).thenReturn(List.of(subscription));
+
+        List<SubscriptionDto> result = subscriptionService.getUserSubscriptions(1L, Set.of());
+
+        assertEquals(1, result.size());
+        verify(subscriptionRepository, never()).findByUserIdAndStatusIn(anyLong(), any());
+    }
+
+    @Test
+    void countUserSubscriptions_FillsMissingStatusesWithZero() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(subscriptionRepository.countByUserIdGroupByStatus(1L)).thenReturn(List.of(
+                new Object[]{SubscriptionStatus.ACTIVE, 2L},
+                new Object[]{SubscriptionStatus.CANCELLED, 1L}));
+
+        SubscriptionCountDto result = subscriptionService.countUserSubscriptions(1L);
+
+        assertEquals(3, result.getTotal());
+        assertEquals(2L, result.getByStatus().get(SubscriptionStatus.ACTIVE));
+        assertEquals(1L, result.getByStatus().get(SubscriptionStatus.CANCELLED));
+        assertEquals(0L, result.getByStatus().get(SubscriptionStatus.PENDING));
+        assertEquals(0L, result.getByStatus().get(SubscriptionStatus.EXPIRED));
+    }
+
+    @Test
+    void countUserSubscriptions_UserNotFound_ThrowsException() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> subscriptionService.countUserSubscriptions(1L));
+
+        verify(subscriptionRepository, never()).countByUserIdGroupByStatus(anyLong());
+    }
+
+    @Test
+    void getUserSubscriptions_IncludeArchived_AppendsArchivedRowsNotStillHot() {
+        ArchivedSubscription archived = ArchivedSubscription.builder()
+                .id(7L)
+                .userId(1L)
+                .subscriptionType(subscriptionType)
+                .startDate(NOW)
+                .status(SubscriptionStatus.CANCELLED)
+                .build();
+        ArchivedSubscription justArchived = ArchivedSubscription.builder()
+                .id(1L)
+                .userId(1L)
+                .subscriptionType(subscriptionType)
+                .status(SubscriptionStatus.CANCELLED)
+                .build();
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(subscriptionRepository.findByUserId(anyLong())).thenReturn(List.of(subscription));
+        when(archivedSubscriptionRepository.findByUserIdOrderById(anyLong())).thenReturn(List.of(justArchived, archived));
+
+        List<SubscriptionDto> result = subscriptionService.getUserSubscriptions(1L, null, true);
+
+        assertEquals(List.of(1L, 7L), result.stream().map(SubscriptionDto::getId).toList());
+        assertEquals(SubscriptionStatus.ACTIVE, result.get(0).getStatus());
+        assertEquals(SubscriptionStatus.CANCELLED, result.get(1).getStatus());
+        assertEquals("Netflix", result.get(1).getSubscriptionTypeName());
+    }
+
+    @Test
+    void getUserSubscriptions_WithoutArchived_DoesNotReadArchive() {
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(subscriptionRepository.findByUserIdAndStatusIn(1L, Set.of(SubscriptionStatus.ACTIVE)))
+                .thenReturn(List.of(subscription));
+
+        List<SubscriptionDto> result = subscriptionService.getUserSubscriptions(1L, Set.of(SubscriptionStatus.ACTIVE), false);
+
+        assertEquals(1, result.size());
+        verifyNoInteractions(archivedSubscriptionRepository);
+    }
+
+    @Test
+    void streamSubscriptionsByUsers_QueriesInChunksAndIncludesUsersWithoutSubscriptions() {
+        ReflectionTestUtils.setField(subscriptionService, "batchChunkSize", 2);
+        when(subscriptionRepository.findWithTypeByUserIdIn(List.of(1L, 2L))).thenReturn(List.of(subscription));
+        when(subscriptionRepository.findWithTypeByUserIdIn(List.of(3L))).thenReturn(List.of());
+        List<Map<Long, List<SubscriptionDto>>> chunks = new ArrayList<>();
+
+        subscriptionService.streamSubscriptionsByUsers(List.of(1L, 2L, 1L, 3L), chunks::add);
+
+        assertEquals(2, chunks.size());
+        assertEquals(1, chunks.get(0).get(1L).size());
+        assertEquals("Netflix", chunks.get(0).get(1L).get(0).getSubscriptionTypeName());
+        assertTrue(chunks.get(0).get(2L).isEmpty());
+        assertTrue(chunks.get(1).get(3L).isEmpty());
+        verify(subscriptionRepository, times(2)).findWithTypeByUserIdIn(any());
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
     @Test
     void deleteSubscription_Success() {
         when(subscriptionRepository.findById(anyLong())).thenReturn(Optional.of(subscription));
@@ -170,6 +368,8 @@ class SubscriptionServiceTest {
 
         verify(subscriptionRepository).findById(1L);
         verify(subscriptionRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(argThat((SubscriptionEvent event) ->
+                event.getType() == SubscriptionEventType.DELETED && event.getUserId().equals(1L)));
     }
 
     @Test
@@ -235,4 +435,28 @@ class SubscriptionServiceTest {
 
         verify(subscriptionRepository).findTopSubscriptionTypes();
     }
+
+    @Test
+    void getTopSubscriptions_ServedFromCache_SkipsQuery() {
+        List<SubscriptionTypeDto> cached = List.of(SubscriptionTypeDto.builder().id(1L).name("Netflix").count(10L).build());
+        doReturn(cached).when(topSubscriptionsCache).get(any());
+
+        List<SubscriptionTypeDto> result = subscriptionService.getTopSubscriptions();
+
+        assertEquals(cached, result);
+        assertNotSame(cached.get(0), result.get(0));
+        verify(subscriptionRepository, never()).findTopSubscriptionTypes();
+    }
+
+    @Test
+    void getTopSubscriptions_CallerChanges_DoNotReachTheCache() {
+        List<SubscriptionTypeDto> cached = List.of(SubscriptionTypeDto.builder().id(1L).name("Netflix").count(10L).build());
+        doReturn(cached).when(topSubscriptionsCache).get(any());
+
+        List<SubscriptionTypeDto> result = subscriptionService.getTopSubscriptions();
+        result.get(0).setCount(99L);
+
+        assertEquals(10L, cached.get(0).getCount());
+        assertThrows(UnsupportedOperationException.class, () -> result.add(new SubscriptionTypeDto()));
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,163 @@
+package com.subscription.service;
+
+import com.subscription.dto.StatsGranularity;
+import com.subscription.dto.SubscriptionStatsDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.model.SubscriptionDailyStat;
+import com.subscription.model.SubscriptionStatus;
+import com.subscription.model.SubscriptionType;
+import com.subscription.repository.SubscriptionDailyStatRepository;
+import com.subscription.repository.SubscriptionTypeRepository;
+import com.subscription.service.impl.SubscriptionStatsServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionStatsServiceTest {
+
+    @Mock
+    private SubscriptionDailyStatRepository subscriptionDailyStatRepository;
+
+    @Mock
+    private SubscriptionTypeRepository subscriptionTypeRepository;
+
+    @Mock
+    private SubscriptionHistoryService subscriptionHistoryService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SubscriptionStatsServiceImpl subscriptionStatsService;
+
+    @Test
+    void flush_AggregatesEventsPerTypeAndDay() {
+        Instant occurredAt = Instant.parse("2024-01-10T12:00:00Z");
+        subscriptionStatsService.onSubscriptionEvent(event(SubscriptionEventType.CREATED, occurredAt));
+        subscriptionStatsService.onSubscriptionEvent(event(SubscriptionEventType.CREATED, occurredAt));
+        subscriptionStatsService.onSubscriptionEvent(event(SubscriptionEventType.DELETED, occurredAt));
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(Object[].class))).thenReturn(1);
+
+        subscriptionStatsService.flush();
+
+        verify(jdbcTemplate).update(startsWith("UPDATE"), eq(2L), eq(1L), eq(LocalDate.of(2024, 1, 10)), eq(1L));
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(Object[].class));
+    }
+
+    @Test
+    void flush_MissingRow_InsertsIt() {
+        subscriptionStatsService.onSubscriptionEvent(event(SubscriptionEventType.CREATED, Instant.now()));
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(Object[].class))).thenReturn(0);
+
+        subscriptionStatsService.flush();
+
+        verify(jdbcTemplate).update(startsWith("INSERT"), eq(1L), eq(0L), any(LocalDate.class), eq(1L));
+    }
+
+    @Test
+    void getStats_WeeklyGranularity_SumsDaysIntoWeeks() {
+        LocalDate monday = LocalDate.of(2024, 1, 8);
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 31);
+        when(subscriptionTypeRepository.findAll()).thenReturn(List.of(
+                SubscriptionType.builder().id(1L).name("Netflix").build()));
+        when(subscriptionDailyStatRepository.findByStatDateBetweenOrderByStatDateAscSubscriptionTypeIdAsc(from, to))
+                .thenReturn(List.of(
+                        new SubscriptionDailyStat(monday, 1L, 3, 1),
+                        new SubscriptionDailyStat(monday.plusDays(3), 1L, 2, 0),
+                        new SubscriptionDailyStat(monday.plusDays(7), 1L, 1, 1)));
+
+        List<SubscriptionStatsDto> result = subscriptionStatsService.getStats(from, to, StatsGranularity.WEEK);
+
+        assertEquals(2, result.size());
+        assertEquals(monday, result.get(0).getPeriodStart());
+        assertEquals("Netflix", result.get(0).getSubscriptionTypeName());
+        assertEquals(5, result.get(0).getCreated());
+        assertEquals(1, result.get(0).getCancelled());
+        assertEquals(monday.plusDays(7), result.get(1).getPeriodStart());
+        assertEquals(1, result.get(1).getCreated());
+    }
+
+    @Test
+    void getStats_InvertedRange_ThrowsException() {
+        LocalDate today = LocalDate.now();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> subscriptionStatsService.getStats(today, today.minusDays(1), StatsGranularity.DAY));
+
+        verifyNoInteractions(subscriptionDailyStatRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_FlushesHistoryAndDiscardsIncrementsForTheRange() {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        subscriptionStatsService.onSubscriptionEvent(event(SubscriptionEventType.CREATED, Instant.parse("2024-01-01T10:00:00Z")));
+        subscriptionStatsService.onSubscriptionEvent(event(SubscriptionEventType.CREATED, Instant.parse("2024-01-02T10:00:00Z")));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+        when(jdbcTemplate.update(startsWith("DELETE"), any(LocalDate.class), any(LocalDate.class))).thenReturn(2);
+        when(jdbcTemplate.update(startsWith("INSERT INTO subscription_daily_stats (stat_date"), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+                .thenReturn(5);
+
+        int rows = subscriptionStatsService.rebuild(day, day);
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(Object[].class))).thenReturn(1);
+        subscriptionStatsService.flush();
+
+        assertEquals(5, rows);
+        InOrder inOrder = inOrder(subscriptionHistoryService, jdbcTemplate);
+        inOrder.verify(subscriptionHistoryService).flush();
+        inOrder.verify(jdbcTemplate).update(startsWith("DELETE"), eq(day), eq(day));
+        // Only the increment outside the rebuilt day is still applied
+        verify(jdbcTemplate).update(startsWith("UPDATE"), eq(1L), eq(0L), eq(LocalDate.of(2024, 1, 2)), eq(1L));
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE"), any(), any(), eq(day), any());
+    }
+
+    @Test
+    void rebuild_Failure_KeepsIncrementsForTheRange() {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        subscriptionStatsService.onSubscriptionEvent(event(SubscriptionEventType.CREATED, Instant.parse("2024-01-01T10:00:00Z")));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null);
+            throw new CannotCreateTransactionException("Database unavailable");
+        });
+
+        assertThrows(CannotCreateTransactionException.class, () -> subscriptionStatsService.rebuild(day, day));
+        when(jdbcTemplate.update(startsWith("UPDATE"), any(Object[].class))).thenReturn(1);
+        subscriptionStatsService.flush();
+
+        verify(jdbcTemplate).update(startsWith("UPDATE"), eq(1L), eq(0L), eq(day), eq(1L));
+    }
+
+    private SubscriptionEvent event(SubscriptionEventType type, Instant occurredAt) {
+        return SubscriptionEvent.builder()
+                .type(type)
+                .subscriptionId(1L)
+                .userId(1L)
+                .subscriptionTypeId(1L)
+                .status(SubscriptionStatus.ACTIVE)
+                .occurredAt(occurredAt)
+                .build();
+    }
+}
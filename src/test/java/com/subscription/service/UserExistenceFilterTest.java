@@ -0,0 +1,88 @@
+package com.subscription.service;
+
+import com.subscription.service.impl.UserExistenceFilter;
+import com.subscription.support.MigratedDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserExistenceFilterTest {
+
+    private EmbeddedDatabase dataSource;
+    private SimpleMeterRegistry meterRegistry;
+    private UserExistenceFilter filter;
+    private AtomicInteger databaseChecks;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = MigratedDatabase.create();
+        new JdbcTemplate(dataSource).update("INSERT INTO users (username, email, first_name, last_name) " +
+                "VALUES ('existing', 'existing@example.com', 'Existing', 'User')");
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new UserExistenceFilter(dataSource,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                meterRegistry, true, 1000, 0.01);
+        databaseChecks = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void usernameTaken_BeforeFirstBuild_AlwaysAsksDatabase() {
+        assertFalse(filter.usernameTaken("newuser", this::notInDatabase));
+
+        assertEquals(1, databaseChecks.get());
+    }
+
+    @Test
+    void usernameTaken_UnknownName_SkipsDatabase() {
+        filter.rebuild();
+
+        assertFalse(filter.usernameTaken("newuser", this::notInDatabase));
+
+        assertEquals(0, databaseChecks.get());
+        assertEquals(1.0, meterRegistry.get("user.existence.filter.checks").tag("result", "negative").counter().count());
+    }
+
+    @Test
+    void usernameTaken_KnownName_FallsThroughToDatabaseIgnoringCase() {
+        filter.rebuild();
+
+        assertTrue(filter.usernameTaken("Existing", value -> {
+            databaseChecks.incrementAndGet();
+            return true;
+        }));
+
+        assertEquals(1, databaseChecks.get());
+    }
+
+    @Test
+    void add_MakesNewValuesPossiblePositives() {
+        filter.rebuild();
+        filter.add("fresh", "fresh@example.com");
+
+        filter.emailTaken("fresh@example.com", this::notInDatabase);
+
+        assertEquals(1, databaseChecks.get());
+        assertEquals(1.0, meterRegistry.get("user.existence.filter.false.positives").counter().count());
+        assertTrue(meterRegistry.get("user.existence.filter.memory").gauge().value() > 0);
+    }
+
+    private boolean notInDatabase(String value) {
+        databaseChecks.incrementAndGet();
+        return false;
+    }
+}
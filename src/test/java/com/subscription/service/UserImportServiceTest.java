@@ -0,0 +1,245 @@
+package com.subscription.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subscription.dto.UserImportFormat;
+import com.subscription.dto.UserImportRejectionDto;
+import com.subscription.dto.UserImportResultDto;
+import com.subscription.service.impl.UserExistenceFilter;
+import com.subscription.service.impl.UserImportServiceImpl;
+import com.subscription.shard.ShardRouter;
+import com.subscription.shard.ShardRoutingDataSource;
+import com.subscription.support.MigratedDatabase;
+import com.subscription.util.ConsistentHashRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private UserExistenceFilter userExistenceFilter;
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = MigratedDatabase.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (username, email, first_name, last_name) " +
+                "VALUES ('existing', 'existing@example.com', 'Existing', 'User')");
+
+        userExistenceFilter = mock(UserExistenceFilter.class);
+        userImportService = importService(dataSource, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void importUsers_Csv_InsertsValidRowsAndReportsConflicts() {
+        String csv = """
+                username,email,first_name,last_name
+                alice,alice@example.com,Alice,Smith
+                existing,new@example.com,Dup,User
+                bob,existing@example.com,Bob,Jones
+                alice,alice2@example.com,Alice,Again
+                carol,alice@example.com,Carol,White
+                "dave","dave@example.com","Dave","O'Brien, Jr."
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(input(csv), UserImportFormat.CSV);
+
+        assertEquals(6, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getRejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L), result.getRejections().stream().map(UserImportRejectionDto::getLine).toList());
+        assertEquals(List.of("Username already exists", "Email already exists",
+                        "Duplicate username in import", "Duplicate email in import"),
+                result.getRejections().stream().map(UserImportRejectionDto::getReason).toList());
+        assertEquals("O'Brien, Jr.", jdbcTemplate.queryForObject(
+                "SELECT last_name FROM users WHERE username = 'dave'", String.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+        verify(userExistenceFilter).add("alice", "alice@example.com");
+        verify(userExistenceFilter).add("dave", "dave@example.com");
+    }
+
+    @Test
+    void importUsers_Csv_RejectsInvalidRowsWithoutStagingThem() {
+        String csv = """
+                email,username,lastName,firstName
+                not-an-email,valid,Last,First
+                ok@example.com,ab,Last,First
+                fine@example.com,fine,Last,First
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(input(csv), UserImportFormat.CSV);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals("email: Email should be valid", result.getRejections().get(0).getReason());
+        assertEquals("username: Username must be between 3 and 50 characters", result.getRejections().get(1).getReason());
+    }
+
+    @Test
+    void importUsers_Ndjson_SkipsMalformedLines() {
+        String ndjson = """
+                {"username":"erin","email":"erin@example.com","firstName":"Erin","lastName":"Black"}
+                {not json}
+
+                {"username":"frank","email":"frank@example.com","firstName":"Frank","lastName":"Green"}
+                """;
+
+        UserImportResultDto result = userImportService.importUsers(input(ndjson), UserImportFormat.NDJSON);
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(2L, result.getRejections().get(0).getLine());
+        assertEquals("Malformed JSON", result.getRejections().get(0).getReason());
+    }
+
+    @Test
+    void importUsers_MissingCsvColumn_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userImportService.importUsers(input("username,email\nx,y\n"), UserImportFormat.CSV));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+
+    @Test
+    void importUsers_Sharded_ReservesIdsInDirectoryAndWritesEachUserToItsShard() {
+        try (ShardedDatabases databases = new ShardedDatabases(true)) {
+            String csv = """
+                    username,email,first_name,last_name
+                    alice,alice@example.com,Alice,Smith
+                    existing,new@example.com,Dup,User
+                    bob,bob@example.com,Bob,Jones
+                    carol,carol@example.com,Carol,White
+                    dave,dave@example.com,Dave,Brown
+                    """;
+
+            UserImportResultDto result = importService(databases.routing, databases.router)
+                    .importUsers(input(csv), UserImportFormat.CSV);
+
+            assertEquals(4, result.getImported());
+            assertEquals("Username already exists", result.getRejections().get(0).getReason());
+            List<Long> ids = databases.directory().queryForList(
+                    "SELECT id FROM user_directory WHERE username <> 'existing' ORDER BY id", Long.class);
+            assertEquals(4, ids.size());
+            for (long id : ids) {
+                for (String shard : ShardedDatabases.SHARDS) {
+                    int expected = shard.equals(databases.router.shardFor(id)) ? 1 : 0;
+                    assertEquals(expected, databases.shard(shard).queryForObject(
+                            "SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, id));
+                }
+            }
+        }
+    }
+
+    @Test
+    void importUsers_Sharded_ShardWriteFails_LeavesNoUsersBehind() {
+        try (ShardedDatabases databases = new ShardedDatabases(false)) {
+            String csv = """
+                    username,email,first_name,last_name
+                    alice,alice@example.com,Alice,Smith
+                    bob,bob@example.com,Bob,Jones
+                    carol,carol@example.com,Carol,White
+                    dave,dave@example.com,Dave,Brown
+                    """;
+
+            // shard-0 has no users table; the users already written to shard-1 have to be removed again
+            assertThrows(RuntimeException.class, () -> importService(databases.routing, databases.router)
+                    .importUsers(input(csv), UserImportFormat.CSV));
+
+            assertEquals(1, databases.directory().queryForObject("SELECT COUNT(*) FROM user_directory", Integer.class));
+            assertEquals(0, databases.shard("shard-1").queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+        }
+    }
+
+    private UserImportService importService(DataSource dataSource, ShardRouter router) {
+        return new UserImportServiceImpl(dataSource, provider(router),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                userExistenceFilter,
+                new SimpleMeterRegistry(),
+                2, 100, true);
+    }
+
+    private static ObjectProvider<ShardRouter> provider(ShardRouter router) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (router != null) {
+            beanFactory.addBean("shardRouter", router);
+        }
+        return beanFactory.getBeanProvider(ShardRouter.class);
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A directory holding one existing user and two shards; the first shard may be left without a schema
+    private static final class ShardedDatabases implements AutoCloseable {
+
+        private static final List<String> SHARDS = List.of("shard-0", "shard-1");
+
+        private final EmbeddedDatabase directoryDatabase = MigratedDatabase.createDirectory();
+        private final Map<String, DataSource> shardDatabases = new LinkedHashMap<>();
+        private final ShardRouter router;
+        private final ShardRoutingDataSource routing;
+
+        private ShardedDatabases(boolean createFirstShardSchema) {
+            directory().update("INSERT INTO user_directory (username, email) VALUES ('existing', 'existing@example.com')");
+            for (String shard : SHARDS) {
+                shardDatabases.put(shard, !shard.equals("shard-0") || createFirstShardSchema
+                        ? MigratedDatabase.create() : emptyDatabase());
+            }
+            router = new ShardRouter(new ConsistentHashRing(SHARDS, 64), shardDatabases, 2);
+            routing = new ShardRoutingDataSource(directoryDatabase, shardDatabases);
+            routing.afterPropertiesSet();
+        }
+
+        private JdbcTemplate directory() {
+            return new JdbcTemplate(directoryDatabase);
+        }
+
+        private JdbcTemplate shard(String shard) {
+            return new JdbcTemplate(shardDatabases.get(shard));
+        }
+
+        @Override
+        public void close() {
+            router.close();
+            directoryDatabase.shutdown();
+            shardDatabases.values().forEach(database -> ((EmbeddedDatabase) database).shutdown());
+        }
+
+        private static EmbeddedDatabase emptyDatabase() {
+            return new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.subscription.service;
 
+import com.subscription.dto.PageDto;
 import com.subscription.dto.UserDto;
+import com.subscription.event.UserDeletedEvent;
+import com.subscription.exception.PreconditionFailedException;
 import com.subscription.model.User;
 import com.subscription.repository.UserRepository;
+import com.subscription.service.impl.UserExistenceFilter;
 import com.subscription.service.impl.UserServiceImpl;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,9 +18,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,9 +35,23 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
 
+    private static final Instant NOW = Instant.parse("2024-01-31T10:00:00Z");
+
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserExistenceFilter userExistenceFilter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -48,6 +74,12 @@ class UserServiceTest {
                 .firstName("Test")
                 .lastName("User")
                 .build();
+
+        // Behave like a filter that cannot rule anything out: always fall through to the repository
+        lenient().when(userExistenceFilter.usernameTaken(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Predicate<String>>getArgument(1).test(invocation.getArgument(0)));
+        lenient().when(userExistenceFilter.emailTaken(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Predicate<String>>getArgument(1).test(invocation.getArgument(0)));
     }
 
     @Test
@@ -70,6 +102,20 @@ class UserServiceTest {
         verify(userRepository).save(any(User.class));
     }
 
+    @Test
+    void createUser_FilterRulesOutExistingValues_SkipsDatabaseChecks() {
+        doReturn(false).when(userExistenceFilter).usernameTaken(anyString(), any());
+        doReturn(false).when(userExistenceFilter).emailTaken(anyString(), any());
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        UserDto result = userService.createUser(userDto);
+
+        assertEquals(user.getId(), result.getId());
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userExistenceFilter).add(user.getUsername(), user.getEmail());
+    }
+
     @Test
     void createUser_UsernameExists_ThrowsException() {
         when(userRepository.existsByUsername(anyString())).thenReturn(true);
@@ -185,6 +231,7 @@ class UserServiceTest {
         assertEquals(updatedUser.getEmail(), result.getEmail());
         assertEquals(updatedUser.getFirstName(), result.getFirstName());
         assertEquals(updatedUser.getLastName(), result.getLastName());
+        assertEquals(NOW, existingUser.getUpdatedAt());
 
         verify(userRepository).findById(1L);
         verify(userRepository).existsByUsername(updateDto.getUsername());
@@ -277,6 +324,7 @@ class UserServiceTest {
 
         verify(userRepository).existsById(1L);
         verify(userRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new UserDeletedEvent(1L));
     }
 
     @Test
@@ -291,5 +339,162 @@ class UserServiceTest {
         assertTrue(exception.getMessage().contains("User not found"));
         verify(userRepository).existsById(1L);
         verify(userRepository, never()).deleteById(anyLong());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateUserWithVersion_Success_IssuesSingleConditionalUpdate() {
+        when(userRepository.existsByUsernameAndIdNot("updated", 1L)).thenReturn(false);
+        when(userRepository.existsByEmailAndIdNot("updated@example.com", 1L)).thenReturn(false);
+        when(userRepository.updateIfVersionMatches(eq(1L), eq(3L), eq("updated"), eq("updated@example.com"),
+                eq("Updated"), eq("User"), eq(NOW))).thenReturn(1);
+
+        UserDto result = userService.updateUser(1L, updatedDto(), 3L);
+
+        assertEquals(1L, result.getId());
+        assertEquals("updated", result.getUsername());
+        assertEquals(4L, result.getVersion());
+        verify(userRepository, never()).findById(anyLong());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userExistenceFilter).add("updated", "updated@example.com");
+    }
+
+    @Test
+    void updateUserWithVersion_StaleVersion_ThrowsPreconditionFailed() {
+        when(userRepository.updateIfVersionMatches(eq(1L), eq(3L), anyString(), anyString(), anyString(),
+                anyString(), any())).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(1L, updatedDto(), 3L));
+
+        verify(userExistenceFilter, never()).add(anyString(), anyString());
+    }
+
+    @Test
+    void updateUserWithVersion_UserNotFound_ThrowsException() {
+        when(userRepository.updateIfVersionMatches(eq(1L), eq(3L), anyString(), anyString(), anyString(),
+                anyString(), any())).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> userService.updateUser(1L, updatedDto(), 3L));
+    }
+
+    @Test
+    void updateUserWithVersion_UsernameTakenByOtherUser_ThrowsException() {
+        when(userRepository.existsByUsernameAndIdNot("updated", 1L)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> userService.updateUser(1L, updatedDto(), 3L));
+
+        verify(userRepository, never()).updateIfVersionMatches(anyLong(), anyLong(), anyString(), anyString(),
+                anyString(), anyString(), any());
+    }
+
+    @Test
+    void patchUser_OnlyFirstName_SkipsUniquenessChecks() {
+        user.setVersion(2L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.saveAndFlush(user)).thenReturn(user);
+
+        UserDto result = userService.patchUser(1L, Map.of("firstName", "Renamed"), 2L);
+
+        assertEquals("Renamed", result.getFirstName());
+        assertEquals("testuser", result.getUsername());
+        assertEquals(NOW, user.getUpdatedAt());
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userExistenceFilter, never()).usernameTaken(anyString(), any());
+    }
+
+    @Test
+    void patchUser_ChangedUsername_ChecksUniqueness() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.existsByUsername("renamed")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.patchUser(1L, Map.of("username", "renamed"), null));
+
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void patchUser_NoEffectiveChange_DoesNotWrite() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        UserDto result = userService.patchUser(1L, Map.of("email", "test@example.com"), null);
+
+        assertEquals("test@example.com", result.getEmail());
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void patchUser_InvalidValue_ThrowsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.patchUser(1L, Map.of("email", "not-an-email"), null));
+
+        assertEquals("Email should be valid", exception.getMessage());
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void patchUser_UnknownField_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.patchUser(1L, Map.of("id", 5), null));
+
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void patchUser_StaleVersion_ThrowsPreconditionFailed() {
+        user.setVersion(5L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> userService.patchUser(1L, Map.of("firstName", "Renamed"), 4L));
+
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void searchUsers_ReturnsPageAndDetectsNextPage() {
+        User other = User.builder()
+                .id(2L)
+                .username("tester")
+                .email("tester@example.com")
+                .firstName("Other")
+                .lastName("User")
+                .build();
+        when(userRepository.searchUsers("te_st", "te\\_st%", 2, 2L)).thenReturn(List.of(user, other));
+
+        PageDto<UserDto> result = userService.searchUsers("  TE_ST ", 2, 1);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(user.getId(), result.getContent().get(0).getId());
+        assertEquals(2, result.getPage());
+        assertEquals(1, result.getSize());
+        assertTrue(result.isHasNext());
+    }
+
+    @Test
+    void searchUsers_BlankQuery_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("   ", 0, 20));
+
+        verify(userRepository, never()).searchUsers(anyString(), anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void searchUsers_PageSizeTooLarge_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("test", 0, 101));
+
+        verify(userRepository, never()).searchUsers(anyString(), anyString(), anyInt(), anyLong());
+    }
+
+    private UserDto updatedDto() {
+        return UserDto.builder()
+                .username("updated")
+                .email("updated@example.com")
+                .firstName("Updated")
+                .lastName("User")
+                .build();
     }
-} 
\ No newline at end of file
+}
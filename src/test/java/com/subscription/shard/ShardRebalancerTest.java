@@ -0,0 +1,143 @@
+package com.subscription.shard;
+
+import com.subscription.dto.ShardRebalanceResultDto;
+import com.subscription.support.MigratedDatabase;
+import com.subscription.util.ConsistentHashRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRebalancerTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2024, 6, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final List<String> SHARDS = List.of("shard-0", "shard-1", "shard-2");
+    private static final int USERS = 30;
+
+    private final Map<String, EmbeddedDatabase> databases = new LinkedHashMap<>();
+    private ShardRouter router;
+    private ShardRebalancer rebalancer;
+
+    @BeforeEach
+    void setUp() {
+        for (String shard : SHARDS) {
+            databases.put(shard, MigratedDatabase.create());
+        }
+        router = new ShardRouter(new ConsistentHashRing(SHARDS, 64), Map.copyOf(databases), 2);
+        rebalancer = new ShardRebalancer(router, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+        databases.values().forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void rebalance_AfterShardsAreAdded_MovesUsersWithTheirSubscriptionsToTheRingOwner() {
+        // Everything starts on the first shard, as after turning sharding on for a single database
+        JdbcTemplate first = jdbc("shard-0");
+        for (long id = 1; id <= USERS; id++) {
+            first.update("INSERT INTO users (id, username, email, first_name, last_name) VALUES (?, ?, ?, 'First', 'Last')",
+                    id, "user" + id, "user" + id + "@example.com");
+            first.update("INSERT INTO subscriptions (id, user_id, subscription_type_id, start_date, status, auto_renew, " +
+                            "created_at, updated_at, version) VALUES (?, ?, 1, ?, 'ACTIVE', TRUE, ?, ?, 3)",
+                    id * 10, id, START, START, START);
+            first.update("INSERT INTO subscriptions_archive VALUES (?, ?, 2, ?, ?, 'EXPIRED', FALSE, ?, ?, ?)",
+                    id * 10 + 1, id, START.minusYears(1), START.minusMonths(6), START.minusYears(1),
+                    START.minusMonths(6), START);
+        }
+        long stayed = usersOwnedBy("shard-0");
+
+        ShardRebalanceResultDto result = rebalancer.rebalance();
+
+        assertEquals(USERS - stayed, result.getMovedUsers());
+        assertEquals(2 * (USERS - stayed), result.getMovedSubscriptions());
+        assertEquals(USERS, result.getScannedUsers());
+        long total = 0;
+        for (String shard : SHARDS) {
+            JdbcTemplate jdbcTemplate = jdbc(shard);
+            List<Long> users = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+            for (Long id : users) {
+                assertEquals(shard, router.shardFor(id), "user " + id);
+                assertEquals(List.of(id * 10), jdbcTemplate.queryForList(
+                        "SELECT id FROM subscriptions WHERE user_id = ?", Long.class, id));
+                assertEquals(List.of(id * 10 + 1), jdbcTemplate.queryForList(
+                        "SELECT id FROM subscriptions_archive WHERE user_id = ?", Long.class, id));
+            }
+            total += users.size();
+        }
+        assertEquals(USERS, total);
+        long moved = firstUserOwnedBy("shard-1");
+        assertEquals(3L, jdbc("shard-1").queryForObject(
+                "SELECT version FROM subscriptions WHERE user_id = ?", Long.class, moved));
+        assertEquals("user" + moved + "@example.com", jdbc("shard-1").queryForObject(
+                "SELECT email FROM users WHERE id = ?", String.class, moved));
+    }
+
+    @Test
+    void rebalance_Rerun_MovesNothing() {
+        JdbcTemplate first = jdbc("shard-0");
+        for (long id = 1; id <= USERS; id++) {
+            first.update("INSERT INTO users (id, username, email, first_name, last_name) VALUES (?, ?, ?, 'First', 'Last')",
+                    id, "user" + id, "user" + id + "@example.com");
+        }
+        rebalancer.rebalance();
+
+        ShardRebalanceResultDto result = rebalancer.rebalance();
+
+        assertEquals(0, result.getMovedUsers());
+        assertEquals(USERS, result.getScannedUsers());
+    }
+
+    @Test
+    void rebalance_UserLeftOnBothShards_ReplacesTheEarlierCopy() {
+        long userId = firstUserOwnedBy("shard-1");
+        for (String shard : List.of("shard-0", "shard-1")) {
+            jdbc(shard).update("INSERT INTO users (id, username, email, first_name, last_name) VALUES (?, ?, ?, 'First', 'Last')",
+                    userId, "user" + userId, "user" + userId + "@example.com");
+        }
+        // The source row is the one kept, since it was never deleted after the interrupted move
+        jdbc("shard-0").update("UPDATE users SET first_name = 'Latest' WHERE id = ?", userId);
+
+        ShardRebalanceResultDto result = rebalancer.rebalance();
+
+        assertEquals(1, result.getMovedUsers());
+        assertEquals(0, jdbc("shard-0").queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+        assertEquals("Latest", jdbc("shard-1").queryForObject(
+                "SELECT first_name FROM users WHERE id = ?", String.class, userId));
+    }
+
+    private long usersOwnedBy(String shard) {
+        long count = 0;
+        for (long id = 1; id <= USERS; id++) {
+            if (router.shardFor(id).equals(shard)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long firstUserOwnedBy(String shard) {
+        long id = 1;
+        while (!router.shardFor(id).equals(shard)) {
+            id++;
+        }
+        return id;
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        DataSource dataSource = databases.get(shard);
+        return new JdbcTemplate(dataSource);
+    }
+}
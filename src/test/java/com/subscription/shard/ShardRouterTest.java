@@ -0,0 +1,88 @@
+package com.subscription.shard;
+
+import com.subscription.util.ConsistentHashRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+    private final Map<String, EmbeddedDatabase> databases = new LinkedHashMap<>();
+    private ShardRouter router;
+    private JdbcTemplate routed;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("directory", "shard-0", "shard-1")) {
+            EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+            new JdbcTemplate(database).execute("CREATE TABLE origin AS SELECT '" + name + "' AS name");
+            databases.put(name, database);
+        }
+        Map<String, DataSource> shards = Map.of("shard-0", databases.get("shard-0"), "shard-1", databases.get("shard-1"));
+        router = new ShardRouter(new ConsistentHashRing(List.of("shard-0", "shard-1"), 64), shards, 2);
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(databases.get("directory"), shards);
+        routing.afterPropertiesSet();
+        routed = new JdbcTemplate(routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+        databases.values().forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void routingDataSource_WithoutShard_UsesDirectory() {
+        assertNull(ShardContext.current());
+        assertEquals("directory", origin());
+    }
+
+    @Test
+    void onUserShard_ConnectsToTheRingOwnerAndRestoresContext() {
+        for (long userId = 1; userId <= 20; userId++) {
+            assertEquals(router.shardFor(userId), router.onUserShard(userId, this::origin));
+        }
+        assertNull(ShardContext.current());
+    }
+
+    @Test
+    void onEachShard_RunsOncePerShardInRingOrder() {
+        assertEquals(List.of("shard-0", "shard-1"), router.onEachShard(this::origin));
+    }
+
+    @Test
+    void onEachShard_FailureOnOneShard_IsRethrown() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> router.onEachShard(() -> {
+            if ("shard-1".equals(ShardContext.current())) {
+                throw new IllegalArgumentException("boom");
+            }
+            return origin();
+        }));
+
+        assertEquals("boom", ex.getMessage());
+    }
+
+    @Test
+    void routingDataSource_UnknownShard_Fails() {
+        assertThrows(CannotGetJdbcConnectionException.class, () -> ShardContext.call("shard-9", this::origin));
+    }
+
+    private String origin() {
+        return routed.queryForObject("SELECT name FROM origin", String.class);
+    }
+}
@@ -0,0 +1,94 @@
+package com.subscription.shard;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.dto.SubscriptionTypeDto;
+import com.subscription.repository.SubscriptionRepository;
+import com.subscription.service.SubscriptionService;
+import com.subscription.util.ConsistentHashRing;
+import com.subscription.util.StaleWhileRevalidateCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ShardedSubscriptionServiceTest {
+
+    private static final List<String> SHARDS = List.of("shard-0", "shard-1", "shard-2");
+
+    private ShardRouter router;
+    private SubscriptionService delegate;
+    private SubscriptionRepository subscriptionRepository;
+    private ShardedSubscriptionService service;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new HashMap<>();
+        SHARDS.forEach(shard -> dataSources.put(shard, mock(DataSource.class)));
+        router = new ShardRouter(new ConsistentHashRing(SHARDS, 64), dataSources, 3);
+        delegate = mock(SubscriptionService.class);
+        subscriptionRepository = mock(SubscriptionRepository.class);
+        StaleWhileRevalidateCache<List<SubscriptionTypeDto>> cache = new StaleWhileRevalidateCache<>("test.top.cache",
+                Duration.ZERO, Duration.ZERO, Runnable::run, System::nanoTime,
+                new SimpleMeterRegistry());
+        service = new ShardedSubscriptionService(delegate, subscriptionRepository, router, cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+    }
+
+    @Test
+    void getTopSubscriptions_SumsCountsFromEveryShardBeforeRanking() {
+        // Netflix leads on no single shard but has the most subscriptions overall
+        Map<String, List<Object[]>> counts = Map.of(
+                "shard-0", List.of(new Object[] {1L, "Netflix", 4L}, new Object[] {2L, "Spotify Premium", 5L}),
+                "shard-1", List.of(new Object[] {1L, "Netflix", 4L}, new Object[] {3L, "VK Music", 5L}),
+                "shard-2", List.of(new Object[] {1L, "Netflix", 4L}, new Object[] {4L, "Yandex Plus", 6L},
+                        new Object[] {2L, "Spotify Premium", 2L}));
+        when(subscriptionRepository.countBySubscriptionType())
+                .thenAnswer(invocation -> counts.get(ShardContext.current()));
+
+        List<SubscriptionTypeDto> top = service.getTopSubscriptions();
+
+        assertEquals(List.of(1L, 2L, 4L), top.stream().map(SubscriptionTypeDto::getId).toList());
+        assertEquals(List.of(12L, 7L, 6L), top.stream().map(SubscriptionTypeDto::getCount).toList());
+        assertEquals("Netflix", top.get(0).getName());
+        verify(subscriptionRepository, times(3)).countBySubscriptionType();
+        verify(delegate, never()).getTopSubscriptions();
+    }
+
+    @Test
+    void streamSubscriptionsByUsers_StreamsEachUsersGroupFromItsShard() {
+        List<Long> userIds = new ArrayList<>();
+        for (long userId = 1; userId <= 12; userId++) {
+            userIds.add(userId);
+        }
+        Map<String, List<Long>> seen = new HashMap<>();
+        doAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            ids.forEach(id -> assertEquals(router.shardFor(id), ShardContext.current()));
+            seen.put(ShardContext.current(), ids);
+            return null;
+        }).when(delegate).streamSubscriptionsByUsers(anyList(), any());
+        Consumer<Map<Long, List<SubscriptionDto>>> consumer = chunk -> { };
+
+        service.streamSubscriptionsByUsers(userIds, consumer);
+
+        assertEquals(12, seen.values().stream().mapToInt(List::size).sum());
+        verify(delegate, times(seen.size())).streamSubscriptionsByUsers(anyList(), eq(consumer));
+    }
+}
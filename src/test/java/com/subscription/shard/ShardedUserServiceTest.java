@@ -0,0 +1,142 @@
+package com.subscription.shard;
+
+import com.subscription.dto.UserDto;
+import com.subscription.exception.PreconditionFailedException;
+import com.subscription.service.UserService;
+import com.subscription.support.MigratedDatabase;
+import com.subscription.util.ConsistentHashRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ShardedUserServiceTest {
+
+    private static final List<String> SHARDS = List.of("shard-0", "shard-1");
+
+    private EmbeddedDatabase directoryDatabase;
+    private final Map<String, EmbeddedDatabase> shardDatabases = new LinkedHashMap<>();
+    private ShardRouter router;
+    private UserService delegate;
+    private ShardedUserService service;
+
+    @BeforeEach
+    void setUp() {
+        directoryDatabase = MigratedDatabase.createDirectory();
+        for (String shard : SHARDS) {
+            shardDatabases.put(shard, MigratedDatabase.create());
+        }
+        router = new ShardRouter(new ConsistentHashRing(SHARDS, 64), Map.copyOf(shardDatabases), 2);
+        delegate = mock(UserService.class);
+        service = new ShardedUserService(delegate, router, new UserDirectory(directoryDatabase));
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+        directoryDatabase.shutdown();
+        shardDatabases.values().forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void createUser_TakesIdFromDirectoryAndStoresOnItsShard() {
+        for (int i = 1; i <= 4; i++) {
+            UserDto created = service.createUser(user("user" + i));
+
+            assertEquals(i, created.getId());
+            assertEquals(0L, created.getVersion());
+            for (String shard : SHARDS) {
+                int expected = shard.equals(router.shardFor(created.getId())) ? 1 : 0;
+                assertEquals(expected, new JdbcTemplate(shardDatabases.get(shard)).queryForObject(
+                        "SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, created.getId()));
+            }
+        }
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void createUser_UsernameOrEmailTakenOnAnyShard_ThrowsException() {
+        service.createUser(user("alice"));
+
+        UserDto sameUsername = user("alice");
+        sameUsername.setEmail("other@example.com");
+        IllegalArgumentException usernameTaken = assertThrows(IllegalArgumentException.class,
+                () -> service.createUser(sameUsername));
+        UserDto sameEmail = user("bob");
+        sameEmail.setEmail("alice@example.com");
+        IllegalArgumentException emailTaken = assertThrows(IllegalArgumentException.class,
+                () -> service.createUser(sameEmail));
+
+        assertEquals("Username already exists", usernameTaken.getMessage());
+        assertEquals("Email already exists", emailTaken.getMessage());
+        assertEquals(1, new JdbcTemplate(directoryDatabase).queryForObject(
+                "SELECT COUNT(*) FROM user_directory", Integer.class));
+    }
+
+    @Test
+    void getAllUsers_MergesShardsInIdOrder() {
+        when(delegate.getAllUsers()).thenAnswer(invocation -> "shard-0".equals(ShardContext.current())
+                ? List.of(UserDto.builder().id(2L).build(), UserDto.builder().id(5L).build())
+                : List.of(UserDto.builder().id(1L).build(), UserDto.builder().id(9L).build()));
+
+        List<UserDto> users = service.getAllUsers();
+
+        assertEquals(List.of(1L, 2L, 5L, 9L), users.stream().map(UserDto::getId).toList());
+        verify(delegate, times(2)).getAllUsers();
+    }
+
+    @Test
+    void updateUser_NameTakenByUserOnOtherShard_ThrowsWithoutTouchingShard() {
+        service.createUser(user("alice"));
+        long bob = service.createUser(user("bob")).getId();
+
+        UserDto rename = user("alice");
+        rename.setEmail("bob@example.com");
+        assertThrows(IllegalArgumentException.class, () -> service.updateUser(bob, rename));
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void updateUser_RejectedByShard_RestoresDirectoryEntry() {
+        long alice = service.createUser(user("alice")).getId();
+        when(delegate.updateUser(eq(alice), any(UserDto.class), eq(3L)))
+                .thenThrow(new PreconditionFailedException("User was modified by another request"));
+
+        assertThrows(PreconditionFailedException.class, () -> service.updateUser(alice, user("carol"), 3L));
+
+        // The new name was released again, so another user can take it
+        assertEquals("carol", service.createUser(user("carol")).getUsername());
+        assertEquals("alice", new JdbcTemplate(directoryDatabase).queryForObject(
+                "SELECT username FROM user_directory WHERE id = ?", String.class, alice));
+    }
+
+    @Test
+    void deleteUser_ReleasesUsernameAndEmail() {
+        long alice = service.createUser(user("alice")).getId();
+
+        service.deleteUser(alice);
+
+        verify(delegate).deleteUser(alice);
+        assertNotEquals(alice, service.createUser(user("alice")).getId());
+    }
+
+    private static UserDto user(String username) {
+        return UserDto.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .firstName("Test")
+                .lastName("User")
+                .build();
+    }
+}
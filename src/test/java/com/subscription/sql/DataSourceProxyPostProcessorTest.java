@@ -0,0 +1,77 @@
+package com.subscription.sql;
+
+import com.subscription.shard.ShardContext;
+import com.subscription.shard.ShardRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceProxyPostProcessorTest {
+
+    private EmbeddedDatabase directory;
+    private EmbeddedDatabase shard;
+    private DataSourceProxyPostProcessor postProcessor;
+
+    @BeforeEach
+    void setUp() {
+        directory = newDatabase();
+        shard = newDatabase();
+        postProcessor = new DataSourceProxyPostProcessor(new StatementAccountingListener(
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class),
+                Duration.ofSeconds(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        directory.shutdown();
+        shard.shutdown();
+    }
+
+    @Test
+    void routedStatements_AreCountedOnce() {
+        DataSource proxiedDirectory = (DataSource) postProcessor.postProcessAfterInitialization(directory, "directoryDataSource");
+        DataSource proxiedShard = postProcessor.proxy(shard, "shard-0");
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(proxiedDirectory, Map.of("shard-0", proxiedShard));
+        routing.afterPropertiesSet();
+
+        assertSame(routing, postProcessor.postProcessAfterInitialization(routing, "dataSource"));
+        JdbcTemplate routed = new JdbcTemplate(routing);
+        SqlStatementStats stats = SqlStatementTracker.open();
+        try {
+            routed.queryForObject("SELECT 1", Integer.class);
+            ShardContext.call("shard-0", () -> routed.queryForObject("SELECT 1", Integer.class));
+            new JdbcTemplate(proxiedShard).queryForObject("SELECT 1", Integer.class);
+        } finally {
+            SqlStatementTracker.close(stats);
+        }
+
+        assertEquals(3, stats.getStatements());
+    }
+
+    @Test
+    void proxy_AlreadyProxied_IsReturnedAsIs() {
+        DataSource proxied = postProcessor.proxy(shard, "shard-0");
+
+        assertSame(proxied, postProcessor.proxy(proxied, "shard-0"));
+        assertSame(proxied, postProcessor.postProcessAfterInitialization(proxied, "shard-0"));
+    }
+
+    private static EmbeddedDatabase newDatabase() {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.subscription.sql;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlAccountingFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SqlAccountingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new SqlAccountingFilter(meterRegistry, 2, Duration.ofMillis(100));
+    }
+
+    @Test
+    void doFilter_AttributesStatementsToEndpointAndMethod() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/7");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{id}");
+            SqlStatementTracker.enterMethod("UserService.getUserById");
+            SqlStatementTracker.record(3);
+            SqlStatementTracker.exitMethod();
+        });
+
+        assertEquals(1, meterRegistry.get("sql.request.statements").tag("endpoint", "GET /users/{id}")
+                .summary().totalAmount());
+        assertEquals(1, meterRegistry.get("sql.statements").tag("method", "UserService.getUserById")
+                .counter().count());
+        assertTrue(meterRegistry.find("sql.request.budget.exceeded").counters().isEmpty());
+    }
+
+    @Test
+    void doFilter_OverBudget_CountsExceededBudgets() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), new MockHttpServletResponse(), (req, res) -> {
+            SqlStatementTracker.record(40);
+            SqlStatementTracker.record(40);
+            SqlStatementTracker.record(40);
+        });
+
+        assertEquals(1, meterRegistry.get("sql.request.budget.exceeded").tag("budget", "count").counter().count());
+        assertEquals(1, meterRegistry.get("sql.request.budget.exceeded").tag("budget", "duration").counter().count());
+        assertEquals(3, meterRegistry.get("sql.statements").tag("endpoint", "GET UNMAPPED")
+                .tag("method", SqlStatementTracker.NO_METHOD).counter().count());
+    }
+
+    @Test
+    void record_OutsideAnyScope_IsIgnored() {
+        SqlStatementStats stats = SqlStatementTracker.open();
+        SqlStatementTracker.close(stats);
+
+        SqlStatementTracker.record(5);
+
+        assertEquals(0, stats.getStatements());
+    }
+}
@@ -0,0 +1,283 @@
+package com.subscription.stream;
+
+import com.subscription.dto.SubscriptionDto;
+import com.subscription.event.SubscriptionEvent;
+import com.subscription.event.SubscriptionEventType;
+import com.subscription.event.UserDeletedEvent;
+import com.subscription.exception.TooManyStreamsException;
+import com.subscription.model.SubscriptionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionStreamHubTest {
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private final Deque<Runnable> pendingSends = new ArrayDeque<>();
+    private boolean blockNextEmitter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void subscribe_SendsSnapshotThenChangesOfThatUserOnly() {
+        SubscriptionStreamHub hub = hub(Runnable::run, 8, 10, StreamOverflowPolicy.RESYNC);
+        SubscriptionDto existing = SubscriptionDto.builder().id(10L).subscriptionTypeId(1L).build();
+
+        hub.subscribe(1L, () -> List.of(existing));
+        hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 11L, 1L));
+        hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 20L, 2L));
+        hub.onSubscriptionEvent(event(SubscriptionEventType.EXPIRED, 10L, 1L));
+        hub.onSubscriptionEvent(event(SubscriptionEventType.DELETED, 11L, 1L));
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertEquals(List.of("snapshot", "subscription-added", "subscription-status", "subscription-deleted"),
+                emitter.names);
+        assertEquals(List.of(existing), emitter.payloads.get(0));
+        SubscriptionDto added = (SubscriptionDto) emitter.payloads.get(1);
+        assertEquals(11L, added.getId());
+        assertEquals(SubscriptionStatus.ACTIVE, added.getStatus());
+    }
+
+    @Test
+    void subscribe_ChangeQueuedBeforeSnapshot_SendsSnapshotFirst() {
+        SubscriptionStreamHub hub = hub(pendingSends::add, 8, 10, StreamOverflowPolicy.RESYNC);
+
+        // The change commits while the snapshot is being read
+        hub.subscribe(1L, () -> {
+            hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 11L, 1L));
+            return List.of();
+        });
+        runPendingSends();
+
+        assertEquals(List.of("snapshot", "subscription-added"), emitters.get(0).names);
+    }
+
+    @Test
+    void subscribe_UnknownUser_ReleasesConnection() {
+        SubscriptionStreamHub hub = hub(Runnable::run, 8, 10, StreamOverflowPolicy.RESYNC);
+
+        assertThrows(EntityNotFoundException.class, () -> hub.subscribe(1L, () -> {
+            throw new EntityNotFoundException("User not found with ID: 1");
+        }));
+
+        assertEquals(0, hub.getConnections());
+        hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 11L, 1L));
+        assertEquals(List.of(), emitters.get(0).names);
+    }
+
+    @Test
+    void subscribe_OverConnectionLimit_ThrowsException() {
+        SubscriptionStreamHub hub = hub(Runnable::run, 8, 1, StreamOverflowPolicy.RESYNC);
+        hub.subscribe(1L, List::of);
+
+        assertThrows(TooManyStreamsException.class, () -> hub.subscribe(2L, List::of));
+        assertEquals(1, hub.getConnections());
+    }
+
+    @Test
+    void slowClient_ResyncPolicy_ReplacesQueuedEventsWithResync() {
+        SubscriptionStreamHub hub = hub(pendingSends::add, 2, 10, StreamOverflowPolicy.RESYNC);
+        hub.subscribe(1L, List::of);
+        hub.subscribe(2L, List::of);
+
+        for (long id = 1; id <= 3; id++) {
+            hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, id, 1L));
+        }
+        hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 4L, 2L));
+        runPendingSends();
+        hub.onSubscriptionEvent(event(SubscriptionEventType.DELETED, 3L, 1L));
+        runPendingSends();
+
+        // The second event overflows the queue holding the snapshot and the first event
+        assertEquals(List.of("resync", "subscription-added", "subscription-deleted"), emitters.get(0).names);
+        assertEquals(3L, ((SubscriptionDto) emitters.get(0).payloads.get(1)).getId());
+        assertEquals(List.of("snapshot", "subscription-added"), emitters.get(1).names);
+        assertEquals(3.0, meterRegistry.counter("subscription.stream.dropped").count());
+        assertEquals(2, hub.getConnections());
+    }
+
+    @Test
+    void slowClient_DisconnectPolicy_ClosesStream() {
+        SubscriptionStreamHub hub = hub(pendingSends::add, 2, 10, StreamOverflowPolicy.DISCONNECT);
+        hub.subscribe(1L, List::of);
+
+        for (long id = 1; id <= 3; id++) {
+            hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, id, 1L));
+        }
+        runPendingSends();
+        hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 4L, 1L));
+        runPendingSends();
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertTrue(emitter.completed);
+        assertEquals(List.of(), emitter.names);
+        assertEquals(0, hub.getConnections());
+    }
+
+    @Test
+    void heartbeat_IdleStreamGetsComment_BrokenStreamIsDropped() {
+        SubscriptionStreamHub hub = hub(Runnable::run, 8, 10, StreamOverflowPolicy.RESYNC);
+        hub.subscribe(1L, List::of);
+        hub.subscribe(2L, List::of);
+        emitters.get(1).broken = true;
+
+        hub.heartbeat();
+
+        assertEquals(List.of("snapshot", "heartbeat"), emitters.get(0).names);
+        assertEquals(1, hub.getConnections());
+    }
+
+    @Test
+    void stalledSend_PastSendTimeout_DropsClientAndFreesSender() throws InterruptedException {
+        ExecutorService senders = Executors.newSingleThreadExecutor();
+        SubscriptionStreamHub hub = hub(senders, 8, 10, StreamOverflowPolicy.RESYNC, Duration.ZERO);
+        blockNextEmitter = true;
+        hub.subscribe(1L, List::of);
+        RecordingEmitter stalled = emitters.get(0);
+        assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+
+        hub.expireStalledSends();
+        hub.subscribe(2L, List::of);
+        senders.shutdown();
+        assertTrue(senders.awaitTermination(5, TimeUnit.SECONDS));
+
+        // The only sender thread got away from the stalled client and served the next one
+        assertEquals(List.of("snapshot"), emitters.get(1).names);
+        assertEquals(1, hub.getConnections());
+        assertEquals(1.0, meterRegistry.counter("subscription.stream.stalled").count());
+    }
+
+    @Test
+    void expireStalledSends_WriteWithinTimeout_KeepsClient() {
+        SubscriptionStreamHub hub = hub(Runnable::run, 8, 10, StreamOverflowPolicy.RESYNC);
+        hub.subscribe(1L, List::of);
+
+        hub.expireStalledSends();
+        hub.onSubscriptionEvent(event(SubscriptionEventType.CREATED, 11L, 1L));
+
+        assertEquals(List.of("snapshot", "subscription-added"), emitters.get(0).names);
+        assertEquals(1, hub.getConnections());
+    }
+
+    @Test
+    void onUserDeleted_CompletesUsersStreams() {
+        SubscriptionStreamHub hub = hub(Runnable::run, 8, 10, StreamOverflowPolicy.RESYNC);
+        hub.subscribe(1L, List::of);
+        hub.subscribe(1L, List::of);
+        hub.subscribe(2L, List::of);
+
+        hub.onUserDeleted(new UserDeletedEvent(1L));
+
+        assertTrue(emitters.get(0).completed);
+        assertTrue(emitters.get(1).completed);
+        assertFalse(emitters.get(2).completed);
+        assertEquals(1, hub.getConnections());
+    }
+
+    private SubscriptionStreamHub hub(Executor senders, int queueCapacity, int maxConnections,
+                                      StreamOverflowPolicy overflowPolicy) {
+        return hub(senders, queueCapacity, maxConnections, overflowPolicy, Duration.ofSeconds(10));
+    }
+
+    private SubscriptionStreamHub hub(Executor senders, int queueCapacity, int maxConnections,
+                                      StreamOverflowPolicy overflowPolicy, Duration sendTimeout) {
+        return new SubscriptionStreamHub(timeout -> {
+            RecordingEmitter emitter = new RecordingEmitter(blockNextEmitter);
+            blockNextEmitter = false;
+            emitters.add(emitter);
+            return emitter;
+        }, senders, meterRegistry, queueCapacity, maxConnections, Duration.ofMinutes(30),
+                Duration.ofSeconds(15), sendTimeout, overflowPolicy);
+    }
+
+    private void runPendingSends() {
+        while (!pendingSends.isEmpty()) {
+            pendingSends.poll().run();
+        }
+    }
+
+    private static SubscriptionEvent event(SubscriptionEventType type, Long subscriptionId, Long userId) {
+        return SubscriptionEvent.builder()
+                .type(type)
+                .subscriptionId(subscriptionId)
+                .userId(userId)
+                .subscriptionTypeId(1L)
+                .status(type == SubscriptionEventType.EXPIRED ? SubscriptionStatus.EXPIRED : SubscriptionStatus.ACTIVE)
+                .startDate(Instant.parse("2024-06-01T00:00:00Z"))
+                .occurredAt(Instant.parse("2024-06-01T00:00:00Z"))
+                .build();
+    }
+
+    // Records what would be written to the response; event names are read back from the SSE text.
+    // A blocking emitter stands for a client that stopped reading: its write waits until interrupted.
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> payloads = new ArrayList<>();
+        private final boolean blocking;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private boolean broken;
+        private boolean completed;
+
+        private RecordingEmitter(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (blocking) {
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Write interrupted", ex);
+                }
+            }
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder text = new StringBuilder();
+            Object payload = null;
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String chunk) {
+                    text.append(chunk);
+                } else {
+                    payload = part.getData();
+                }
+            }
+            if (text.charAt(0) == ':') {
+                names.add("heartbeat");
+            } else {
+                names.add(text.substring("event:".length(), text.indexOf("\n")));
+                payloads.add(payload);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.subscription.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Counts entity and collection fetches, which is how Hibernate records proxies and lazy collections
+// being initialized by a query of their own. Statistics are global, so requests served on async threads are included
+public final class LazyLoadCapture {
+
+    private final Statistics statistics;
+    private final Map<String, Long> entityFetches;
+    private final Map<String, Long> collectionFetches;
+
+    private LazyLoadCapture(Statistics statistics) {
+        this.statistics = statistics;
+        this.entityFetches = entityFetchCounts();
+        this.collectionFetches = collectionFetchCounts();
+    }
+
+    public static LazyLoadCapture start(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        return new LazyLoadCapture(statistics);
+    }
+
+    public void assertNoLazyLoads(String description) {
+        Map<String, Long> loads = new LinkedHashMap<>();
+        entityFetchCounts().forEach((entity, count) -> addDelta(loads, entity, count, entityFetches));
+        collectionFetchCounts().forEach((role, count) -> addDelta(loads, role, count, collectionFetches));
+        assertTrue(loads.isEmpty(), description + " triggered lazy loads: " + loads);
+    }
+
+    private Map<String, Long> entityFetchCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (String entity : statistics.getEntityNames()) {
+            counts.put(entity, statistics.getEntityStatistics(entity).getFetchCount());
+        }
+        return counts;
+    }
+
+    private Map<String, Long> collectionFetchCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (String role : statistics.getCollectionRoleNames()) {
+            counts.put(role, statistics.getCollectionStatistics(role).getFetchCount());
+        }
+        return counts;
+    }
+
+    private static void addDelta(Map<String, Long> loads, String name, long count, Map<String, Long> baseline) {
+        long delta = count - baseline.getOrDefault(name, 0L);
+        if (delta > 0) {
+            loads.put(name, delta);
+        }
+    }
+}
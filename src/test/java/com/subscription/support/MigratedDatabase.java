@@ -0,0 +1,121 @@
+package com.subscription.support;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// An embedded H2 database with the real Flyway migrations applied, so that tests run against the schema
+// production has, constraints and seeded subscription types included. H2 cannot run a few PostgreSQL-only
+// statements; they are adapted here rather than in the migrations:
+// - the pg_trgm extension and its GIN indexes are skipped, so search runs without them
+// - partial indexes are created over the whole table
+// - ALTER TABLE with several ALTER COLUMN clauses is run as one statement per clause
+// - the setval() that continues user_directory after existing users is skipped; the tables start empty
+public final class MigratedDatabase {
+
+    private static final Pattern VERSION = Pattern.compile("V(\\d+)__[^/]*\\.sql$");
+    private static final Pattern PARTIAL_INDEX = Pattern.compile("(?is)(CREATE\\s+INDEX\\s.*?\\))\\s+WHERE\\s.*");
+    private static final Pattern MULTI_ALTER = Pattern.compile("(?is)(ALTER\\s+TABLE\\s+\\w+)\\s+(ALTER\\s+COLUMN.*)");
+
+    private MigratedDatabase() {
+    }
+
+    // A single database, or one shard: the db/migration scripts
+    public static EmbeddedDatabase create() {
+        return create("db/migration");
+    }
+
+    // The directory database of a sharded setup, which ShardMigrator also gives the db/directory scripts
+    public static EmbeddedDatabase createDirectory() {
+        return create("db/migration", "db/directory");
+    }
+
+    // A user for the rows under test to reference
+    public static void insertUser(JdbcTemplate jdbcTemplate, long id) {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, first_name, last_name) VALUES (?, ?, ?, 'First', 'Last')",
+                id, "user" + id, "user" + id + "@example.com");
+    }
+
+    private static EmbeddedDatabase create(String... locations) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        try {
+            for (String location : locations) {
+                for (Resource script : scripts(location)) {
+                    statements(script).stream()
+                            .flatMap(statement -> adapt(statement).stream())
+                            .forEach(jdbcTemplate::execute);
+                }
+            }
+        } catch (IOException ex) {
+            database.shutdown();
+            throw new UncheckedIOException(ex);
+        } catch (RuntimeException ex) {
+            database.shutdown();
+            throw ex;
+        }
+        return database;
+    }
+
+    private static List<Resource> scripts(String location) throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources("classpath:" + location + "/V*__*.sql");
+        return Arrays.stream(resources)
+                .sorted(Comparator.comparingInt(MigratedDatabase::version))
+                .toList();
+    }
+
+    // The migrations keep semicolons out of literals and comments on lines of their own
+    private static List<String> statements(Resource script) throws IOException {
+        String sql = script.getContentAsString(StandardCharsets.UTF_8).lines()
+                .filter(line -> !line.strip().startsWith("--"))
+                .collect(Collectors.joining("\n"));
+        return Arrays.stream(sql.split(";"))
+                .map(String::strip)
+                .filter(statement -> !statement.isEmpty())
+                .toList();
+    }
+
+    private static int version(Resource script) {
+        Matcher matcher = VERSION.matcher(String.valueOf(script.getFilename()));
+        if (!matcher.find()) {
+            throw new IllegalStateException("Not a versioned migration: " + script);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static List<String> adapt(String statement) {
+        String normalized = statement.strip().toUpperCase(Locale.ROOT);
+        if (normalized.startsWith("CREATE EXTENSION") || normalized.contains(" USING GIN")
+                || normalized.startsWith("SELECT SETVAL(")) {
+            return List.of();
+        }
+        Matcher partialIndex = PARTIAL_INDEX.matcher(statement);
+        if (partialIndex.matches()) {
+            return List.of(partialIndex.group(1));
+        }
+        Matcher alter = MULTI_ALTER.matcher(statement.strip());
+        if (alter.matches()) {
+            return Arrays.stream(alter.group(2).split(",\\s*(?=(?i)ALTER\\s+COLUMN)"))
+                    .map(clause -> alter.group(1) + " " + clause.strip())
+                    .toList();
+        }
+        return List.of(statement);
+    }
+}
@@ -0,0 +1,34 @@
+package com.subscription.support;
+
+import com.subscription.sql.SqlStatementStats;
+import com.subscription.sql.SqlStatementTracker;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Counts statements issued on the current thread; MockMvc runs requests on the test thread, so requests are included
+public final class SqlStatementCapture implements AutoCloseable {
+
+    private final SqlStatementStats stats = SqlStatementTracker.open();
+
+    private SqlStatementCapture() {
+    }
+
+    public static SqlStatementCapture start() {
+        return new SqlStatementCapture();
+    }
+
+    public SqlStatementStats getStats() {
+        return stats;
+    }
+
+    public void assertStatementsAtMost(int budget) {
+        close();
+        assertTrue(stats.getStatements() <= budget,
+                "Expected at most " + budget + " SQL statements but was " + stats);
+    }
+
+    @Override
+    public void close() {
+        SqlStatementTracker.close(stats);
+    }
+}
@@ -0,0 +1,64 @@
+package com.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of("shard-0", "shard-1", "shard-2", "shard-3");
+
+    @Test
+    void nodeFor_IsStableAcrossInstances() {
+        ConsistentHashRing first = new ConsistentHashRing(NODES, 256);
+        ConsistentHashRing second = new ConsistentHashRing(NODES, 256);
+
+        for (long key = 1; key <= 1_000; key++) {
+            assertEquals(first.nodeFor(key), second.nodeFor(key));
+        }
+    }
+
+    @Test
+    void nodeFor_SpreadsKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 256);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 1; key <= 100_000; key++) {
+            counts.merge(ring.nodeFor(key), 1, Integer::sum);
+        }
+
+        assertEquals(NODES.size(), counts.size());
+        counts.forEach((node, count) ->
+                assertEquals(25_000, count, 5_000, () -> node + " received " + count + " keys"));
+    }
+
+    @Test
+    void withNode_MovesOnlyItsShareOfKeysAndOnlyToTheNewNode() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 256);
+        ConsistentHashRing grown = ring.withNode("shard-4", 256);
+
+        int moved = 0;
+        for (long key = 1; key <= 100_000; key++) {
+            String before = ring.nodeFor(key);
+            String after = grown.nodeFor(key);
+            if (!before.equals(after)) {
+                assertEquals("shard-4", after);
+                moved++;
+            }
+        }
+
+        // A fifth node should take about a fifth of the keys
+        assertEquals(20_000, moved, 5_000);
+    }
+
+    @Test
+    void constructor_InvalidArguments_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 16));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(NODES, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of("a", "a"), 16));
+    }
+}
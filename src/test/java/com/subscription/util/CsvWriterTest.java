@@ -0,0 +1,31 @@
+package com.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    @Test
+    void writeRow_QuotesOnlyWhenNeeded() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        csv.writeRow(new String[]{"1", "plain", "a,b", "say \"hi\"", "two\nlines"});
+
+        assertEquals("1,plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\"\n", out.toString());
+    }
+
+    @Test
+    void writeRow_DistinguishesNullFromEmpty() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        csv.writeRow(new String[]{null, "", "x"});
+
+        assertEquals(",\"\",x\n", out.toString());
+    }
+}
@@ -0,0 +1,107 @@
+package com.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void tryAcquire_RejectsOnceLimitReached() {
+        GradientLimiter limiter = new GradientLimiter(2, 1, 10, 0.2, 1.5, 100);
+
+        assertTrue(limiter.tryAcquire(1.0));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertFalse(limiter.tryAcquire(1.0));
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire(1.0));
+    }
+
+    @Test
+    void tryAcquire_LowerShareLeavesHeadroom() {
+        GradientLimiter limiter = new GradientLimiter(10, 1, 10, 0.2, 1.5, 100);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limiter.tryAcquire(0.8));
+        }
+
+        assertFalse(limiter.tryAcquire(0.8));
+        assertTrue(limiter.tryAcquire(1.0));
+    }
+
+    @Test
+    void onSample_StableLatencyUnderLoad_GrowsLimit() {
+        GradientLimiter limiter = saturated(20);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(10 * MILLIS, false);
+        }
+
+        assertTrue(limiter.getLimit() > 20, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void onSample_LatencySpike_ShrinksLimitDownToMinimum() {
+        GradientLimiter limiter = saturated(20);
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(10 * MILLIS, false);
+        }
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 40; i++) {
+            limiter.onSample(200 * MILLIS, false);
+        }
+
+        assertTrue(limiter.getLimit() < before, "limit " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 5);
+    }
+
+    @Test
+    void onSample_LightLoad_KeepsLimit() {
+        GradientLimiter limiter = new GradientLimiter(20, 5, 100, 0.2, 1.5, 100);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(10 * MILLIS, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void onSample_LatencySpikeUnderLightLoad_StillShrinks() {
+        GradientLimiter limiter = new GradientLimiter(20, 5, 100, 0.2, 1.5, 100);
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(10 * MILLIS, false);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(200 * MILLIS, false);
+        }
+
+        assertTrue(limiter.getLimit() < 20, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void onSample_Dropped_BacksOff() {
+        GradientLimiter limiter = new GradientLimiter(20, 5, 100, 0.2, 1.5, 100);
+
+        limiter.onSample(0, true);
+
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void constructor_InvalidLimits_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new GradientLimiter(1, 5, 100, 0.2, 1.5, 100));
+    }
+
+    private static GradientLimiter saturated(int limit) {
+        GradientLimiter limiter = new GradientLimiter(limit, 5, 100, 0.2, 1.5, 100);
+        for (int i = 0; i < limit; i++) {
+            limiter.tryAcquire(1.0);
+        }
+        return limiter;
+    }
+}
@@ -0,0 +1,101 @@
+package com.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advanceTo_FiresTimersAtTheirDeadlineAcrossLevels() {
+        // 4 slots per level, 3 levels: 64 ticks before overflow
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 2, 3, 0);
+        long[] deadlines = {5, 10, 35, 40, 41, 170, 630};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<long[]> fired = new ArrayList<>();
+        for (long now = 0; now <= 700; now += 10) {
+            long at = now;
+            wheel.advanceTo(now, deadline -> fired.add(new long[]{deadline, at}));
+        }
+
+        assertEquals(deadlines.length, fired.size());
+        for (int i = 0; i < deadlines.length; i++) {
+            long deadline = fired.get(i)[0];
+            long firedAt = fired.get(i)[1];
+            assertEquals(deadlines[i], deadline);
+            assertTrue(firedAt >= deadline && firedAt < deadline + 10, deadline + " fired at " + firedAt);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advanceTo_BeyondWheelRange_StillFiresOnTime() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, 2, 2, 0);
+        wheel.schedule(100L, 100);
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 120; now++) {
+            wheel.advanceTo(now, fired::add);
+            if (now < 100) {
+                assertTrue(fired.isEmpty(), "fired early at " + now);
+            }
+        }
+
+        assertEquals(List.of(100L), fired);
+    }
+
+    @Test
+    void cancel_RemovesPendingTimer() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 6, 4, 0);
+        HierarchicalTimingWheel.Timeout<String> kept = wheel.schedule("kept", 5000);
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 5000);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(6000, fired::add);
+        assertEquals(List.of("kept"), fired);
+        assertFalse(kept.isPending());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_OverdueDeadline_FiresOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 6, 4, 0);
+        wheel.advanceTo(10_000, value -> fail("nothing scheduled"));
+
+        wheel.schedule("late", 2_000);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(10_500, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(11_000, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void advanceTo_ManyRandomTimers_FireInDeadlineOrder() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, 6, 4, 0);
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long deadline = 1 + random.nextInt(1_000_000);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long[] last = {0};
+        int fired = wheel.advanceTo(1_000_000, deadline -> {
+            assertTrue(deadline >= last[0]);
+            last[0] = deadline;
+        });
+
+        assertEquals(100_000, fired);
+    }
+}
@@ -0,0 +1,79 @@
+package com.subscription.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putGetRemove_BehavesLikeAMap() {
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+
+        assertEquals(-1, map.put(42, 1));
+        assertEquals(1, map.put(42, 2));
+        assertEquals(2, map.get(42));
+        assertEquals(-1, map.get(43));
+        assertTrue(map.containsKey(42));
+
+        assertEquals(2, map.remove(42));
+        assertEquals(-1, map.remove(42));
+        assertFalse(map.containsKey(42));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void zeroKey_IsStoredSeparately() {
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+
+        map.put(0, 7);
+        map.put(Long.MIN_VALUE, 8);
+
+        assertEquals(7, map.get(0));
+        assertEquals(8, map.get(Long.MIN_VALUE));
+        assertEquals(2, map.size());
+        assertEquals(7, map.remove(0));
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    void addTo_TreatsAbsentKeyAsZero() {
+        LongIntHashMap map = new LongIntHashMap(4, 0);
+
+        assertEquals(3, map.addTo(5, 3));
+        assertEquals(1, map.addTo(5, -2));
+        assertEquals(-4, map.addTo(6, -4));
+    }
+
+    @Test
+    void randomOperations_MatchHashMapThroughGrowthAndRemovals() {
+        LongIntHashMap map = new LongIntHashMap(0, Integer.MIN_VALUE);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            // A narrow key range forces long probe runs and many removals inside them
+            long key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                Integer expected = reference.remove(key);
+                assertEquals(expected != null ? expected : Integer.MIN_VALUE, map.remove(key));
+            } else {
+                Integer expected = reference.put(key, i);
+                assertEquals(expected != null ? expected : Integer.MIN_VALUE, map.put(key, i));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals(value, map.get(key)));
+        int[] visited = {0};
+        map.forEach((key, value) -> {
+            assertEquals(reference.get(key), value);
+            visited[0]++;
+        });
+        assertEquals(reference.size(), visited[0]);
+    }
+}
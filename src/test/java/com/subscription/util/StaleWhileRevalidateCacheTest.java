@@ -0,0 +1,137 @@
+package com.subscription.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaleWhileRevalidateCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private StaleWhileRevalidateCache<Integer> cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new StaleWhileRevalidateCache<>("test.cache", Duration.ofSeconds(5), Duration.ofSeconds(60),
+                backgroundTasks::add, clock::get, meterRegistry);
+    }
+
+    @Test
+    void get_WithinFreshnessWindow_ReusesValue() {
+        assertEquals(1, cache.get(loads::incrementAndGet));
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertEquals(1, cache.get(loads::incrementAndGet));
+        assertEquals(1, loads.get());
+        assertEquals(1.0, requests("fresh"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    void get_WhenStale_ServesOldValueAndRefreshesOnce() {
+        cache.get(loads::incrementAndGet);
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertEquals(1, cache.get(loads::incrementAndGet));
+        assertEquals(1, cache.get(loads::incrementAndGet));
+        assertEquals(1, backgroundTasks.size());
+        assertEquals(10.0, meterRegistry.get("test.cache.age").gauge().value(), 0.001);
+
+        backgroundTasks.get(0).run();
+
+        assertEquals(2, cache.get(loads::incrementAndGet));
+        assertEquals(2.0, requests("stale"));
+        assertEquals(0.0, meterRegistry.get("test.cache.age").gauge().value(), 0.001);
+    }
+
+    @Test
+    void get_BeyondMaxStale_LoadsSynchronously() {
+        cache.get(loads::incrementAndGet);
+        clock.addAndGet(Duration.ofSeconds(66).toNanos());
+
+        assertEquals(2, cache.get(loads::incrementAndGet));
+        assertTrue(backgroundTasks.isEmpty());
+    }
+
+    @Test
+    void get_FailedRefresh_KeepsServingStaleValue() {
+        cache.get(loads::incrementAndGet);
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        cache.get(() -> {
+            throw new IllegalStateException("database down");
+        });
+        backgroundTasks.get(0).run();
+
+        assertEquals(1, cache.get(loads::incrementAndGet));
+        assertEquals(1.0, meterRegistry.get("test.cache.loads").tag("outcome", "failure").counter().count());
+    }
+
+    @Test
+    void get_FailedLoad_PropagatesToCaller() {
+        assertThrows(IllegalStateException.class, () -> cache.get(() -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(1, cache.get(loads::incrementAndGet));
+    }
+
+    @Test
+    void get_ConcurrentMisses_ShareOneLoad() throws Exception {
+        int callers = 8;
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get(() -> {
+                loaderStarted.countDown();
+                awaitQuietly(release);
+                return loads.incrementAndGet();
+            })));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(pool.submit(() -> cache.get(loads::incrementAndGet)));
+            }
+            while (requests("coalesced") < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("test.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Tests run with Flyway off, so the default types from V1 are not there
+INSERT INTO subscription_types (id, name, description, billing_period) VALUES
+(1, 'Netflix', 'Streaming service for movies and TV shows', 'MONTHLY'),
+(2, 'YouTube Premium', 'Premium subscription for YouTube', 'MONTHLY'),
+(3, 'Spotify Premium', 'Music streaming service', 'MONTHLY');